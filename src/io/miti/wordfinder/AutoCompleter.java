@@ -0,0 +1,385 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Shows a drop-down list of completions under a text field as
+ * the user types.  Up and Down move through the list, Enter
+ * copies the selected completion into the field, and Escape
+ * closes the list.  No completions are shown until the search
+ * engine has been set (once the dictionary is loaded).  The
+ * completions are looked up in the background once typing
+ * pauses, and only the latest lookup is shown.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class AutoCompleter
+{
+  /**
+   * The maximum number of completions to show.
+   */
+  private static final int MAX_COMPLETIONS = 10;
+  
+  /**
+   * How long to wait after a change before looking up the
+   * completions, in milliseconds.
+   */
+  private static final int UPDATE_DELAY = 100;
+  
+  /**
+   * The text field being completed.
+   */
+  private final JTextField field;
+  
+  /**
+   * The completions in the list.
+   */
+  private final DefaultListModel<String> model;
+  
+  /**
+   * The list of completions.
+   */
+  private final JList<String> list;
+  
+  /**
+   * Timer to look up the completions once typing pauses.
+   */
+  private final Timer timer;
+  
+  /**
+   * The popup holding the list.
+   */
+  private final JPopupMenu popup;
+  
+  /**
+   * The search engine (null until the dictionary is loaded).
+   */
+  private SearchEngine engine = null;
+  
+  /**
+   * Whether the field is being changed by this class.
+   */
+  private boolean updating = false;
+  
+  /**
+   * The number of lookups started, so only the latest is shown.
+   */
+  private int lookups = 0;
+  
+  
+  /**
+   * Attach a completion list to the text field.
+   * 
+   * @param textField the text field to complete
+   */
+  public AutoCompleter(final JTextField textField)
+  {
+    super();
+    field = textField;
+    
+    model = new DefaultListModel<String>();
+    list = new JList<String>(model);
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    list.setFocusable(false);
+    list.addMouseListener(new MouseAdapter()
+    {
+      public void mouseClicked(final MouseEvent e)
+      {
+        acceptSelection();
+      }
+    });
+    
+    popup = new JPopupMenu();
+    popup.setFocusable(false);
+    JScrollPane scrollPane = new JScrollPane(list);
+    scrollPane.setBorder(null);
+    popup.add(scrollPane);
+    
+    timer = new Timer(UPDATE_DELAY, new java.awt.event.ActionListener()
+    {
+      public void actionPerformed(final java.awt.event.ActionEvent evt)
+      {
+        updateList();
+      }
+    });
+    timer.setRepeats(false);
+    
+    // Update the list after each change to the text
+    field.getDocument().addDocumentListener(new DocumentListener()
+    {
+      public void insertUpdate(final DocumentEvent e)
+      {
+        scheduleUpdate();
+      }
+      
+      public void removeUpdate(final DocumentEvent e)
+      {
+        scheduleUpdate();
+      }
+      
+      public void changedUpdate(final DocumentEvent e)
+      {
+        // Attribute changes don't change the text
+      }
+    });
+    
+    field.addKeyListener(new KeyAdapter()
+    {
+      public void keyPressed(final KeyEvent e)
+      {
+        handleKey(e);
+      }
+    });
+    
+    field.addFocusListener(new FocusAdapter()
+    {
+      public void focusLost(final FocusEvent e)
+      {
+        cancelUpdate();
+        popup.setVisible(false);
+      }
+    });
+  }
+  
+  
+  /**
+   * Set the search engine used to find completions.
+   * 
+   * @param searchEngine the search engine
+   */
+  public void setEngine(final SearchEngine searchEngine)
+  {
+    engine = searchEngine;
+  }
+  
+  
+  /**
+   * Update the list once typing pauses, restarting the wait
+   * after each change.
+   */
+  private void scheduleUpdate()
+  {
+    if (updating)
+    {
+      return;
+    }
+    
+    timer.restart();
+  }
+  
+  
+  /**
+   * Stop any pending update, and drop the result of any
+   * lookup that's still running.
+   */
+  private void cancelUpdate()
+  {
+    timer.stop();
+    ++lookups;
+  }
+  
+  
+  /**
+   * Look up the completions for the field's text in the
+   * background, then show or hide the popup as needed.
+   */
+  private void updateList()
+  {
+    final String text = field.getText();
+    if ((engine == null) || (text.length() < 1) || (!field.isShowing()))
+    {
+      popup.setVisible(false);
+      return;
+    }
+    
+    final int lookup = ++lookups;
+    final SearchEngine searchEngine = engine;
+    new SwingWorker<List<String>, Object>()
+    {
+      @Override
+      protected List<String> doInBackground()
+      {
+        return searchEngine.complete(text, MAX_COMPLETIONS);
+      }
+      
+      @Override
+      protected void done()
+      {
+        // Skip the result if the text has changed since
+        if ((lookup != lookups) || (!field.isShowing()))
+        {
+          return;
+        }
+        
+        try
+        {
+          showList(text, get());
+        }
+        catch (InterruptedException ie)
+        {
+          popup.setVisible(false);
+        }
+        catch (ExecutionException ee)
+        {
+          popup.setVisible(false);
+        }
+      }
+    }.execute();
+  }
+  
+  
+  /**
+   * Fill the list with the completions for the text, showing
+   * or hiding the popup as needed.
+   * 
+   * @param text the text that was completed
+   * @param completions the completions, best first
+   */
+  private void showList(final String text, final List<String> completions)
+  {
+    // Hide the list if there's nothing to add to the text
+    if ((completions.isEmpty()) ||
+        ((completions.size() == 1) && (completions.get(0).equals(text))))
+    {
+      popup.setVisible(false);
+      return;
+    }
+    
+    model.clear();
+    for (String completion : completions)
+    {
+      model.addElement(completion);
+    }
+    
+    list.setVisibleRowCount(completions.size());
+    list.clearSelection();
+    popup.pack();
+    popup.show(field, 0, field.getHeight());
+  }
+  
+  
+  /**
+   * Handle a key pressed in the text field.
+   * 
+   * @param e the key event
+   */
+  private void handleKey(final KeyEvent e)
+  {
+    if (!popup.isVisible())
+    {
+      // Don't show a pending list after a search or Escape
+      if ((e.getKeyCode() == KeyEvent.VK_ENTER) ||
+          (e.getKeyCode() == KeyEvent.VK_ESCAPE))
+      {
+        cancelUpdate();
+      }
+      
+      return;
+    }
+    
+    final int size = list.getModel().getSize();
+    final int index = list.getSelectedIndex();
+    switch (e.getKeyCode())
+    {
+      case KeyEvent.VK_DOWN:
+        list.setSelectedIndex(Math.min(index + 1, size - 1));
+        list.ensureIndexIsVisible(list.getSelectedIndex());
+        e.consume();
+        break;
+      
+      case KeyEvent.VK_UP:
+        list.setSelectedIndex(Math.max(index - 1, 0));
+        list.ensureIndexIsVisible(list.getSelectedIndex());
+        e.consume();
+        break;
+      
+      case KeyEvent.VK_ENTER:
+        // Only take over Enter if a completion is selected,
+        // so Enter still runs the search otherwise
+        if (index >= 0)
+        {
+          acceptSelection();
+          e.consume();
+        }
+        else
+        {
+          cancelUpdate();
+          popup.setVisible(false);
+        }
+        break;
+      
+      case KeyEvent.VK_ESCAPE:
+        cancelUpdate();
+        popup.setVisible(false);
+        e.consume();
+        break;
+      
+      default:
+        break;
+    }
+  }
+  
+  
+  /**
+   * Copy the selected completion into the text field.
+   */
+  private void acceptSelection()
+  {
+    final String value = list.getSelectedValue();
+    cancelUpdate();
+    popup.setVisible(false);
+    if (value != null)
+    {
+      updating = true;
+      field.setText(value);
+      updating = false;
+    }
+  }
+}
@@ -42,7 +42,8 @@ public final class Definition
   private String strWord;
   
   /**
-   * The part of speech (can be blank).
+   * The part of speech (can be blank).  The entries in a
+   * dictionary share one copy of each part of speech.
    */
   private String strSpeech;
   
@@ -78,7 +79,9 @@ public final class Definition
   
   
   /**
-   * Build a definition object from a line of input.
+   * Build a definition object from a line of input.  Whole
+   * files are read with DictionaryParser, which doesn't build
+   * a String for each line.
    * 
    * @param line the line of input
    * @return the Definition object
@@ -137,7 +140,7 @@ public final class Definition
     StringBuffer buf = new StringBuffer(150);
     
     // Build the string buffer
-    buf.append("Word: ").append(strWord).append(" Speech:").append(strSpeech)
+    buf.append("Word: ").append(strWord).append(" Speech:").append(getSpeech())
        .append(" Definition: ").append(strDef);
     
     // Return the buffer as a string
@@ -195,6 +198,18 @@ public final class Definition
    * @return the part of speech
    */
   public String getFullPartOfSpeech()
+  {
+    return getFullPartOfSpeech(getSpeech());
+  }
+  
+  
+  /**
+   * Returns the full name of a part of speech.
+   * 
+   * @param strSpeech the part of speech
+   * @return the full name of the part of speech
+   */
+  public static String getFullPartOfSpeech(final String strSpeech)
   {
     if (strSpeech == null)
     {
@@ -228,6 +243,7 @@ public final class Definition
    */
   public String getAbbreviatedPartOfSpeech()
   {
+    final String strSpeech = getSpeech();
     if (strSpeech == null)
     {
       return "null";
@@ -271,6 +287,7 @@ public final class Definition
     }
     
     // Add the part of speech, if it's not empty
+    final String strSpeech = getSpeech();
     if (strSpeech.length() > 0)
     {
       buf.append("(").append(strSpeech).append(") ");
@@ -296,7 +313,7 @@ public final class Definition
     
     // Build the XML string.  The format will be:
     //   <w><v>word</v><p>part-of-speech</p><d>definition</d></w>
-    buf.append("<w><v>").append(strWord).append("</v><p>").append(strSpeech)
+    buf.append("<w><v>").append(strWord).append("</v><p>").append(getSpeech())
        .append("</p><d>").append(strDef).append("</d></w>");
     
     // Return the buffer as a string
@@ -322,6 +339,7 @@ public final class Definition
     //   word@part-of-speech@definition
     buf.append(strWord).append("@");
     
+    final String strSpeech = getSpeech();
     if (strSpeech.length() < 1)
     {
       buf.append(" ");
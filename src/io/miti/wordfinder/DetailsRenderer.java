@@ -0,0 +1,342 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import io.miti.wordfinder.metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Style;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Builds the styled documents shown in the details pane.  Each
+ * document is built on its own, before it's put in the pane,
+ * so the pane only sees one change, and the documents for the
+ * most recently shown entries are kept so moving back and
+ * forth through the results doesn't build them again.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class DetailsRenderer
+{
+  /**
+   * The number of documents to keep.
+   */
+  private static final int CACHE_SIZE = 64;
+  
+  /**
+   * The styles shared by all the documents.
+   */
+  private final StyleContext styles;
+  
+  /**
+   * The documents for the most recently shown entries, keyed
+   * by entry ID (or the complement of the term ID for a term).
+   */
+  private final Map<Integer, StyledDocument> cache;
+  
+  /**
+   * The dictionary the cached documents are from.
+   */
+  private DictionaryData cacheDict = null;
+  
+  
+  /**
+   * Initializes the renderer and its styles.
+   */
+  public DetailsRenderer()
+  {
+    super();
+    styles = new StyleContext();
+    addStyles(styles);
+    
+    // Drop the least recently shown document when the cache is full
+    cache = new LinkedHashMap<Integer, StyledDocument>(CACHE_SIZE * 2, 0.75f,
+                                                        true)
+    {
+      private static final long serialVersionUID = 1L;
+      
+      protected boolean removeEldestEntry(
+          final Map.Entry<Integer, StyledDocument> eldest)
+      {
+        return (size() > CACHE_SIZE);
+      }
+    };
+  }
+  
+  
+  /**
+   * Add the styles used by the documents.
+   * 
+   * @param context the style context to add the styles to
+   */
+  private static void addStyles(final StyleContext context)
+  {
+    // Set up the default style, used for the paragraphs
+    Style def = context.getStyle(StyleContext.DEFAULT_STYLE);
+    StyleConstants.setFontFamily(def, "SansSerif");
+    StyleConstants.setFontSize(def, 16);
+    StyleConstants.setLineSpacing(def, 2.0f);
+    
+    Style regular = context.addStyle("regular", def);
+    
+    Style s = context.addStyle("italic", regular);
+    StyleConstants.setItalic(s, true);
+    
+    s = context.addStyle("bold", regular);
+    StyleConstants.setBold(s, true);
+    
+    s = context.addStyle("small", regular);
+    StyleConstants.setFontSize(s, 10);
+    
+    s = context.addStyle("large", regular);
+    StyleConstants.setFontSize(s, 18);
+    
+    s = context.addStyle("code", regular);
+    StyleConstants.setFontFamily(s, "Monospaced");
+    StyleConstants.setFontSize(s, 12);
+  }
+  
+  
+  /**
+   * Returns a new, empty document.
+   * 
+   * @return an empty document
+   */
+  public StyledDocument getEmptyDocument()
+  {
+    return new DefaultStyledDocument(styles);
+  }
+  
+  
+  /**
+   * Returns the document for an entry in a dictionary, showing
+   * all the senses of its term.  If the entry stands for just
+   * itself (the results aren't grouped by term), its sense is
+   * marked.
+   * 
+   * @param dict the dictionary
+   * @param id the entry ID
+   * @param wholeTerm whether the entry stands for all the senses of its term
+   * @return the document
+   */
+  public StyledDocument getDocument(final DictionaryData dict,
+                                    final int id,
+                                    final boolean wholeTerm)
+  {
+    // The cached documents are only good for one dictionary
+    if (dict != cacheDict)
+    {
+      cache.clear();
+      cacheDict = dict;
+    }
+    
+    // A document for a whole term is shared by all its entries
+    final int termId = dict.getTermId(id);
+    final Integer key = Integer.valueOf(wholeTerm ? ~termId : id);
+    StyledDocument doc = cache.get(key);
+    Metrics.getInstance().recordCache("details", (doc != null));
+    if (doc == null)
+    {
+      doc = buildDocument(dict.get(id), dict.getSenses(termId), wholeTerm);
+      cache.put(key, doc);
+    }
+    
+    return doc;
+  }
+  
+  
+  /**
+   * Returns the document for an entry in a dictionary, as in
+   * the other getDocument(), followed by the trace of the search
+   * that found it.  Since the trace changes with each search,
+   * the document isn't cached.
+   * 
+   * @param dict the dictionary
+   * @param id the entry ID
+   * @param wholeTerm whether the entry stands for all the senses of its term
+   * @param trace the trace of the search (can be null)
+   * @return the document
+   */
+  public StyledDocument getDocument(final DictionaryData dict,
+                                    final int id,
+                                    final boolean wholeTerm,
+                                    final QueryTrace trace)
+  {
+    if (trace == null)
+    {
+      return getDocument(dict, id, wholeTerm);
+    }
+    
+    final StyledDocument doc = buildDocument(dict.get(id),
+        dict.getSenses(dict.getTermId(id)), wholeTerm);
+    addTrace(doc, trace);
+    return doc;
+  }
+  
+  
+  /**
+   * Returns a new document for an entry that isn't in the
+   * dictionary, followed by the trace of the search that found it.
+   * 
+   * @param def the entry
+   * @param trace the trace of the search (can be null)
+   * @return the document
+   */
+  public StyledDocument getDocument(final Definition def,
+                                    final QueryTrace trace)
+  {
+    final StyledDocument doc = buildDocument(def, null, true);
+    addTrace(doc, trace);
+    return doc;
+  }
+  
+  
+  /**
+   * Returns a new document with just the trace of a search,
+   * for a search with no results.
+   * 
+   * @param trace the trace of the search (can be null)
+   * @return the document
+   */
+  public StyledDocument getDocument(final QueryTrace trace)
+  {
+    final StyledDocument doc = getEmptyDocument();
+    addTrace(doc, trace);
+    return doc;
+  }
+  
+  
+  /**
+   * Add the trace of a search to the end of a document.
+   * 
+   * @param doc the document
+   * @param trace the trace of the search (can be null)
+   */
+  private static void addTrace(final StyledDocument doc,
+                               final QueryTrace trace)
+  {
+    if (trace == null)
+    {
+      return;
+    }
+    
+    try
+    {
+      if (doc.getLength() > 0)
+      {
+        doc.insertString(doc.getLength(), "\n\n", doc.getStyle("regular"));
+      }
+      
+      doc.insertString(doc.getLength(), "Search trace\n", doc.getStyle("bold"));
+      doc.insertString(doc.getLength(), trace.toString(), doc.getStyle("code"));
+    }
+    catch (BadLocationException e)
+    {
+      // Can't happen, since text is only added at the end
+      e.printStackTrace();
+    }
+  }
+  
+  
+  /**
+   * Returns a new document for an entry that isn't in the
+   * dictionary.
+   * 
+   * @param def the entry
+   * @return the document
+   */
+  public StyledDocument getDocument(final Definition def)
+  {
+    return buildDocument(def, null, true);
+  }
+  
+  
+  /**
+   * Build the document for an entry.
+   * 
+   * @param def the entry
+   * @param senses all the senses of the entry's term, or null
+   * @param wholeTerm whether the entry stands for all the senses of its term
+   * @return the document
+   */
+  private StyledDocument buildDocument(final Definition def,
+                                       final List<Definition> senses,
+                                       final boolean wholeTerm)
+  {
+    StyledDocument doc = new DefaultStyledDocument(styles);
+    final Style regular = doc.getStyle("regular");
+    final Style italic = doc.getStyle("italic");
+    final Style bold = doc.getStyle("bold");
+    
+    try
+    {
+      doc.insertString(doc.getLength(), def.getWord(), bold);
+      if ((senses == null) || (senses.size() < 2))
+      {
+        // Show the one sense on the same line
+        doc.insertString(doc.getLength(), " (", regular);
+        doc.insertString(doc.getLength(), def.getAbbreviatedPartOfSpeech(),
+                         italic);
+        doc.insertString(doc.getLength(), ") - " + def.getDef(), regular);
+        return doc;
+      }
+      
+      // Number each sense, marking the entry's own sense
+      int num = 0;
+      for (Definition sense : senses)
+      {
+        ++num;
+        final boolean mark = ((!wholeTerm) && (sense == def));
+        doc.insertString(doc.getLength(), "\n", regular);
+        doc.insertString(doc.getLength(), num + ". (",
+                         (mark ? bold : regular));
+        doc.insertString(doc.getLength(), sense.getAbbreviatedPartOfSpeech(),
+                         italic);
+        doc.insertString(doc.getLength(), ") - " + sense.getDef(),
+                         (mark ? bold : regular));
+      }
+    }
+    catch (BadLocationException e)
+    {
+      // Can't happen, since text is only added at the end
+      e.printStackTrace();
+    }
+    
+    return doc;
+  }
+}
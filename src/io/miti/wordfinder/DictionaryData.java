@@ -0,0 +1,792 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import io.miti.wordfinder.filter.TermBlock;
+import io.miti.wordfinder.index.AnagramIndex;
+import io.miti.wordfinder.index.CompletionTrie;
+import io.miti.wordfinder.index.DefinitionIndex;
+import io.miti.wordfinder.index.FuzzyIndex;
+import io.miti.wordfinder.index.IntList;
+import io.miti.wordfinder.index.LengthIndex;
+import io.miti.wordfinder.index.LetterIndex;
+import io.miti.wordfinder.index.LetterPatternIndex;
+import io.miti.wordfinder.index.NGramIndex;
+import io.miti.wordfinder.index.PatternIndex;
+import io.miti.wordfinder.index.SpeechIndex;
+import io.miti.wordfinder.index.TermDawg;
+import io.miti.wordfinder.index.TermOrder;
+import io.miti.wordfinder.metrics.IndexBuildEvent;
+import io.miti.wordfinder.metrics.LoadEvent;
+import io.miti.wordfinder.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The dictionary data, read once from the data file and held
+ * in memory.  Each entry is identified by its position in the
+ * file (its entry ID).  The same word can have several entries
+ * (one per sense), so each distinct word is also given a term
+ * ID when the data is loaded.  The indexes over the entries are
+ * built the first time they're needed.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class DictionaryData
+{
+  /**
+   * The name of the data file embedded in the jar file.
+   */
+  public static final String DEFAULT_RESOURCE = "/dictionary.sml";
+  
+  /**
+   * The number of part-of-speech codes (they fit in a byte).
+   */
+  public static final int SPEECH_CODES = 256;
+  
+  /**
+   * The code shared by every part of speech seen after the
+   * others have used up their codes.
+   */
+  public static final int OTHER_SPEECH = SPEECH_CODES - 1;
+  
+  /**
+   * The dictionary loaded from the jar file.
+   */
+  private static DictionaryData instance = null;
+  
+  /**
+   * The entries, indexed by entry ID.
+   */
+  private final List<Definition> entries;
+  
+  /**
+   * The distinct words, indexed by term ID (in order of
+   * first appearance).
+   */
+  private final String[] terms;
+  
+  /**
+   * The term ID of each entry, indexed by entry ID.
+   */
+  private final int[] entryTerm;
+  
+  /**
+   * The entry ID of the first entry for each term.
+   */
+  private final int[] termFirstEntry;
+  
+  /**
+   * The number of entries (senses) for each term.
+   */
+  private final int[] termSenses;
+  
+  /**
+   * The entry IDs grouped by term, in entry order.  The
+   * entries for a term start at termEntryStart[termId].
+   */
+  private final int[] termEntries;
+  
+  /**
+   * The start of each term's entries in termEntries (one
+   * longer than the number of terms).
+   */
+  private final int[] termEntryStart;
+  
+  /**
+   * The part-of-speech code of each entry, indexed by entry ID.
+   */
+  private final byte[] entrySpeech;
+  
+  /**
+   * The position of each distinct part of speech, in order of
+   * first appearance.  The position is its code, up to
+   * OTHER_SPEECH.
+   */
+  private final HashMap<String, Integer> speechCodes;
+  
+  /**
+   * The number of distinct parts of speech.
+   */
+  private final int speechCount;
+  
+  /**
+   * The index over the definitions.
+   */
+  private DefinitionIndex defIndex = null;
+  
+  /**
+   * The index used for ranked fuzzy searches.
+   */
+  private FuzzyIndex fuzzyIndex = null;
+  
+  /**
+   * The index used for "words from these letters" searches.
+   */
+  private LetterIndex letterIndex = null;
+  
+  /**
+   * The index used for multi-word anagram searches.
+   */
+  private AnagramIndex anagramIndex = null;
+  
+  /**
+   * The index used for fixed-length (crossword) patterns.
+   */
+  private PatternIndex patternIndex = null;
+  
+  /**
+   * The index used for letter pattern (cryptogram) searches.
+   */
+  private LetterPatternIndex letterPatternIndex = null;
+  
+  /**
+   * The trie used to complete partially typed words.
+   */
+  private CompletionTrie completionTrie = null;
+  
+  /**
+   * The automaton used for prefix and wildcard searches.
+   */
+  private TermDawg termDawg = null;
+  
+  /**
+   * The trigram index used to prefilter regular expressions.
+   */
+  private NGramIndex ngramIndex = null;
+  
+  /**
+   * The terms, partitioned by length.
+   */
+  private LengthIndex lengthIndex = null;
+  
+  /**
+   * The terms, with their characters packed in one array.
+   */
+  private TermBlock termBlock = null;
+  
+  /**
+   * The entries and terms for each part of speech.
+   */
+  private SpeechIndex speechIndex = null;
+  
+  /**
+   * The position of each term in alphabetical order.
+   */
+  private TermOrder termOrder = null;
+  
+  
+  /**
+   * Initializes the dictionary with its entries.
+   * 
+   * @param list the list of entries
+   */
+  private DictionaryData(final List<Definition> list)
+  {
+    super();
+    entries = list;
+    
+    // Assign a term ID to each distinct word
+    final int size = list.size();
+    HashMap<String, Integer> ids = new HashMap<String, Integer>(size);
+    List<String> words = new ArrayList<String>(size);
+    IntList first = new IntList(size);
+    entryTerm = new int[size];
+    entrySpeech = new byte[size];
+    speechCodes = new HashMap<String, Integer>(16);
+    List<String> names = new ArrayList<String>(16);
+    for (int i = 0; i < size; ++i)
+    {
+      final Definition def = list.get(i);
+      final String word = def.getWord();
+      Integer pos = speechCodes.get(def.getSpeech());
+      if (pos == null)
+      {
+        pos = Integer.valueOf(names.size());
+        speechCodes.put(def.getSpeech(), pos);
+        names.add(def.getSpeech());
+      }
+      
+      final String speech = names.get(pos.intValue());
+      Integer id = ids.get(word);
+      if (id == null)
+      {
+        id = Integer.valueOf(words.size());
+        ids.put(word, id);
+        words.add(word);
+        first.add(i);
+      }
+      
+      // Share one copy of the word between all its senses, and
+      // one copy of each part of speech
+      final String shared = words.get(id.intValue());
+      if ((word != shared) || (speech != def.getSpeech()))
+      {
+        list.set(i, new Definition(shared, speech, def.getDef()));
+      }
+      
+      entryTerm[i] = id.intValue();
+      
+      // Parts of speech past the last free code share one code
+      entrySpeech[i] = (byte) Math.min(pos.intValue(), OTHER_SPEECH);
+    }
+    
+    speechCount = names.size();
+    terms = words.toArray(new String[words.size()]);
+    termFirstEntry = first.toArray();
+    termSenses = new int[terms.length];
+    for (int i = 0; i < size; ++i)
+    {
+      ++termSenses[entryTerm[i]];
+    }
+    
+    // Group the entry IDs by term
+    termEntryStart = new int[terms.length + 1];
+    for (int t = 0; t < terms.length; ++t)
+    {
+      termEntryStart[t + 1] = termEntryStart[t] + termSenses[t];
+    }
+    
+    termEntries = new int[size];
+    int[] next = termEntryStart.clone();
+    for (int i = 0; i < size; ++i)
+    {
+      termEntries[next[entryTerm[i]]++] = i;
+    }
+  }
+  
+  
+  /**
+   * Returns the dictionary embedded in the jar file, loading
+   * it on the first call.
+   * 
+   * @return the dictionary
+   * @throws IOException if the data file can't be read
+   */
+  public static synchronized DictionaryData getInstance() throws IOException
+  {
+    if (instance == null)
+    {
+      InputStream is = DictionaryData.class.getResourceAsStream(DEFAULT_RESOURCE);
+      if (is == null)
+      {
+        throw new IOException("Unable to read the dictionary file (" +
+                              DEFAULT_RESOURCE + ")");
+      }
+      
+      instance = load(is);
+    }
+    
+    return instance;
+  }
+  
+  
+  /**
+   * Read a dictionary from a stream of lines in "SML" format
+   * (word@part-of-speech@definition), with DictionaryParser.
+   * Lines that can't be parsed are skipped.  The stream is closed.
+   * 
+   * @param is the input stream
+   * @return the dictionary
+   * @throws IOException if the stream can't be read
+   */
+  public static DictionaryData load(final InputStream is) throws IOException
+  {
+    final long start = System.currentTimeMillis();
+    LoadEvent event = new LoadEvent();
+    event.begin();
+    List<Definition> list = null;
+    try
+    {
+      // Parse the lines straight from the bytes of the file
+      list = new DictionaryParser().parse(is);
+    }
+    finally
+    {
+      is.close();
+    }
+    
+    DictionaryData dict = new DictionaryData(list);
+    Metrics.getInstance().setLoadTime(System.currentTimeMillis() - start,
+                                      dict.size());
+    event.setEntries(dict.size());
+    event.commit();
+    return dict;
+  }
+  
+  
+  /**
+   * Returns the number of entries.
+   * 
+   * @return the number of entries
+   */
+  public int size()
+  {
+    return entries.size();
+  }
+  
+  
+  /**
+   * Returns the entry with the specified ID.
+   * 
+   * @param id the entry ID
+   * @return the entry
+   */
+  public Definition get(final int id)
+  {
+    return entries.get(id);
+  }
+  
+  
+  /**
+   * Returns the number of distinct terms.
+   * 
+   * @return the number of terms
+   */
+  public int getTermCount()
+  {
+    return terms.length;
+  }
+  
+  
+  /**
+   * Returns the word for a term ID.
+   * 
+   * @param termId the term ID
+   * @return the word
+   */
+  public String getTerm(final int termId)
+  {
+    return terms[termId];
+  }
+  
+  
+  /**
+   * Returns the term ID of an entry.
+   * 
+   * @param id the entry ID
+   * @return the term ID
+   */
+  public int getTermId(final int id)
+  {
+    return entryTerm[id];
+  }
+  
+  
+  /**
+   * Returns the ID of the first entry for a term.
+   * 
+   * @param termId the term ID
+   * @return the first entry ID for the term
+   */
+  public int getFirstEntry(final int termId)
+  {
+    return termFirstEntry[termId];
+  }
+  
+  
+  /**
+   * Returns the number of entries (senses) for a term.
+   * 
+   * @param termId the term ID
+   * @return the number of senses
+   */
+  public int getSenseCount(final int termId)
+  {
+    return termSenses[termId];
+  }
+  
+  
+  /**
+   * Returns the part-of-speech code of an entry.
+   * 
+   * @param id the entry ID
+   * @return the code (0 to OTHER_SPEECH)
+   */
+  public int getSpeechCode(final int id)
+  {
+    return (entrySpeech[id] & 0xFF);
+  }
+  
+  
+  /**
+   * Returns the code for a part of speech.  The parts of speech
+   * that share OTHER_SPEECH have to be checked by name.
+   * 
+   * @param speech the part of speech
+   * @return the code, or -1 if no entry has the part of speech
+   */
+  public int findSpeechCode(final String speech)
+  {
+    final Integer pos = speechCodes.get(speech);
+    return ((pos == null) ? -1 : Math.min(pos.intValue(), OTHER_SPEECH));
+  }
+  
+  
+  /**
+   * Returns the number of part-of-speech codes in use.
+   * 
+   * @return the number of codes
+   */
+  public int getSpeechCodeCount()
+  {
+    return Math.min(speechCount, SPEECH_CODES);
+  }
+  
+  
+  /**
+   * Returns the ID of one of the entries (senses) for a term,
+   * counting in entry order.
+   * 
+   * @param termId the term ID
+   * @param index the number of the sense, from 0 to getSenseCount() - 1
+   * @return the entry ID
+   */
+  public int getTermEntry(final int termId, final int index)
+  {
+    return termEntries[termEntryStart[termId] + index];
+  }
+  
+  
+  /**
+   * Returns all the entries (senses) for a term, in entry order.
+   * 
+   * @param termId the term ID
+   * @return the entries for the term
+   */
+  public List<Definition> getSenses(final int termId)
+  {
+    // The entry IDs for each term were saved in entry order
+    final int start = termEntryStart[termId];
+    final int num = termSenses[termId];
+    List<Definition> list = new ArrayList<Definition>(num);
+    for (int i = 0; i < num; ++i)
+    {
+      list.add(entries.get(termEntries[start + i]));
+    }
+    
+    return list;
+  }
+  
+  
+  /**
+   * Returns the IDs of all the entries for a set of terms,
+   * in entry order.
+   * 
+   * @param termIds the term IDs
+   * @return the entry IDs, sorted
+   */
+  public int[] getEntries(final int[] termIds)
+  {
+    int count = 0;
+    for (int i = 0; i < termIds.length; ++i)
+    {
+      count += termSenses[termIds[i]];
+    }
+    
+    int[] ids = new int[count];
+    int pos = 0;
+    for (int i = 0; i < termIds.length; ++i)
+    {
+      final int start = termEntryStart[termIds[i]];
+      final int num = termSenses[termIds[i]];
+      System.arraycopy(termEntries, start, ids, pos, num);
+      pos += num;
+    }
+    
+    java.util.Arrays.sort(ids);
+    return ids;
+  }
+  
+  
+  /**
+   * Returns the index over the definitions, building it
+   * on the first call.
+   * 
+   * @return the definition index
+   */
+  public synchronized DefinitionIndex getDefinitionIndex()
+  {
+    Metrics.getInstance().recordCache("index", (defIndex != null));
+    if (defIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("DefinitionIndex");
+      defIndex = new DefinitionIndex(this);
+      event.commit();
+    }
+    
+    return defIndex;
+  }
+  
+  
+  /**
+   * Returns the index used for ranked fuzzy searches,
+   * building it on the first call.
+   * 
+   * @return the fuzzy index
+   */
+  public synchronized FuzzyIndex getFuzzyIndex()
+  {
+    Metrics.getInstance().recordCache("index", (fuzzyIndex != null));
+    if (fuzzyIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("FuzzyIndex");
+      fuzzyIndex = new FuzzyIndex(this);
+      event.commit();
+    }
+    
+    return fuzzyIndex;
+  }
+  
+  
+  /**
+   * Returns the index used for "words from these letters"
+   * searches, building it on the first call.
+   * 
+   * @return the letter index
+   */
+  public synchronized LetterIndex getLetterIndex()
+  {
+    Metrics.getInstance().recordCache("index", (letterIndex != null));
+    if (letterIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("LetterIndex");
+      letterIndex = new LetterIndex(this);
+      event.commit();
+    }
+    
+    return letterIndex;
+  }
+  
+  
+  /**
+   * Returns the index used for multi-word anagram searches,
+   * building it on the first call.
+   * 
+   * @return the anagram index
+   */
+  public synchronized AnagramIndex getAnagramIndex()
+  {
+    Metrics.getInstance().recordCache("index", (anagramIndex != null));
+    if (anagramIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("AnagramIndex");
+      anagramIndex = new AnagramIndex(this);
+      event.commit();
+    }
+    
+    return anagramIndex;
+  }
+  
+  
+  /**
+   * Returns the index used for fixed-length (crossword)
+   * patterns, building it on the first call.
+   * 
+   * @return the pattern index
+   */
+  public synchronized PatternIndex getPatternIndex()
+  {
+    Metrics.getInstance().recordCache("index", (patternIndex != null));
+    if (patternIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("PatternIndex");
+      patternIndex = new PatternIndex(this);
+      event.commit();
+    }
+    
+    return patternIndex;
+  }
+  
+  
+  /**
+   * Returns the index used for letter pattern (cryptogram)
+   * searches, building it on the first call.
+   * 
+   * @return the letter pattern index
+   */
+  public synchronized LetterPatternIndex getLetterPatternIndex()
+  {
+    Metrics.getInstance().recordCache("index", (letterPatternIndex != null));
+    if (letterPatternIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("LetterPatternIndex");
+      letterPatternIndex = new LetterPatternIndex(this);
+      event.commit();
+    }
+    
+    return letterPatternIndex;
+  }
+  
+  
+  /**
+   * Returns the trie used to complete partially typed words,
+   * building it on the first call.
+   * 
+   * @return the completion trie
+   */
+  public synchronized CompletionTrie getCompletionTrie()
+  {
+    Metrics.getInstance().recordCache("index", (completionTrie != null));
+    if (completionTrie == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("CompletionTrie");
+      completionTrie = new CompletionTrie(this);
+      event.commit();
+    }
+    
+    return completionTrie;
+  }
+  
+  
+  /**
+   * Returns the automaton used for prefix and wildcard
+   * searches, building it on the first call.
+   * 
+   * @return the term automaton
+   */
+  public synchronized TermDawg getTermDawg()
+  {
+    Metrics.getInstance().recordCache("index", (termDawg != null));
+    if (termDawg == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("TermDawg");
+      termDawg = new TermDawg(this);
+      event.commit();
+    }
+    
+    return termDawg;
+  }
+  
+  
+  /**
+   * Returns the trigram index used to prefilter regular
+   * expressions, building it on the first call.
+   * 
+   * @return the trigram index
+   */
+  public synchronized NGramIndex getNGramIndex()
+  {
+    Metrics.getInstance().recordCache("index", (ngramIndex != null));
+    if (ngramIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("NGramIndex");
+      ngramIndex = new NGramIndex(this);
+      event.commit();
+    }
+    
+    return ngramIndex;
+  }
+  
+  
+  /**
+   * Returns the terms partitioned by length, building the
+   * index on the first call.
+   * 
+   * @return the length index
+   */
+  public synchronized LengthIndex getLengthIndex()
+  {
+    Metrics.getInstance().recordCache("index", (lengthIndex != null));
+    if (lengthIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("LengthIndex");
+      lengthIndex = new LengthIndex(this);
+      event.commit();
+    }
+    
+    return lengthIndex;
+  }
+  
+  
+  /**
+   * Returns the terms with their characters packed in one
+   * array, for checking blocks of terms against a filter,
+   * building it on the first call.
+   * 
+   * @return the packed terms
+   */
+  public synchronized TermBlock getTermBlock()
+  {
+    Metrics.getInstance().recordCache("index", (termBlock != null));
+    if (termBlock == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("TermBlock");
+      termBlock = new TermBlock(terms);
+      event.commit();
+    }
+    
+    return termBlock;
+  }
+  
+  
+  /**
+   * Returns the entries and terms for each part of speech,
+   * building the index on the first call.
+   * 
+   * @return the part-of-speech index
+   */
+  public synchronized SpeechIndex getSpeechIndex()
+  {
+    Metrics.getInstance().recordCache("index", (speechIndex != null));
+    if (speechIndex == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("SpeechIndex");
+      speechIndex = new SpeechIndex(this);
+      event.commit();
+    }
+    
+    return speechIndex;
+  }
+  
+  
+  /**
+   * Returns the position of each term in alphabetical order,
+   * for sorting results, building the index on the first call.
+   * 
+   * @return the term order
+   */
+  public synchronized TermOrder getTermOrder()
+  {
+    Metrics.getInstance().recordCache("index", (termOrder != null));
+    if (termOrder == null)
+    {
+      IndexBuildEvent event = new IndexBuildEvent("TermOrder");
+      termOrder = new TermOrder(this);
+      event.commit();
+    }
+    
+    return termOrder;
+  }
+}
@@ -0,0 +1,580 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the entries of a dictionary in "SML" format
+ * (word@part-of-speech@definition, one entry per line) straight
+ * from bytes, in large chunks.  Each chunk is scanned once,
+ * eight bytes at a time where none of them is a separator or
+ * line end, saving the offsets of the line ends and separators
+ * in arrays of ints, and then the only objects made for a line are the
+ * strings for the word and definition and the entry itself:
+ * the part of speech is looked up by its bytes, and the word
+ * of the previous line is reused when the next line is another
+ * sense of the same word.  The lines are checked the same way
+ * Definition.buildFromLine() checks them.
+ * 
+ * The separators and line ends are found by byte, so the
+ * character set must be one where '@', '\n' and '\r' are single
+ * bytes that never occur inside another character (such as
+ * UTF-8 or ISO-8859-1).
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class DictionaryParser
+{
+  /**
+   * The number of bytes read at a time.
+   */
+  private static final int CHUNK_SIZE = 1 << 20;
+  
+  /**
+   * The character set for ASCII text (decoding it is a copy).
+   */
+  private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+  
+  /**
+   * Reads eight bytes at a time from a byte array.
+   */
+  private static final VarHandle LONGS =
+    MethodHandles.byteArrayViewVarHandle(long[].class,
+                                         ByteOrder.LITTLE_ENDIAN);
+  
+  /**
+   * The low bit of each byte in a long.
+   */
+  private static final long LOW_BITS = 0x0101010101010101L;
+  
+  /**
+   * The high bit of each byte in a long.
+   */
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  
+  /**
+   * The separator, in every byte of a long.
+   */
+  private static final long SEPARATORS = LOW_BITS * '@';
+  
+  /**
+   * The line feed, in every byte of a long.
+   */
+  private static final long LINE_FEEDS = LOW_BITS * '\n';
+  
+  /**
+   * The carriage return, in every byte of a long.
+   */
+  private static final long RETURNS = LOW_BITS * '\r';
+  
+  /**
+   * The character set of the input.
+   */
+  private final Charset charset;
+  
+  /**
+   * The offset of the start of each line in the chunk.
+   */
+  private int[] starts = new int[1024];
+  
+  /**
+   * The offset of the first separator in each line, or -1.
+   */
+  private int[] firstSeps = new int[1024];
+  
+  /**
+   * The offset of the second separator in each line, or -1.
+   */
+  private int[] secondSeps = new int[1024];
+  
+  /**
+   * The offset of the end of each line in the chunk.
+   */
+  private int[] ends = new int[1024];
+  
+  /**
+   * Whether each line in the chunk is plain ASCII.
+   */
+  private boolean[] plain = new boolean[1024];
+  
+  /**
+   * The bytes of each part of speech seen so far.
+   */
+  private final List<byte[]> speechBytes = new ArrayList<byte[]>(8);
+  
+  /**
+   * Each part of speech in speechBytes, as a string.
+   */
+  private final List<String> speeches = new ArrayList<String>(8);
+  
+  /**
+   * The bytes of the previous word.
+   */
+  private byte[] prevBytes = new byte[64];
+  
+  /**
+   * The number of bytes in the previous word.
+   */
+  private int prevLength = -1;
+  
+  /**
+   * The previous word.
+   */
+  private String prevWord = null;
+  
+  
+  /**
+   * Initializes a parser for text in the platform's default
+   * character set (as an InputStreamReader would read it).
+   */
+  public DictionaryParser()
+  {
+    this(Charset.defaultCharset());
+  }
+  
+  
+  /**
+   * Initializes a parser for text in a character set.
+   * 
+   * @param cs the character set of the input
+   */
+  public DictionaryParser(final Charset cs)
+  {
+    super();
+    charset = cs;
+  }
+  
+  
+  /**
+   * Read the entries from a stream.  Lines that can't be
+   * parsed are skipped.  The stream is not closed.
+   * 
+   * @param is the input stream
+   * @return the entries
+   * @throws IOException if the stream can't be read
+   */
+  public List<Definition> parse(final InputStream is) throws IOException
+  {
+    List<Definition> list = new ArrayList<Definition>(200000);
+    byte[] buf = new byte[CHUNK_SIZE];
+    int end = 0;
+    while (true)
+    {
+      final int count = is.read(buf, end, buf.length - end);
+      if (count < 0)
+      {
+        // Parse whatever follows the last line end
+        parseChunk(buf, end, true, list);
+        break;
+      }
+      
+      end += count;
+      if (end < buf.length)
+      {
+        continue;
+      }
+      
+      // Parse the complete lines, and move the rest to the start
+      final int used = parseChunk(buf, end, false, list);
+      end -= used;
+      System.arraycopy(buf, used, buf, 0, end);
+      if (end == buf.length)
+      {
+        // The line is longer than the buffer
+        byte[] bigger = new byte[buf.length * 2];
+        System.arraycopy(buf, 0, bigger, 0, end);
+        buf = bigger;
+      }
+    }
+    
+    return list;
+  }
+  
+  
+  /**
+   * Read the entries from a buffer, such as a mapped file,
+   * from its position to its limit.  Lines that can't be parsed
+   * are skipped.  The buffer's position is moved to its limit.
+   * 
+   * @param data the buffer
+   * @return the entries
+   */
+  public List<Definition> parse(final ByteBuffer data)
+  {
+    List<Definition> list = new ArrayList<Definition>(200000);
+    if (data.hasArray())
+    {
+      // Parse the backing array in place
+      final int offset = data.arrayOffset() + data.position();
+      final int length = data.remaining();
+      byte[] buf = data.array();
+      if (offset == 0)
+      {
+        parseChunk(buf, length, true, list);
+      }
+      else
+      {
+        byte[] copy = new byte[length];
+        System.arraycopy(buf, offset, copy, 0, length);
+        parseChunk(copy, length, true, list);
+      }
+      
+      data.position(data.limit());
+      return list;
+    }
+    
+    // Copy a chunk at a time out of a direct buffer
+    byte[] buf = new byte[Math.min(CHUNK_SIZE, Math.max(data.remaining(), 1))];
+    int end = 0;
+    while (true)
+    {
+      final int count = Math.min(buf.length - end, data.remaining());
+      data.get(buf, end, count);
+      end += count;
+      if (!data.hasRemaining())
+      {
+        parseChunk(buf, end, true, list);
+        break;
+      }
+      
+      final int used = parseChunk(buf, end, false, list);
+      end -= used;
+      System.arraycopy(buf, used, buf, 0, end);
+      if (end == buf.length)
+      {
+        byte[] bigger = new byte[buf.length * 2];
+        System.arraycopy(buf, 0, bigger, 0, end);
+        buf = bigger;
+      }
+    }
+    
+    return list;
+  }
+  
+  
+  /**
+   * Parse the complete lines at the start of a chunk.
+   * 
+   * @param buf the chunk
+   * @param end the number of bytes in the chunk
+   * @param last whether this is the last chunk, so the bytes
+   *             after the last line end are a line too
+   * @param list the list to add the entries to
+   * @return the number of bytes parsed
+   */
+  private int parseChunk(final byte[] buf, final int end,
+                         final boolean last, final List<Definition> list)
+  {
+    // Find the lines and their separators
+    int lines = 0;
+    int start = 0;
+    int first = -1;
+    int second = -1;
+    long highBits = 0L;
+    int i = 0;
+    while (i < end)
+    {
+      if (i + 8 <= end)
+      {
+        // Skip to the first separator or line end in the next
+        // eight bytes, if there is one
+        final long word = (long) LONGS.get(buf, i);
+        final long found = findByte(word, SEPARATORS) |
+                           findByte(word, LINE_FEEDS) |
+                           findByte(word, RETURNS);
+        if (found == 0L)
+        {
+          highBits |= word;
+          i += 8;
+          continue;
+        }
+        
+        final int skip = (Long.numberOfTrailingZeros(found) >>> 3);
+        highBits |= (word & ((1L << (skip << 3)) - 1L));
+        i += skip;
+      }
+      
+      final byte b = buf[i];
+      highBits |= b;
+      if (b == '@')
+      {
+        if (first < 0)
+        {
+          first = i;
+        }
+        else if (second < 0)
+        {
+          second = i;
+        }
+      }
+      else if ((b == '\n') || (b == '\r'))
+      {
+        if (i > start)
+        {
+          ensureCapacity(lines + 1);
+          starts[lines] = start;
+          firstSeps[lines] = first;
+          secondSeps[lines] = second;
+          ends[lines] = i;
+          plain[lines] = ((highBits & HIGH_BITS) == 0L);
+          ++lines;
+        }
+        
+        start = i + 1;
+        first = -1;
+        second = -1;
+        highBits = 0L;
+      }
+      
+      ++i;
+    }
+    
+    if ((last) && (end > start))
+    {
+      ensureCapacity(lines + 1);
+      starts[lines] = start;
+      firstSeps[lines] = first;
+      secondSeps[lines] = second;
+      ends[lines] = end;
+      plain[lines] = ((highBits & HIGH_BITS) == 0L);
+      ++lines;
+      start = end;
+    }
+    
+    // Build the entries
+    for (int n = 0; n < lines; ++n)
+    {
+      final Definition def = buildEntry(buf, starts[n], firstSeps[n],
+                                        secondSeps[n], ends[n], plain[n]);
+      if (def != null)
+      {
+        list.add(def);
+      }
+    }
+    
+    return start;
+  }
+  
+  
+  /**
+   * Make sure the arrays of offsets can hold a number of lines.
+   * 
+   * @param size the number of lines
+   */
+  private void ensureCapacity(final int size)
+  {
+    if (size <= starts.length)
+    {
+      return;
+    }
+    
+    final int capacity = Math.max(size, starts.length * 2);
+    starts = copyOf(starts, capacity);
+    firstSeps = copyOf(firstSeps, capacity);
+    secondSeps = copyOf(secondSeps, capacity);
+    ends = copyOf(ends, capacity);
+    boolean[] flags = new boolean[capacity];
+    System.arraycopy(plain, 0, flags, 0, plain.length);
+    plain = flags;
+  }
+  
+  
+  /**
+   * Returns a long with the high bit set in the lowest byte of
+   * a word that equals the byte repeated in the pattern, and
+   * possibly in higher bytes, or zero if no byte is equal.
+   * 
+   * @param word eight bytes of input
+   * @param pattern the byte to look for, in every byte
+   * @return the high bits marking the matches
+   */
+  private static long findByte(final long word, final long pattern)
+  {
+    final long x = word ^ pattern;
+    return ((x - LOW_BITS) & ~x & HIGH_BITS);
+  }
+  
+  
+  /**
+   * Returns a longer copy of an array.
+   * 
+   * @param array the array
+   * @param capacity the length of the copy
+   * @return the copy
+   */
+  private static int[] copyOf(final int[] array, final int capacity)
+  {
+    int[] copy = new int[capacity];
+    System.arraycopy(array, 0, copy, 0, array.length);
+    return copy;
+  }
+  
+  
+  /**
+   * Build the entry for a line, if it's valid.
+   * 
+   * @param buf the bytes
+   * @param start the offset of the start of the line
+   * @param first the offset of the first separator, or -1
+   * @param second the offset of the second separator, or -1
+   * @param end the offset of the end of the line
+   * @param ascii whether the line is plain ASCII
+   * @return the entry, or null if the line is not valid
+   */
+  private Definition buildEntry(final byte[] buf, final int start,
+                                final int first, final int second,
+                                final int end, final boolean ascii)
+  {
+    // There must be a word, and something after each separator
+    if ((first <= start) || (first >= (end - 1)) ||
+        (second < 0) || (second >= (end - 1)))
+    {
+      return null;
+    }
+    
+    final String word = getWord(buf, start, first - start, ascii);
+    final String speech = getSpeech(buf, first + 1, second - first - 1);
+    final String def = decode(buf, second + 1, end - second - 1, ascii);
+    return new Definition(word, speech, def);
+  }
+  
+  
+  /**
+   * Returns the word at an offset, reusing the previous word
+   * if it's the same.
+   * 
+   * @param buf the bytes
+   * @param offset the offset of the word
+   * @param length the number of bytes in the word
+   * @param ascii whether the word is plain ASCII
+   * @return the word
+   */
+  private String getWord(final byte[] buf, final int offset,
+                         final int length, final boolean ascii)
+  {
+    if ((length == prevLength) && (equals(buf, offset, prevBytes, length)))
+    {
+      return prevWord;
+    }
+    
+    if (length > prevBytes.length)
+    {
+      prevBytes = new byte[Math.max(length, prevBytes.length * 2)];
+    }
+    
+    System.arraycopy(buf, offset, prevBytes, 0, length);
+    prevLength = length;
+    prevWord = decode(buf, offset, length, ascii);
+    return prevWord;
+  }
+  
+  
+  /**
+   * Returns the part of speech at an offset, reusing the string
+   * made the first time it was seen.
+   * 
+   * @param buf the bytes
+   * @param offset the offset of the part of speech
+   * @param length the number of bytes in the part of speech
+   * @return the part of speech
+   */
+  private String getSpeech(final byte[] buf, final int offset,
+                           final int length)
+  {
+    final int count = speechBytes.size();
+    for (int i = 0; i < count; ++i)
+    {
+      final byte[] known = speechBytes.get(i);
+      if ((known.length == length) && (equals(buf, offset, known, length)))
+      {
+        return speeches.get(i);
+      }
+    }
+    
+    // Make the string the first time this part of speech is seen
+    byte[] bytes = new byte[length];
+    System.arraycopy(buf, offset, bytes, 0, length);
+    final String speech = new String(buf, offset, length, charset);
+    speechBytes.add(bytes);
+    speeches.add(speech);
+    return speech;
+  }
+  
+  
+  /**
+   * Returns whether two runs of bytes are the same.
+   * 
+   * @param buf the first array
+   * @param offset the offset of the first run
+   * @param other the second array (the run starts at zero)
+   * @param length the number of bytes to compare
+   * @return whether the bytes are the same
+   */
+  private static boolean equals(final byte[] buf, final int offset,
+                                final byte[] other, final int length)
+  {
+    for (int i = 0; i < length; ++i)
+    {
+      if (buf[offset + i] != other[i])
+      {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns the text for a run of bytes.  Plain ASCII, which
+   * most dictionaries are, is decoded as ISO-8859-1, which is
+   * a straight copy.
+   * 
+   * @param buf the bytes
+   * @param offset the offset of the text
+   * @param length the number of bytes in the text
+   * @param ascii whether the bytes are plain ASCII
+   * @return the text
+   */
+  private String decode(final byte[] buf, final int offset,
+                        final int length, final boolean ascii)
+  {
+    return new String(buf, offset, length, (ascii ? LATIN1 : charset));
+  }
+}
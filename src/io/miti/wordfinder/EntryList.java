@@ -0,0 +1,146 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of dictionary entries, stored as an array
+ * of entry IDs.  An entry is only looked up in the dictionary
+ * when it's asked for, so a list of every entry in the
+ * dictionary takes four bytes a row.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class EntryList extends AbstractList<Definition>
+  implements RandomAccess
+{
+  /**
+   * The dictionary the entries are in.
+   */
+  private final DictionaryData dict;
+  
+  /**
+   * The entry IDs.
+   */
+  private final int[] ids;
+  
+  /**
+   * The number of entry IDs in the list.
+   */
+  private final int size;
+  
+  
+  /**
+   * Initializes the list with the first entry IDs in an array.
+   * The array is not copied.
+   * 
+   * @param dictionary the dictionary the entries are in
+   * @param entryIds the entry IDs
+   * @param count the number of entry IDs to use
+   */
+  public EntryList(final DictionaryData dictionary,
+                   final int[] entryIds,
+                   final int count)
+  {
+    super();
+    dict = dictionary;
+    ids = entryIds;
+    size = count;
+  }
+  
+  
+  /**
+   * Initializes the list with an array of entry IDs.  The
+   * array is not copied.
+   * 
+   * @param dictionary the dictionary the entries are in
+   * @param entryIds the entry IDs
+   */
+  public EntryList(final DictionaryData dictionary, final int[] entryIds)
+  {
+    this(dictionary, entryIds, entryIds.length);
+  }
+  
+  
+  /**
+   * Returns the entry at a position in the list.
+   * 
+   * @param index the position in the list
+   * @return the entry
+   */
+  @Override
+  public Definition get(final int index)
+  {
+    return dict.get(getId(index));
+  }
+  
+  
+  /**
+   * Returns the ID of the entry at a position in the list.
+   * 
+   * @param index the position in the list
+   * @return the entry ID
+   */
+  public int getId(final int index)
+  {
+    if ((index < 0) || (index >= size))
+    {
+      throw new IndexOutOfBoundsException("Index: " + index +
+                                          ", Size: " + size);
+    }
+    
+    return ids[index];
+  }
+  
+  
+  /**
+   * Returns the number of entries in the list.
+   * 
+   * @return the number of entries
+   */
+  @Override
+  public int size()
+  {
+    return size;
+  }
+  
+  
+  /**
+   * Returns the dictionary the entries are in.
+   * 
+   * @return the dictionary
+   */
+  public DictionaryData getDictionary()
+  {
+    return dict;
+  }
+}
@@ -0,0 +1,483 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The execution trace of one search: the indexes that served
+ * it, and for each stage of the search, how many candidates
+ * went in and how many came out, and the time and memory it
+ * took.  The stages are contiguous, so each one covers the
+ * time since the previous one ended.  The memory is the bytes
+ * allocated by the searching thread, where the JVM can count
+ * them (-1 otherwise).
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class QueryTrace
+{
+  /**
+   * The JVM's thread bean, if it can count allocated bytes.
+   */
+  private static final com.sun.management.ThreadMXBean threads =
+    getThreadBean();
+  
+  /**
+   * The search mode.
+   */
+  private final String mode;
+  
+  /**
+   * The names of the indexes used, in the order they were used.
+   */
+  private final List<String> indexes = new ArrayList<String>(4);
+  
+  /**
+   * The stages of the search.
+   */
+  private final List<Stage> stages = new ArrayList<Stage>(4);
+  
+  /**
+   * The time the search started, in nanoseconds.
+   */
+  private final long startTime;
+  
+  /**
+   * The bytes allocated by the thread when the search started.
+   */
+  private final long startBytes;
+  
+  /**
+   * The time the last stage ended, in nanoseconds.
+   */
+  private long markTime;
+  
+  /**
+   * The bytes allocated by the thread when the last stage ended.
+   */
+  private long markBytes;
+  
+  /**
+   * The time taken by the whole search, in nanoseconds.
+   */
+  private long totalTime = -1L;
+  
+  /**
+   * The bytes allocated by the whole search.
+   */
+  private long totalBytes = -1L;
+  
+  /**
+   * The number of results, or -1 if the search failed.
+   */
+  private int results = -1;
+  
+  /**
+   * How deeply the searches using this trace are nested.
+   */
+  private int depth = 1;
+  
+  
+  /**
+   * One stage of a search.
+   */
+  public static final class Stage
+  {
+    /**
+     * The name of the stage.
+     */
+    private final String name;
+    
+    /**
+     * The number of candidates examined, or -1 if they
+     * weren't counted.
+     */
+    private final int examined;
+    
+    /**
+     * The number of candidates that passed.
+     */
+    private final int passed;
+    
+    /**
+     * The time taken, in nanoseconds.
+     */
+    private final long nanos;
+    
+    /**
+     * The bytes allocated, or -1 if unknown.
+     */
+    private final long bytes;
+    
+    
+    /**
+     * Initializes the stage.
+     * 
+     * @param sName the name of the stage
+     * @param nExamined the number of candidates examined, or -1
+     * @param nPassed the number of candidates that passed
+     * @param nNanos the time taken, in nanoseconds
+     * @param nBytes the bytes allocated, or -1 if unknown
+     */
+    private Stage(final String sName, final int nExamined,
+                  final int nPassed, final long nNanos, final long nBytes)
+    {
+      name = sName;
+      examined = nExamined;
+      passed = nPassed;
+      nanos = nNanos;
+      bytes = nBytes;
+    }
+    
+    
+    /**
+     * Returns the name of the stage.
+     * 
+     * @return the name of the stage
+     */
+    public String getName()
+    {
+      return name;
+    }
+    
+    
+    /**
+     * Returns the number of candidates examined.
+     * 
+     * @return the number of candidates examined, or -1 if they
+     *         weren't counted
+     */
+    public int getExamined()
+    {
+      return examined;
+    }
+    
+    
+    /**
+     * Returns the number of candidates that passed.
+     * 
+     * @return the number of candidates that passed
+     */
+    public int getPassed()
+    {
+      return passed;
+    }
+    
+    
+    /**
+     * Returns the time taken.
+     * 
+     * @return the time taken, in nanoseconds
+     */
+    public long getNanos()
+    {
+      return nanos;
+    }
+    
+    
+    /**
+     * Returns the bytes allocated.
+     * 
+     * @return the bytes allocated, or -1 if unknown
+     */
+    public long getBytes()
+    {
+      return bytes;
+    }
+  }
+  
+  
+  /**
+   * Start the trace of a search.
+   * 
+   * @param sMode the search mode
+   */
+  QueryTrace(final String sMode)
+  {
+    super();
+    mode = sMode;
+    startTime = System.nanoTime();
+    startBytes = getAllocatedBytes();
+    markTime = startTime;
+    markBytes = startBytes;
+  }
+  
+  
+  /**
+   * Returns the JVM's thread bean, if it can count the bytes
+   * allocated by a thread.
+   * 
+   * @return the thread bean, or null
+   */
+  private static com.sun.management.ThreadMXBean getThreadBean()
+  {
+    try
+    {
+      final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if ((bean instanceof com.sun.management.ThreadMXBean) &&
+          (((com.sun.management.ThreadMXBean) bean)
+            .isThreadAllocatedMemorySupported()))
+      {
+        com.sun.management.ThreadMXBean sunBean =
+          (com.sun.management.ThreadMXBean) bean;
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+      }
+    }
+    catch (UnsupportedOperationException uoe)
+    {
+      // Fall through, and don't count the bytes
+    }
+    catch (SecurityException se)
+    {
+      // Fall through, and don't count the bytes
+    }
+    
+    return null;
+  }
+  
+  
+  /**
+   * Returns the bytes allocated by the current thread so far.
+   * 
+   * @return the bytes allocated, or -1 if they aren't counted
+   */
+  private static long getAllocatedBytes()
+  {
+    if (threads == null)
+    {
+      return -1L;
+    }
+    
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+  
+  
+  /**
+   * Returns the difference between two byte counts.
+   * 
+   * @param from the earlier count
+   * @param to the later count
+   * @return the difference, or -1 if either is unknown
+   */
+  private static long getBytesBetween(final long from, final long to)
+  {
+    return (((from < 0L) || (to < 0L)) ? -1L : (to - from));
+  }
+  
+  
+  /**
+   * Record that an index was used.
+   * 
+   * @param name the name of the index
+   */
+  void addIndex(final String name)
+  {
+    indexes.add(name);
+  }
+  
+  
+  /**
+   * Record the end of a stage, which started when the last
+   * one ended.
+   * 
+   * @param name the name of the stage
+   * @param examined the number of candidates examined, or -1
+   * @param passed the number of candidates that passed
+   */
+  void addStage(final String name, final int examined, final int passed)
+  {
+    final long now = System.nanoTime();
+    final long bytes = getAllocatedBytes();
+    stages.add(new Stage(name, examined, passed, now - markTime,
+                         getBytesBetween(markBytes, bytes)));
+    markTime = now;
+    markBytes = bytes;
+  }
+  
+  
+  /**
+   * Note that a nested search is using this trace.
+   */
+  void enter()
+  {
+    ++depth;
+  }
+  
+  
+  /**
+   * Note that a search using this trace has ended, and if it's
+   * the outermost one, record the totals.
+   * 
+   * @param count the number of results, or -1 if the search failed
+   * @return whether the outermost search has ended
+   */
+  boolean exit(final int count)
+  {
+    if (--depth > 0)
+    {
+      return false;
+    }
+    
+    results = count;
+    totalTime = System.nanoTime() - startTime;
+    totalBytes = getBytesBetween(startBytes, getAllocatedBytes());
+    return true;
+  }
+  
+  
+  /**
+   * Returns the search mode.
+   * 
+   * @return the search mode
+   */
+  public String getMode()
+  {
+    return mode;
+  }
+  
+  
+  /**
+   * Returns the names of the indexes that served the search,
+   * in the order they were used.  An empty list means every
+   * term or entry was checked.
+   * 
+   * @return the names of the indexes
+   */
+  public List<String> getIndexes()
+  {
+    return Collections.unmodifiableList(indexes);
+  }
+  
+  
+  /**
+   * Returns the stages of the search.
+   * 
+   * @return the stages, in order
+   */
+  public List<Stage> getStages()
+  {
+    return Collections.unmodifiableList(stages);
+  }
+  
+  
+  /**
+   * Returns the time taken by the whole search.
+   * 
+   * @return the time taken, in nanoseconds
+   */
+  public long getTotalNanos()
+  {
+    return totalTime;
+  }
+  
+  
+  /**
+   * Returns the bytes allocated by the whole search.
+   * 
+   * @return the bytes allocated, or -1 if unknown
+   */
+  public long getTotalBytes()
+  {
+    return totalBytes;
+  }
+  
+  
+  /**
+   * Returns the number of results.
+   * 
+   * @return the number of results, or -1 if the search failed
+   */
+  public int getResultCount()
+  {
+    return results;
+  }
+  
+  
+  /**
+   * Returns the trace as text, with one line for each stage.
+   * 
+   * @return the trace as text
+   */
+  @Override
+  public String toString()
+  {
+    StringBuilder buf = new StringBuilder(200);
+    buf.append("Mode: ").append(mode).append('\n');
+    buf.append("Indexes: ");
+    if (indexes.isEmpty())
+    {
+      buf.append("none (full scan)");
+    }
+    else
+    {
+      for (int i = 0; i < indexes.size(); ++i)
+      {
+        buf.append((i == 0) ? "" : ", ").append(indexes.get(i));
+      }
+    }
+    
+    buf.append('\n');
+    buf.append(String.format("%-10s %10s %10s %10s %12s\n",
+                             "Stage", "Examined", "Passed", "Time(us)",
+                             "Allocated"));
+    for (Stage stage : stages)
+    {
+      buf.append(String.format("%-10s %10s %10d %10d %12s\n",
+                               stage.getName(),
+                               ((stage.getExamined() < 0) ? "-" :
+                                 String.valueOf(stage.getExamined())),
+                               stage.getPassed(), stage.getNanos() / 1000L,
+                               formatBytes(stage.getBytes())));
+    }
+    
+    buf.append(String.format("%-10s %10s %10d %10d %12s",
+                             "Total", "", results, totalTime / 1000L,
+                             formatBytes(totalBytes)));
+    return buf.toString();
+  }
+  
+  
+  /**
+   * Returns a number of bytes as text.
+   * 
+   * @param bytes the number of bytes, or -1 if unknown
+   * @return the number of bytes as text
+   */
+  private static String formatBytes(final long bytes)
+  {
+    return ((bytes < 0L) ? "n/a" : (bytes + " B"));
+  }
+}
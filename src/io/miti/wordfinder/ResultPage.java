@@ -0,0 +1,103 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import java.util.List;
+
+/**
+ * One page of the results of a search, and the token to pass
+ * back to the search engine to get the next page.  The engine
+ * keeps nothing between pages, so a client that stops asking
+ * for pages leaves no work running.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class ResultPage
+{
+  /**
+   * The entries on the page.
+   */
+  private final List<Definition> entries;
+  
+  /**
+   * The token for the next page, or null if this is the last.
+   */
+  private final String nextToken;
+  
+  
+  /**
+   * Initializes the page.
+   * 
+   * @param list the entries on the page
+   * @param token the token for the next page, or null if this is the last
+   */
+  public ResultPage(final List<Definition> list, final String token)
+  {
+    super();
+    entries = list;
+    nextToken = token;
+  }
+  
+  
+  /**
+   * Returns the entries on the page.  A page can have fewer
+   * entries than asked for (or none) if the search stopped to
+   * bound the work done for one page; only a null token means
+   * there are no more results.
+   * 
+   * @return the entries on the page
+   */
+  public List<Definition> getEntries()
+  {
+    return entries;
+  }
+  
+  
+  /**
+   * Returns the token for the next page.
+   * 
+   * @return the token for the next page, or null if this is the last
+   */
+  public String getNextToken()
+  {
+    return nextToken;
+  }
+  
+  
+  /**
+   * Returns whether there are more pages.
+   * 
+   * @return whether there are more pages
+   */
+  public boolean hasMore()
+  {
+    return (nextToken != null);
+  }
+}
@@ -28,11 +28,24 @@
 
 package io.miti.wordfinder;
 
+import io.miti.wordfinder.index.FuzzyIndex;
+import io.miti.wordfinder.index.TermOrder;
+
 import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 
 /**
- * The model for drawing the results table.
+ * The model for drawing the results table.  Results from the
+ * dictionary are kept as an array of entry IDs, and an entry
+ * is only looked up when the table asks for one of its cells,
+ * which is only done for the rows being drawn.  The rows can
+ * be sorted by a column; each row gets an int key for the
+ * column, and the keys are sorted to give the order of the
+ * rows, without comparing any strings.
  * 
  * @author mwallace
  * @version 1.0
@@ -44,21 +57,84 @@ public final class ResultsTableModel extends AbstractTableModel
    */
   private static final long serialVersionUID = 1L;
   
+  /**
+   * The column for the term.
+   */
+  public static final int COL_TERM = 0;
+  
+  /**
+   * The column for the part of speech.
+   */
+  public static final int COL_SPEECH = 1;
+  
+  /**
+   * The column for the length of the term.
+   */
+  public static final int COL_LENGTH = 2;
+  
+  /**
+   * The column for the edit distance from the search term.
+   */
+  public static final int COL_DISTANCE = 3;
+  
   /**
    * The names of the columns.
    */
-  private static final String[] columnNames = {"Term", "Part of Speech"};
+  private static final String[] columnNames =
+    {"Term", "Part of Speech", "Length", "Distance"};
+  
+  /**
+   * The entry IDs of the rows, if they're from the dictionary.
+   */
+  private EntryList rowEntries = null;
   
   /**
-   * The data stored in each row.
+   * The data stored in each row, if they're not from the dictionary.
    */
   private List<Definition> rowData = null;
   
+  /**
+   * Whether each row stands for all the senses of its term.
+   */
+  private boolean bGrouped = false;
+  
   /**
    * The current row count.
    */
   private int nRowCount = 0;
   
+  /**
+   * The row shown at each position, or null for the order
+   * the rows were found in.
+   */
+  private int[] order = null;
+  
+  /**
+   * The column the rows are sorted by, or -1 if not sorted.
+   */
+  private int sortColumn = -1;
+  
+  /**
+   * Whether the rows are sorted in ascending order.
+   */
+  private boolean bAscending = true;
+  
+  /**
+   * The word to show the edit distance from, or null to
+   * not show the distance.
+   */
+  private String distanceWord = null;
+  
+  /**
+   * Whether to ignore case when computing the distance.
+   */
+  private boolean bDistanceIgnoreCase = false;
+  
+  /**
+   * The edit distance for each row, or -1 if not computed yet.
+   */
+  private int[] distances = null;
+  
   
   /**
    * Returns the number of rows.
@@ -78,19 +154,39 @@ public final class ResultsTableModel extends AbstractTableModel
    */
   public int getColumnCount()
   {
-    return 2;
+    // Only show the distance if there's a word to compare against
+    return ((distanceWord == null) ? COL_DISTANCE : (COL_DISTANCE + 1));
   }
   
   
   /**
-   * Returns the name of the column.
+   * Returns the name of the column, with an arrow if the rows
+   * are sorted by it.
    * 
    * @param col the column to get the name for
    * @return the name of the specified column
    */
   public String getColumnName(final int col)
   {
-    return columnNames[col];
+    if (col != sortColumn)
+    {
+      return columnNames[col];
+    }
+    
+    return columnNames[col] + (bAscending ? " \u25B2" : " \u25BC");
+  }
+  
+  
+  /**
+   * Returns the class of the values in a column.
+   * 
+   * @param col the column
+   * @return the class of the column's values
+   */
+  public Class<?> getColumnClass(final int col)
+  {
+    return (((col == COL_LENGTH) || (col == COL_DISTANCE))
+            ? Integer.class : String.class);
   }
   
   
@@ -104,14 +200,23 @@ public final class ResultsTableModel extends AbstractTableModel
   public Object getValueAt(final int rowIndex,
                            final int columnIndex)
   {
-    Definition def = rowData.get(rowIndex);
+    final int row = toDataRow(rowIndex);
+    Definition def = getDataRow(row);
     switch (columnIndex)
     {
-      case 0:
+      case COL_TERM:
         return def.getWord();
       
-      case 1:
-        return def.getFullPartOfSpeech();
+      case COL_SPEECH:
+        return ((bGrouped && (rowEntries != null))
+                ? getPartsOfSpeech(rowEntries.getId(row))
+                : def.getFullPartOfSpeech());
+      
+      case COL_LENGTH:
+        return Integer.valueOf(def.getWord().length());
+      
+      case COL_DISTANCE:
+        return Integer.valueOf(getDistance(row));
       
       default:
         return "x";
@@ -119,15 +224,403 @@ public final class ResultsTableModel extends AbstractTableModel
   }
   
   
+  /**
+   * Returns the entry in a row.
+   * 
+   * @param rowIndex the row index
+   * @return the entry
+   */
+  public Definition getRow(final int rowIndex)
+  {
+    return getDataRow(toDataRow(rowIndex));
+  }
+  
+  
+  /**
+   * Returns the ID of the entry in a row.
+   * 
+   * @param rowIndex the row index
+   * @return the entry ID, or -1 if the row isn't from the dictionary
+   */
+  public int getEntryId(final int rowIndex)
+  {
+    return ((rowEntries != null) ? rowEntries.getId(toDataRow(rowIndex))
+                                 : -1);
+  }
+  
+  
+  /**
+   * Returns the entry at a position in the results, before sorting.
+   * 
+   * @param row the position in the results
+   * @return the entry
+   */
+  private Definition getDataRow(final int row)
+  {
+    return ((rowEntries != null) ? rowEntries.get(row) : rowData.get(row));
+  }
+  
+  
+  /**
+   * Returns the position in the results of the row shown at
+   * an index in the table.
+   * 
+   * @param rowIndex the row index in the table
+   * @return the position in the results
+   */
+  public int toDataRow(final int rowIndex)
+  {
+    return ((order == null) ? rowIndex : order[rowIndex]);
+  }
+  
+  
+  /**
+   * Returns the index in the table of the row for a position
+   * in the results.
+   * 
+   * @param row the position in the results
+   * @return the row index in the table, or -1 if not found
+   */
+  public int toViewRow(final int row)
+  {
+    if (order == null)
+    {
+      return row;
+    }
+    
+    for (int i = 0; i < order.length; ++i)
+    {
+      if (order[i] == row)
+      {
+        return i;
+      }
+    }
+    
+    return -1;
+  }
+  
+  
+  /**
+   * Returns whether each row stands for all the senses of its term.
+   * 
+   * @return whether the rows are grouped by term
+   */
+  public boolean isGrouped()
+  {
+    return bGrouped;
+  }
+  
+  
+  /**
+   * Returns the parts of speech of all the senses of an
+   * entry's term, in the order they first appear.
+   * 
+   * @param id the entry ID
+   * @return the parts of speech, separated by commas
+   */
+  private String getPartsOfSpeech(final int id)
+  {
+    final DictionaryData dict = rowEntries.getDictionary();
+    final int termId = dict.getTermId(id);
+    if (dict.getSenseCount(termId) < 2)
+    {
+      return dict.get(id).getFullPartOfSpeech();
+    }
+    
+    StringBuffer buf = new StringBuffer(40);
+    List<String> seen = new ArrayList<String>(4);
+    for (Definition sense : dict.getSenses(termId))
+    {
+      if (!seen.contains(sense.getSpeech()))
+      {
+        seen.add(sense.getSpeech());
+        if (buf.length() > 0)
+        {
+          buf.append(", ");
+        }
+        
+        buf.append(sense.getFullPartOfSpeech());
+      }
+    }
+    
+    return buf.toString();
+  }
+  
+  
+  /**
+   * Returns the edit distance between a row's term and the
+   * distance word, computing it the first time.
+   * 
+   * @param row the position in the results
+   * @return the edit distance
+   */
+  private int getDistance(final int row)
+  {
+    if (distances[row] < 0)
+    {
+      distances[row] = FuzzyIndex.distance(distanceWord,
+                          getDataRow(row).getWord(), bDistanceIgnoreCase);
+    }
+    
+    return distances[row];
+  }
+  
+  
+  /**
+   * Show the edit distance between each row's term and a word
+   * in an extra column, which can be sorted like the others.
+   * 
+   * @param word the word to compare against, or null to hide the column
+   * @param ignoreCase whether to ignore case when comparing
+   */
+  public void setDistanceWord(final String word, final boolean ignoreCase)
+  {
+    distanceWord = word;
+    bDistanceIgnoreCase = ignoreCase;
+    distances = null;
+    if (word != null)
+    {
+      distances = new int[nRowCount];
+      Arrays.fill(distances, -1);
+    }
+    
+    if ((word == null) && (sortColumn == COL_DISTANCE))
+    {
+      sortByColumn(-1, true);
+    }
+  }
+  
+  
+  /**
+   * Sort the rows by a column.  If the rows are already sorted
+   * by the column, the order is reversed.
+   * 
+   * @param col the column to sort by
+   */
+  public void sortByColumn(final int col)
+  {
+    sortByColumn(col, ((col != sortColumn) || (!bAscending)));
+  }
+  
+  
+  /**
+   * Sort the rows by a column.  Rows with the same value
+   * stay in the order they were found in.
+   * 
+   * @param col the column to sort by, or -1 for the order found
+   * @param ascending whether to sort in ascending order
+   */
+  public void sortByColumn(final int col, final boolean ascending)
+  {
+    sortColumn = col;
+    bAscending = ascending;
+    if ((col < 0) || (nRowCount < 2))
+    {
+      order = null;
+      return;
+    }
+    
+    // Put the key in the high half of each long and the row in
+    // the low half, so sorting the longs sorts the rows by key
+    final int[] keys = getSortKeys(col);
+    long[] rows = new long[nRowCount];
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      final int key = (ascending ? keys[i] : (Integer.MAX_VALUE - keys[i]));
+      rows[i] = (((long) key) << 32) | i;
+    }
+    
+    Arrays.sort(rows);
+    order = new int[nRowCount];
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      order[i] = (int) rows[i];
+    }
+  }
+  
+  
+  /**
+   * Returns the column the rows are sorted by.
+   * 
+   * @return the sort column, or -1 if not sorted
+   */
+  public int getSortColumn()
+  {
+    return sortColumn;
+  }
+  
+  
+  /**
+   * Returns the sort key of each row for a column.  The keys
+   * are never negative.
+   * 
+   * @param col the column
+   * @return the key for each position in the results
+   */
+  private int[] getSortKeys(final int col)
+  {
+    int[] keys = new int[nRowCount];
+    switch (col)
+    {
+      case COL_TERM:
+        if (rowEntries != null)
+        {
+          // Use the position of the terms in the dictionary's order
+          final DictionaryData dict = rowEntries.getDictionary();
+          final TermOrder termOrder = dict.getTermOrder();
+          for (int i = 0; i < nRowCount; ++i)
+          {
+            keys[i] = termOrder.getRank(dict.getTermId(rowEntries.getId(i)));
+          }
+        }
+        else
+        {
+          rankTerms(keys);
+        }
+        break;
+      
+      case COL_SPEECH:
+        rankSpeeches(keys);
+        break;
+      
+      case COL_LENGTH:
+        for (int i = 0; i < nRowCount; ++i)
+        {
+          keys[i] = getDataRow(i).getWord().length();
+        }
+        break;
+      
+      case COL_DISTANCE:
+        for (int i = 0; i < nRowCount; ++i)
+        {
+          keys[i] = getDistance(i);
+        }
+        break;
+      
+      default:
+        break;
+    }
+    
+    return keys;
+  }
+  
+  
+  /**
+   * Save the alphabetical position of each row's term, for rows
+   * that aren't from the dictionary.
+   * 
+   * @param keys the array to save the positions in
+   */
+  private void rankTerms(final int[] keys)
+  {
+    Integer[] rows = new Integer[nRowCount];
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      rows[i] = Integer.valueOf(i);
+    }
+    
+    Arrays.sort(rows, new Comparator<Integer>()
+    {
+      public int compare(final Integer a, final Integer b)
+      {
+        return TermOrder.compareTerms(rowData.get(a.intValue()).getWord(),
+                                      rowData.get(b.intValue()).getWord());
+      }
+    });
+    
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      keys[rows[i].intValue()] = i;
+    }
+  }
+  
+  
+  /**
+   * Save the alphabetical position of the name of each row's
+   * part of speech, among the parts of speech of the rows.
+   * 
+   * @param keys the array to save the positions in
+   */
+  private void rankSpeeches(final int[] keys)
+  {
+    // Number the distinct parts of speech
+    HashMap<String, Integer> found = new HashMap<String, Integer>(16);
+    final List<String> names = new ArrayList<String>(16);
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      final String speech = getDataRow(i).getSpeech();
+      Integer num = found.get(speech);
+      if (num == null)
+      {
+        num = Integer.valueOf(names.size());
+        found.put(speech, num);
+        names.add(Definition.getFullPartOfSpeech(speech));
+      }
+      
+      keys[i] = num.intValue();
+    }
+    
+    // Sort the names, and replace each number with its position
+    Integer[] nums = new Integer[names.size()];
+    for (int i = 0; i < nums.length; ++i)
+    {
+      nums[i] = Integer.valueOf(i);
+    }
+    
+    Arrays.sort(nums, new Comparator<Integer>()
+    {
+      public int compare(final Integer a, final Integer b)
+      {
+        return TermOrder.compareTerms(names.get(a.intValue()),
+                                      names.get(b.intValue()));
+      }
+    });
+    
+    int[] ranks = new int[nums.length];
+    for (int i = 0; i < nums.length; ++i)
+    {
+      ranks[nums[i].intValue()] = i;
+    }
+    
+    for (int i = 0; i < nRowCount; ++i)
+    {
+      keys[i] = ranks[keys[i]];
+    }
+  }
+  
+  
   /**
    * Set the row data.
    * 
    * @param listData the data to fill in a row
    */
   public void setRowData(final List<Definition> listData)
+  {
+    setRowData(listData, false);
+  }
+  
+  
+  /**
+   * Set the row data, in the order found.  If the rows are
+   * grouped by term, and are from the dictionary, the Part of
+   * Speech column shows the parts of speech of all the senses
+   * of each term.
+   * 
+   * @param listData the data to fill in a row
+   * @param grouped whether each row stands for all the senses of its term
+   */
+  public void setRowData(final List<Definition> listData,
+                         final boolean grouped)
   {
     // Empty the previous data
+    rowEntries = null;
     rowData = null;
+    bGrouped = grouped;
+    order = null;
+    sortColumn = -1;
+    bAscending = true;
+    distanceWord = null;
+    distances = null;
     
     if (listData == null)
     {
@@ -136,7 +629,12 @@ public final class ResultsTableModel extends AbstractTableModel
     else
     {
       nRowCount = listData.size();
-      if (nRowCount > 0)
+      if (listData instanceof EntryList)
+      {
+        // Keep the entry IDs
+        rowEntries = (EntryList) listData;
+      }
+      else if (nRowCount > 0)
       {
         rowData = listData;
       }
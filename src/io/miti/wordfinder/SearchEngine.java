@@ -0,0 +1,2047 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder;
+
+import io.miti.wordfinder.filter.AndFilter;
+import io.miti.wordfinder.filter.ContainsFilter;
+import io.miti.wordfinder.filter.EntryFilter;
+import io.miti.wordfinder.filter.ExactMatchFilter;
+import io.miti.wordfinder.filter.FieldFilter;
+import io.miti.wordfinder.filter.FilterUtility;
+import io.miti.wordfinder.filter.LetterPatternFilter;
+import io.miti.wordfinder.filter.NotFilter;
+import io.miti.wordfinder.filter.OrFilter;
+import io.miti.wordfinder.filter.PhraseFilter;
+import io.miti.wordfinder.filter.RegexFilter;
+import io.miti.wordfinder.filter.RegexLiterals;
+import io.miti.wordfinder.filter.SpeechFilter;
+import io.miti.wordfinder.filter.StartsWithFilter;
+import io.miti.wordfinder.filter.SubAnagramFilter;
+import io.miti.wordfinder.filter.TermBlock;
+import io.miti.wordfinder.filter.TermFilter;
+import io.miti.wordfinder.filter.WildcardFilter;
+import io.miti.wordfinder.index.AnagramSearch;
+import io.miti.wordfinder.index.DefinitionIndex;
+import io.miti.wordfinder.index.IntList;
+import io.miti.wordfinder.index.LengthIndex;
+import io.miti.wordfinder.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs searches against a dictionary.  This class has no
+ * user interface code, so it can be used without the GUI.
+ * Each public search is timed and counted in the Metrics
+ * registry under the name of its mode.  In explain mode, each
+ * search also records a QueryTrace of the indexes it used and
+ * its stages, which getLastTrace() returns.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class SearchEngine
+{
+  /**
+   * The number of terms passed to a filter at once in a scan.
+   */
+  private static final int BLOCK_SIZE = 4096;
+  
+  /**
+   * The most entries checked for one page of results.
+   */
+  private static final int PAGE_SCAN_LIMIT = 65536;
+  
+  /**
+   * The radix for the numbers in a page token.
+   */
+  private static final int TOKEN_RADIX = 36;
+  
+  /**
+   * The dictionary to search.
+   */
+  private final DictionaryData dict;
+  
+  /**
+   * The registry for the query metrics.
+   */
+  private final Metrics metrics = Metrics.getInstance();
+  
+  /**
+   * Whether to return one entry for each distinct term.
+   */
+  private boolean groupByTerm = false;
+  
+  /**
+   * Whether to record a trace of each search.
+   */
+  private boolean explain = false;
+  
+  /**
+   * The trace of the search running on each thread.
+   */
+  private final ThreadLocal<QueryTrace> currentTrace =
+    new ThreadLocal<QueryTrace>();
+  
+  /**
+   * The trace of the last search on each thread.
+   */
+  private final ThreadLocal<QueryTrace> lastTrace =
+    new ThreadLocal<QueryTrace>();
+  
+  /**
+   * The scan for the page after the last page returned, so
+   * the next page can go on from it.
+   */
+  private final AtomicReference<PageScan> nextPage =
+    new AtomicReference<PageScan>();
+  
+  
+  /**
+   * A set of entries that could match a filter, and the part
+   * of the filter they still need to be checked against.
+   */
+  private static final class Candidates
+  {
+    /**
+     * The entry IDs.
+     */
+    private final BitSet ids;
+    
+    /**
+     * The filter to check the entries against, or null if
+     * they all match.
+     */
+    private final EntryFilter check;
+    
+    
+    /**
+     * Initializes the set.
+     * 
+     * @param entries the entry IDs
+     * @param filter the filter to check them against (can be null)
+     */
+    private Candidates(final BitSet entries, final EntryFilter filter)
+    {
+      ids = entries;
+      check = filter;
+    }
+  }
+  
+  
+  /**
+   * The IDs of the entries found by a search, up to the limit.
+   * When the engine groups by term, only the first entry found
+   * for each term is kept, and the limit counts terms.
+   */
+  private final class Matches
+  {
+    /**
+     * The IDs of the entries found so far.
+     */
+    private final IntList ids;
+    
+    /**
+     * The maximum number of matches, or -1 for no limit.
+     */
+    private final int limit;
+    
+    /**
+     * The IDs of the terms found so far, or null if the
+     * entries aren't being grouped.
+     */
+    private final BitSet terms;
+    
+    /**
+     * The number of entries offered, before grouping.
+     */
+    private int offered = 0;
+    
+    
+    /**
+     * Initializes an empty set of matches.
+     * 
+     * @param nLimit the maximum number of matches, or -1 for no limit
+     */
+    private Matches(final int nLimit)
+    {
+      limit = nLimit;
+      ids = new IntList(100);
+      terms = (groupByTerm ? new BitSet(dict.getTermCount()) : null);
+    }
+    
+    
+    /**
+     * Add an entry, unless an entry for its term was already
+     * added and the entries are being grouped.
+     * 
+     * @param id the entry ID
+     */
+    private void add(final int id)
+    {
+      ++offered;
+      if (terms != null)
+      {
+        final int termId = dict.getTermId(id);
+        if (terms.get(termId))
+        {
+          return;
+        }
+        
+        terms.set(termId);
+      }
+      
+      ids.add(id);
+    }
+    
+    
+    /**
+     * Returns whether the limit has been reached.
+     * 
+     * @return whether there are enough matches
+     */
+    private boolean isFull()
+    {
+      return ((limit >= 0) && (ids.size() >= limit));
+    }
+    
+    
+    /**
+     * Returns the entries found.
+     * 
+     * @return the list of entries
+     */
+    private List<Definition> toList()
+    {
+      if (terms != null)
+      {
+        addStage("group", offered, ids.size());
+      }
+      
+      return new EntryList(dict, ids.toArray());
+    }
+    
+    
+    /**
+     * Returns the number of entries offered, before grouping.
+     * 
+     * @return the number of entries offered
+     */
+    private int getOffered()
+    {
+      return offered;
+    }
+  }
+  
+  
+  /**
+   * Checks entries against a filter for pages of results,
+   * using the candidates from the indexes if there are any.
+   * When every entry has to be checked against a word filter,
+   * each term is only checked once.
+   */
+  private final class PageScan
+  {
+    /**
+     * The filter for the entries.
+     */
+    private final EntryFilter filter;
+    
+    /**
+     * The filter the caller passed in, to tell whether a
+     * later page is for the same query.
+     */
+    private final Object key;
+    
+    /**
+     * The token for the next page, once a page has been returned.
+     */
+    private String token = null;
+    
+    /**
+     * The candidates from the indexes, or null to check every entry.
+     */
+    private final Candidates found;
+    
+    /**
+     * The word filter, if every entry is checked against one.
+     */
+    private final TermFilter wordFilter;
+    
+    /**
+     * The terms checked against the word filter so far.
+     */
+    private BitSet checked = null;
+    
+    /**
+     * The terms that passed the word filter so far.
+     */
+    private BitSet passed = null;
+    
+    
+    /**
+     * Initializes the scan.
+     * 
+     * @param entryFilter the filter for the entries
+     * @param queryKey the filter the caller passed in
+     */
+    private PageScan(final EntryFilter entryFilter, final Object queryKey)
+    {
+      filter = entryFilter;
+      key = queryKey;
+      found = findEntries(entryFilter);
+      if ((found == null) && (entryFilter instanceof FieldFilter) &&
+          (((FieldFilter) entryFilter).getField() == FieldFilter.WORD))
+      {
+        wordFilter = ((FieldFilter) entryFilter).getFilter();
+        checked = new BitSet(dict.getTermCount());
+        passed = new BitSet(dict.getTermCount());
+      }
+      else
+      {
+        wordFilter = null;
+      }
+    }
+    
+    
+    /**
+     * Returns the next entry ID that could match, starting at
+     * an entry ID.
+     * 
+     * @param id the entry ID to start at
+     * @return the next candidate entry ID, or -1 if there are none
+     */
+    private int next(final int id)
+    {
+      if (found != null)
+      {
+        return found.ids.nextSetBit(id);
+      }
+      
+      return ((id < dict.size()) ? id : -1);
+    }
+    
+    
+    /**
+     * Returns whether an entry matches the filter.
+     * 
+     * @param id the entry ID
+     * @return whether the entry matches
+     */
+    private boolean accept(final int id)
+    {
+      if (found != null)
+      {
+        return ((found.ids.get(id)) &&
+                ((found.check == null) || (found.check.accept(dict.get(id)))));
+      }
+      else if (wordFilter != null)
+      {
+        // Check each term once
+        final int termId = dict.getTermId(id);
+        if (!checked.get(termId))
+        {
+          checked.set(termId);
+          passed.set(termId, wordFilter.accept(dict.getTerm(termId)));
+        }
+        
+        return passed.get(termId);
+      }
+      
+      return filter.accept(dict.get(id));
+    }
+    
+    
+    /**
+     * Returns whether a matching entry is the first match for
+     * its term.
+     * 
+     * @param id the entry ID
+     * @return whether no earlier entry for the term matches
+     */
+    private boolean isFirstMatch(final int id)
+    {
+      final int termId = dict.getTermId(id);
+      if (wordFilter != null)
+      {
+        // Every sense of the term matches
+        return (dict.getFirstEntry(termId) == id);
+      }
+      
+      // Check the senses before this one, in entry order
+      final int senses = dict.getSenseCount(termId);
+      for (int i = 0; i < senses; ++i)
+      {
+        final int entry = dict.getTermEntry(termId, i);
+        if (entry >= id)
+        {
+          break;
+        }
+        else if (accept(entry))
+        {
+          return false;
+        }
+      }
+      
+      return true;
+    }
+  }
+  
+  
+  /**
+   * Initializes the search engine with the dictionary.
+   * 
+   * @param dictionary the dictionary to search
+   */
+  public SearchEngine(final DictionaryData dictionary)
+  {
+    super();
+    dict = dictionary;
+  }
+  
+  
+  /**
+   * Returns the dictionary being searched.
+   * 
+   * @return the dictionary
+   */
+  public DictionaryData getDictionary()
+  {
+    return dict;
+  }
+  
+  
+  /**
+   * Sets whether searches return only the first matching entry
+   * for each distinct term, so a term with many senses takes
+   * one row, and the match limit counts distinct terms.  The
+   * other senses can be fetched with DictionaryData.getSenses().
+   * 
+   * @param bGroup whether to group the matches by term
+   */
+  public void setGroupByTerm(final boolean bGroup)
+  {
+    groupByTerm = bGroup;
+  }
+  
+  
+  /**
+   * Returns whether searches return one entry for each term.
+   * 
+   * @return whether the matches are grouped by term
+   */
+  public boolean isGroupByTerm()
+  {
+    return groupByTerm;
+  }
+  
+  
+  /**
+   * Sets whether searches record a trace of the indexes they
+   * used, and the candidates, time and memory of each stage.
+   * Tracing adds a little to the cost of each search.
+   * 
+   * @param bExplain whether to trace the searches
+   */
+  public void setExplain(final boolean bExplain)
+  {
+    explain = bExplain;
+  }
+  
+  
+  /**
+   * Returns whether searches record a trace.
+   * 
+   * @return whether the searches are traced
+   */
+  public boolean isExplain()
+  {
+    return explain;
+  }
+  
+  
+  /**
+   * Returns the trace of the last search run on this thread
+   * in explain mode.
+   * 
+   * @return the trace of the last search, or null if there is none
+   */
+  public QueryTrace getLastTrace()
+  {
+    return lastTrace.get();
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter, in
+   * dictionary order.
+   * 
+   * @param wordFilter the filter for the word
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  public List<Definition> search(final TermFilter wordFilter,
+                                 final int limit)
+  {
+    startQuery(getMode(wordFilter), wordFilter.getTermLength());
+    startSearch(wordFilter);
+    List<Definition> list = null;
+    try
+    {
+      list = matchWords(wordFilter, limit);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter, in
+   * dictionary order.
+   * 
+   * @param wordFilter the filter for the word
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  private List<Definition> matchWords(final TermFilter wordFilter,
+                                      final int limit)
+  {
+    // If an index can narrow down the terms, only check those
+    final int[] termIds = findCandidates(wordFilter);
+    if (termIds == null)
+    {
+      return scanTerms(wordFilter, limit);
+    }
+    
+    // Check each candidate term once, then find its entries
+    addStage("index", dict.getTermCount(), termIds.length);
+    IntList found = new IntList(100);
+    int senses = 0;
+    int examined = 0;
+    for (int start = 0; start < termIds.length; start += BLOCK_SIZE)
+    {
+      final int end = Math.min(termIds.length, start + BLOCK_SIZE);
+      for (int i = start; i < end; ++i)
+      {
+        if (wordFilter.accept(dict.getTerm(termIds[i])))
+        {
+          found.add(termIds[i]);
+          senses += dict.getSenseCount(termIds[i]);
+        }
+      }
+      
+      examined = end;
+      if ((end < termIds.length) &&
+          (hasFirstMatches(found, senses, limit, termIds[end])))
+      {
+        break;
+      }
+    }
+    
+    metrics.addExamined(examined);
+    addStage("filter", examined, found.size());
+    return toEntryList(found, limit);
+  }
+  
+  
+  /**
+   * Returns the name of the search mode for a word filter,
+   * taken from the name of its class ("wildcard" for
+   * WildcardFilter), or "filter" for an anonymous class.
+   * 
+   * @param wordFilter the filter for the word
+   * @return the name of the mode
+   */
+  public static String getMode(final TermFilter wordFilter)
+  {
+    String name = wordFilter.getClass().getSimpleName();
+    if (name.length() == 0)
+    {
+      return "filter";
+    }
+    else if ((name.endsWith("Filter")) && (name.length() > 6))
+    {
+      name = name.substring(0, name.length() - 6);
+    }
+    
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+  
+  
+  /**
+   * Returns the length of a search term, for the metrics.
+   * 
+   * @param term the search term (can be null)
+   * @return the length of the term, or -1 if it's null
+   */
+  private static int getLength(final String term)
+  {
+    return ((term == null) ? -1 : term.length());
+  }
+  
+  
+  /**
+   * Record the start of a query, and start its trace in
+   * explain mode.
+   * 
+   * @param mode the search mode
+   * @param termLength the length of the search term, or -1
+   */
+  private void startQuery(final String mode, final int termLength)
+  {
+    metrics.startQuery(mode, termLength);
+    if (explain)
+    {
+      final QueryTrace trace = currentTrace.get();
+      if (trace != null)
+      {
+        trace.enter();
+      }
+      else
+      {
+        currentTrace.set(new QueryTrace(mode));
+      }
+    }
+  }
+  
+  
+  /**
+   * Record the end of a query.
+   * 
+   * @param results the results, or null if the query failed
+   */
+  private void endQuery(final Collection<?> results)
+  {
+    final int count = ((results == null) ? -1 : results.size());
+    metrics.endQuery(count);
+    
+    final QueryTrace trace = currentTrace.get();
+    if ((trace != null) && (trace.exit(count)))
+    {
+      currentTrace.remove();
+      lastTrace.set(trace);
+    }
+  }
+  
+  
+  /**
+   * Tell a word filter that a search is starting, so any time
+   * limit is counted from now.
+   * 
+   * @param wordFilter the filter for the word
+   */
+  private static void startSearch(final TermFilter wordFilter)
+  {
+    wordFilter.startSearch();
+  }
+  
+  
+  /**
+   * Tell the word filters inside an entry filter that a search
+   * is starting.
+   * 
+   * @param filter the filter for the entries
+   */
+  private static void startSearch(final EntryFilter filter)
+  {
+    if (filter instanceof FieldFilter)
+    {
+      startSearch(((FieldFilter) filter).getFilter());
+    }
+    else if (filter instanceof AndFilter)
+    {
+      for (EntryFilter part : ((AndFilter) filter).getFilters())
+      {
+        startSearch(part);
+      }
+    }
+    else if (filter instanceof OrFilter)
+    {
+      for (EntryFilter part : ((OrFilter) filter).getFilters())
+      {
+        startSearch(part);
+      }
+    }
+    else if (filter instanceof NotFilter)
+    {
+      startSearch(((NotFilter) filter).getFilter());
+    }
+  }
+  
+  
+  /**
+   * Returns whether the search on this thread is being traced.
+   * 
+   * @return whether there is a trace
+   */
+  private boolean isTracing()
+  {
+    return (currentTrace.get() != null);
+  }
+  
+  
+  /**
+   * Add a stage to the trace of the search on this thread,
+   * if there is one.
+   * 
+   * @param name the name of the stage
+   * @param examined the number of candidates examined, or -1
+   * @param passed the number of candidates that passed
+   */
+  private void addStage(final String name, final int examined,
+                        final int passed)
+  {
+    final QueryTrace trace = currentTrace.get();
+    if (trace != null)
+    {
+      trace.addStage(name, examined, passed);
+    }
+  }
+  
+  
+  /**
+   * Note in the trace of the search on this thread, if there
+   * is one, that an index was used.
+   * 
+   * @param name the name of the index
+   */
+  private void addIndex(final String name)
+  {
+    final QueryTrace trace = currentTrace.get();
+    if (trace != null)
+    {
+      trace.addIndex(name);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter and whose
+   * part of speech is accepted by the speech filter, in
+   * dictionary order.  The entries for the part of speech come
+   * from its index, and are combined with the entries from any
+   * index over the words.
+   * 
+   * @param wordFilter the filter for the word
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param speech the filter for the part of speech (can be null)
+   * @return the matching entries
+   */
+  public List<Definition> search(final TermFilter wordFilter,
+                                 final int limit,
+                                 final SpeechFilter speech)
+  {
+    if (speech == null)
+    {
+      return search(wordFilter, limit);
+    }
+    
+    // Count the query under the word filter's mode
+    startQuery(getMode(wordFilter), wordFilter.getTermLength());
+    List<Definition> list = null;
+    try
+    {
+      list = search(new AndFilter(speech,
+                                  new FieldFilter(FieldFilter.WORD, wordFilter)),
+                    limit);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter, in
+   * dictionary order, checking every term.  The terms are
+   * checked a block at a time with the filter's acceptAll().
+   * 
+   * @param wordFilter the filter for the word
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  private List<Definition> scanTerms(final TermFilter wordFilter,
+                                     final int limit)
+  {
+    final TermBlock block = dict.getTermBlock();
+    final int num = block.size();
+    int[] matches = new int[Math.min(BLOCK_SIZE, num)];
+    IntList found = new IntList(100);
+    int senses = 0;
+    int scanned = 0;
+    for (int start = 0; start < num; start += BLOCK_SIZE)
+    {
+      final int end = Math.min(num, start + BLOCK_SIZE);
+      final int count = wordFilter.acceptAll(block, start, end, matches);
+      metrics.addExamined(end - start);
+      scanned = end;
+      for (int i = 0; i < count; ++i)
+      {
+        found.add(matches[i]);
+        senses += dict.getSenseCount(matches[i]);
+      }
+      
+      if ((end < num) && (hasFirstMatches(found, senses, limit, end)))
+      {
+        break;
+      }
+    }
+    
+    addStage("scan", scanned, found.size());
+    return toEntryList(found, limit);
+  }
+  
+  
+  /**
+   * Returns whether the matching terms found so far give the
+   * first matching entries, up to the limit, when the terms
+   * before the next one to check have all been checked.
+   * 
+   * @param found the IDs of the matching terms, in ascending order
+   * @param senses the number of entries for the matching terms
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param next the ID of the next term to check
+   * @return whether the search can stop
+   */
+  private boolean hasFirstMatches(final IntList found, final int senses,
+                                  final int limit, final int next)
+  {
+    if (limit < 0)
+    {
+      return false;
+    }
+    
+    // Each term takes one row, and terms are numbered in the
+    // order they first appear, so the first terms found are
+    // the first matches
+    if (groupByTerm)
+    {
+      return (found.size() >= limit);
+    }
+    
+    // Otherwise stop once the first entries are all from
+    // checked terms
+    if (senses < limit)
+    {
+      return false;
+    }
+    
+    final int[] entries = dict.getEntries(found.toArray());
+    return ((limit == 0) || (entries[limit - 1] < dict.getFirstEntry(next)));
+  }
+  
+  
+  /**
+   * Returns the entries for the matching terms, up to the
+   * limit: every entry, or the first entry for each term if
+   * the matches are grouped by term.
+   * 
+   * @param found the IDs of the matching terms, in ascending order
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  private List<Definition> toEntryList(final IntList found, final int limit)
+  {
+    int[] entries = found.toArray();
+    if (groupByTerm)
+    {
+      // Keep the first entry for each term
+      for (int i = 0; i < entries.length; ++i)
+      {
+        entries[i] = dict.getFirstEntry(entries[i]);
+      }
+    }
+    else
+    {
+      entries = dict.getEntries(entries);
+    }
+    
+    // Build the list of entries, up to the limit
+    final int size =
+      ((limit < 0) ? entries.length : Math.min(limit, entries.length));
+    addStage("entries", found.size(), size);
+    return new EntryList(dict, entries, size);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that could match the word
+   * filter, in ascending order, if an index can find them or
+   * the filter's length range rules some out; the terms still
+   * need to be checked against the filter.
+   * 
+   * @param wordFilter the filter for the word
+   * @return the candidate term IDs, or null to check every term
+   */
+  private int[] findCandidates(final TermFilter wordFilter)
+  {
+    final int[] ids = findIndexed(wordFilter);
+    if (ids != null)
+    {
+      return ids;
+    }
+    
+    // Skip the terms outside the filter's length range, unless
+    // that leaves most of them (a scan of every term is faster)
+    final LengthIndex lengths = dict.getLengthIndex();
+    final int min = wordFilter.getMinLength();
+    final int max = wordFilter.getMaxLength();
+    final boolean spaces = wordFilter.isSpaceCounted();
+    if ((lengths.count(min, max, spaces) * 2) > dict.getTermCount())
+    {
+      return null;
+    }
+    
+    addIndex("LengthIndex");
+    return lengths.find(min, max, spaces);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that could match the word
+   * filter, in ascending order, if an index can find them.
+   * 
+   * @param wordFilter the filter for the word
+   * @return the candidate term IDs, or null if no index applies
+   */
+  private int[] findIndexed(final TermFilter wordFilter)
+  {
+    if (wordFilter instanceof WildcardFilter)
+    {
+      // A pattern with no '*' can use the crossword index
+      final WildcardFilter filter = (WildcardFilter) wordFilter;
+      final String pattern = filter.getFixedLengthPattern();
+      if (pattern != null)
+      {
+        addIndex("PatternIndex");
+        return dict.getPatternIndex().find(pattern);
+      }
+      else if (filter.getPattern() != null)
+      {
+        // Otherwise walk the term automaton
+        addIndex("TermDawg");
+        return dict.getTermDawg().findWildcard(filter.getPattern(),
+                                               filter.isIgnoreCase());
+      }
+    }
+    
+    else if (wordFilter instanceof StartsWithFilter)
+    {
+      // Walk the automaton down to the prefix
+      final StartsWithFilter filter = (StartsWithFilter) wordFilter;
+      if (filter.getPrefix() != null)
+      {
+        addIndex("TermDawg");
+        return dict.getTermDawg().findPrefix(filter.getPrefix(),
+                                             filter.isIgnoreCase());
+      }
+    }
+    
+    else if (wordFilter instanceof ExactMatchFilter)
+    {
+      // Look the word up in the automaton
+      final ExactMatchFilter filter = (ExactMatchFilter) wordFilter;
+      if (filter.getTerm() != null)
+      {
+        addIndex("TermDawg");
+        return dict.getTermDawg().findExact(filter.getTerm(),
+                                            filter.isIgnoreCase());
+      }
+    }
+    
+    else if (wordFilter instanceof RegexFilter)
+    {
+      // Narrow the terms by the literal prefix and text in the pattern
+      final RegexFilter filter = (RegexFilter) wordFilter;
+      final RegexLiterals literals = filter.getLiterals();
+      int[] ids = null;
+      if (literals.getPrefix().length() > 0)
+      {
+        addIndex("TermDawg");
+        ids = dict.getTermDawg().findPrefix(literals.getPrefix(),
+                                            filter.isIgnoreCase());
+      }
+      
+      for (String text : literals.getLiterals())
+      {
+        final int[] found = dict.getNGramIndex().find(text);
+        if (found != null)
+        {
+          addIndex("NGramIndex");
+          ids = ((ids == null) ? found : DefinitionIndex.intersect(ids, found));
+        }
+      }
+      
+      return ids;
+    }
+    
+    else if (wordFilter instanceof LetterPatternFilter)
+    {
+      // Look up the terms with the same letter pattern
+      final String signature =
+        ((LetterPatternFilter) wordFilter).getSignature();
+      addIndex("LetterPatternIndex");
+      return dict.getLetterPatternIndex().find(signature);
+    }
+    
+    return null;
+  }
+  
+  
+  /**
+   * Returns the entries for a list of term IDs.
+   * 
+   * @param termIds the term IDs, or null
+   * @return the entry IDs in entry order, or null if termIds is null
+   */
+  private int[] getEntries(final int[] termIds)
+  {
+    return ((termIds == null) ? null : dict.getEntries(termIds));
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter and whose
+   * definition contains every word or quoted phrase in the
+   * definition query, in dictionary order.  The definitions are
+   * looked up in the definition index, so only those entries
+   * are checked against the word filter.
+   * 
+   * @param wordFilter the filter for the word
+   * @param defQuery the words and phrases to find in the definition
+   * @param matchCase whether the definition must match the case of the query
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  public List<Definition> searchByDefinition(final TermFilter wordFilter,
+                                             final String defQuery,
+                                             final boolean matchCase,
+                                             final int limit)
+  {
+    return searchByDefinition(wordFilter, defQuery, matchCase, limit, null);
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter, whose part
+   * of speech is accepted by the speech filter, and whose
+   * definition contains every word or quoted phrase in the
+   * definition query, in dictionary order.
+   * 
+   * @param wordFilter the filter for the word
+   * @param defQuery the words and phrases to find in the definition
+   * @param matchCase whether the definition must match the case of the query
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param speech the filter for the part of speech (can be null)
+   * @return the matching entries
+   */
+  public List<Definition> searchByDefinition(final TermFilter wordFilter,
+                                             final String defQuery,
+                                             final boolean matchCase,
+                                             final int limit,
+                                             final SpeechFilter speech)
+  {
+    startQuery("definition", getLength(defQuery));
+    List<Definition> list = null;
+    try
+    {
+      list = matchDefinitions(wordFilter, defQuery, matchCase, limit, speech);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries whose word matches the filter, whose part
+   * of speech is accepted by the speech filter, and whose
+   * definition contains every word or quoted phrase in the
+   * definition query, in dictionary order.
+   * 
+   * @param wordFilter the filter for the word
+   * @param defQuery the words and phrases to find in the definition
+   * @param matchCase whether the definition must match the case of the query
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param speech the filter for the part of speech (can be null)
+   * @return the matching entries
+   */
+  private List<Definition> matchDefinitions(final TermFilter wordFilter,
+                                            final String defQuery,
+                                            final boolean matchCase,
+                                            final int limit,
+                                            final SpeechFilter speech)
+  {
+    // Split the query into phrases; if there are none, only
+    // the word filter applies
+    final List<String> phrases = FilterUtility.parseIntoPhrases(defQuery);
+    if (phrases.isEmpty())
+    {
+      return search(wordFilter, limit, speech);
+    }
+    
+    // Combine the definition, word and part-of-speech filters
+    List<EntryFilter> filters = new ArrayList<EntryFilter>(phrases.size() + 3);
+    filters.add(new FieldFilter(FieldFilter.DEFINITION,
+                                new PhraseFilter(defQuery)));
+    if (speech != null)
+    {
+      filters.add(speech);
+    }
+    
+    filters.add(new FieldFilter(FieldFilter.WORD, wordFilter));
+    
+    // The index is not case-sensitive, so check the case separately
+    if (matchCase)
+    {
+      for (String phrase : phrases)
+      {
+        filters.add(new FieldFilter(FieldFilter.DEFINITION,
+                                    new ContainsFilter(phrase, false)));
+      }
+    }
+    
+    return search(new AndFilter(filters), limit);
+  }
+  
+  
+  /**
+   * Returns the entries that match the filter, in dictionary
+   * order.  Where parts of the filter can be answered from
+   * an index, the sets of entries are combined first, and
+   * only the entries in the result are checked against the
+   * rest of the filter.
+   * 
+   * @param filter the filter for the entries
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  public List<Definition> search(final EntryFilter filter, final int limit)
+  {
+    startQuery("entry", filter.getTermLength());
+    startSearch(filter);
+    List<Definition> list = null;
+    try
+    {
+      list = matchEntries(filter, limit);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries that match the filter, in dictionary
+   * order, using the indexes where they apply.
+   * 
+   * @param filter the filter for the entries
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries
+   */
+  private List<Definition> matchEntries(final EntryFilter filter,
+                                        final int limit)
+  {
+    // Check every entry if no index applies
+    final Candidates found = findEntries(filter);
+    Matches matches = new Matches(limit);
+    int examined = 0;
+    if (found == null)
+    {
+      final int size = dict.size();
+      for (; (examined < size) && (!matches.isFull()); ++examined)
+      {
+        if (filter.accept(dict.get(examined)))
+        {
+          matches.add(examined);
+        }
+      }
+      
+      metrics.addExamined(examined);
+      addStage("filter", examined, matches.getOffered());
+      return matches.toList();
+    }
+    
+    // Only check the entries from the indexes
+    if (isTracing())
+    {
+      addStage("index", dict.size(), found.ids.cardinality());
+    }
+    
+    for (int i = found.ids.nextSetBit(0);
+         (i >= 0) && (!matches.isFull()); i = found.ids.nextSetBit(i + 1))
+    {
+      ++examined;
+      if ((found.check == null) || (found.check.accept(dict.get(i))))
+      {
+        matches.add(i);
+      }
+    }
+    
+    metrics.addExamined(examined);
+    addStage("filter", examined, matches.getOffered());
+    return matches.toList();
+  }
+  
+  
+  /**
+   * Returns one page of the entries whose word matches the filter,
+   * in dictionary order.  See searchPage(EntryFilter, int, String).
+   * 
+   * @param wordFilter the filter for the word
+   * @param pageSize the maximum number of entries on the page
+   * @param token the token from the previous page, or null for the first
+   * @return the page of entries
+   */
+  public ResultPage searchPage(final TermFilter wordFilter,
+                               final int pageSize,
+                               final String token)
+  {
+    return searchPage(new FieldFilter(FieldFilter.WORD, wordFilter),
+                      wordFilter, pageSize, token);
+  }
+  
+  
+  /**
+   * Returns one page of the entries that match the filter, in
+   * dictionary order (with one entry for each term, if the
+   * matches are grouped by term).  The token for the next page
+   * holds the entry ID to go on from, so each page only checks
+   * the entries after the previous page, whether they come from
+   * the indexes or a scan.  The candidates for the page after
+   * the last one returned are kept, so asking for it with the
+   * same filter goes on from there without looking them up
+   * again; any other token still works, but looks them up.
+   * At most PAGE_SCAN_LIMIT entries are checked for one page,
+   * so a page can come back short.
+   * 
+   * @param filter the filter for the entries
+   * @param pageSize the maximum number of entries on the page
+   * @param token the token from the previous page, or null for the first
+   * @return the page of entries
+   */
+  public ResultPage searchPage(final EntryFilter filter,
+                               final int pageSize,
+                               final String token)
+  {
+    return searchPage(filter, filter, pageSize, token);
+  }
+  
+  
+  /**
+   * Returns one page of the entries that match the filter.
+   * 
+   * @param filter the filter for the entries
+   * @param key the filter the caller passed in
+   * @param pageSize the maximum number of entries on the page
+   * @param token the token from the previous page, or null for the first
+   * @return the page of entries
+   */
+  private ResultPage searchPage(final EntryFilter filter,
+                                final Object key,
+                                final int pageSize,
+                                final String token)
+  {
+    if (pageSize < 1)
+    {
+      throw new IllegalArgumentException("The page size must be positive");
+    }
+    
+    startQuery("page", filter.getTermLength());
+    startSearch(filter);
+    ResultPage page = null;
+    try
+    {
+      page = matchPage(filter, key, pageSize, token);
+      return page;
+    }
+    finally
+    {
+      endQuery((page == null) ? null : page.getEntries());
+    }
+  }
+  
+  
+  /**
+   * Returns one page of the entries that match the filter,
+   * going on from the scan for the last page if the token
+   * is the one it returned.
+   * 
+   * @param filter the filter for the entries
+   * @param key the filter the caller passed in
+   * @param pageSize the maximum number of entries on the page
+   * @param token the token from the previous page, or null for the first
+   * @return the page of entries
+   */
+  private ResultPage matchPage(final EntryFilter filter,
+                               final Object key,
+                               final int pageSize,
+                               final String token)
+  {
+    final int from = parseToken(token);
+    PageScan scan = nextPage.get();
+    if ((scan == null) || (scan.key != key) || (token == null) ||
+        (!token.equals(scan.token)) || (!nextPage.compareAndSet(scan, null)))
+    {
+      scan = new PageScan(filter, key);
+    }
+    
+    if ((scan.found != null) && (isTracing()))
+    {
+      addStage("index", dict.size(), scan.found.ids.cardinality());
+    }
+    
+    IntList ids = new IntList(Math.min(pageSize, 100));
+    int examined = 0;
+    int id = scan.next(from);
+    while ((id >= 0) && (ids.size() < pageSize) &&
+           (examined < PAGE_SCAN_LIMIT))
+    {
+      ++examined;
+      if ((scan.accept(id)) && ((!groupByTerm) || (scan.isFirstMatch(id))))
+      {
+        ids.add(id);
+      }
+      
+      id = scan.next(id + 1);
+    }
+    
+    metrics.addExamined(examined);
+    addStage("filter", examined, ids.size());
+    final String nextToken = ((id < 0) ? null : makeToken(id));
+    if (nextToken != null)
+    {
+      // Keep the scan for the next page
+      scan.token = nextToken;
+      nextPage.set(scan);
+    }
+    
+    return new ResultPage(new EntryList(dict, ids.toArray()), nextToken);
+  }
+  
+  
+  /**
+   * Returns the token for a page that starts at an entry ID.
+   * The token also holds the size of the dictionary, so a
+   * token for another dictionary isn't used by mistake.
+   * 
+   * @param id the entry ID to start the page at
+   * @return the token
+   */
+  private String makeToken(final int id)
+  {
+    return Integer.toString(id, TOKEN_RADIX) + "." +
+           Integer.toString(dict.size(), TOKEN_RADIX);
+  }
+  
+  
+  /**
+   * Returns the entry ID to start a page at.
+   * 
+   * @param token the token from the previous page, or null for the first
+   * @return the entry ID to start at
+   */
+  private int parseToken(final String token)
+  {
+    if (token == null)
+    {
+      return 0;
+    }
+    
+    final int dot = token.indexOf('.');
+    try
+    {
+      if ((dot > 0) &&
+          (Integer.parseInt(token.substring(dot + 1), TOKEN_RADIX) ==
+            dict.size()))
+      {
+        final int id = Integer.parseInt(token.substring(0, dot), TOKEN_RADIX);
+        if ((id >= 0) && (id <= dict.size()))
+        {
+          return id;
+        }
+      }
+    }
+    catch (NumberFormatException nfe)
+    {
+      // Fall through to the exception below
+    }
+    
+    throw new IllegalArgumentException("Invalid page token: " + token);
+  }
+  
+  
+  /**
+   * Returns the entries that could match the filter, and the
+   * part of the filter they still need to be checked against,
+   * or null if no index applies.
+   * 
+   * @param filter the filter for the entries
+   * @return the candidate entries, or null
+   */
+  private Candidates findEntries(final EntryFilter filter)
+  {
+    if (filter instanceof FieldFilter)
+    {
+      return findEntries((FieldFilter) filter);
+    }
+    else if (filter instanceof SpeechFilter)
+    {
+      // The part-of-speech index gives the exact matches
+      addIndex("SpeechIndex");
+      return new Candidates(findSpeechEntries((SpeechFilter) filter), null);
+    }
+    else if (filter instanceof AndFilter)
+    {
+      // Intersect the sets from the indexes, and check the rest
+      BitSet ids = null;
+      List<EntryFilter> rest = new ArrayList<EntryFilter>(4);
+      for (EntryFilter part : ((AndFilter) filter).getFilters())
+      {
+        final Candidates found =
+          (((ids != null) && (ids.isEmpty())) ? null : findEntries(part));
+        if (found == null)
+        {
+          rest.add(part);
+          continue;
+        }
+        
+        if (ids == null)
+        {
+          ids = found.ids;
+        }
+        else
+        {
+          ids.and(found.ids);
+        }
+        
+        if (found.check != null)
+        {
+          rest.add(found.check);
+        }
+      }
+      
+      if (ids == null)
+      {
+        return null;
+      }
+      
+      return new Candidates(ids, (rest.isEmpty() ? null : new AndFilter(rest)));
+    }
+    else if (filter instanceof OrFilter)
+    {
+      // Every part needs an index, so the union covers every match
+      BitSet ids = new BitSet(dict.size());
+      boolean exact = true;
+      for (EntryFilter part : ((OrFilter) filter).getFilters())
+      {
+        final Candidates found = findEntries(part);
+        if (found == null)
+        {
+          return null;
+        }
+        
+        ids.or(found.ids);
+        exact = (exact && (found.check == null));
+      }
+      
+      return new Candidates(ids, (exact ? null : filter));
+    }
+    else if (filter instanceof NotFilter)
+    {
+      // Only an exact set can be turned around
+      final Candidates found = findEntries(((NotFilter) filter).getFilter());
+      if ((found == null) || (found.check != null))
+      {
+        return null;
+      }
+      
+      found.ids.flip(0, dict.size());
+      return found;
+    }
+    
+    return null;
+  }
+  
+  
+  /**
+   * Returns the entries that could match a field filter, or
+   * null if no index applies.
+   * 
+   * @param filter the filter for one field
+   * @return the candidate entries, or null
+   */
+  private Candidates findEntries(final FieldFilter filter)
+  {
+    final TermFilter termFilter = filter.getFilter();
+    if (filter.getField() == FieldFilter.WORD)
+    {
+      // Use the indexes over the words
+      final int[] ids = getEntries(findCandidates(termFilter));
+      return ((ids == null) ? null : new Candidates(toBitSet(ids), filter));
+    }
+    else if ((filter.getField() == FieldFilter.DEFINITION) &&
+             (termFilter instanceof PhraseFilter))
+    {
+      // The definition index gives the exact matches
+      final List<String> phrases = ((PhraseFilter) termFilter).getPhrases();
+      if (phrases.isEmpty())
+      {
+        return null;
+      }
+      
+      addIndex("DefinitionIndex");
+      final int[] ids = dict.getDefinitionIndex().findAll(phrases);
+      return new Candidates(toBitSet(ids), null);
+    }
+    else if ((filter.getField() == FieldFilter.SPEECH) &&
+             (termFilter instanceof ExactMatchFilter) &&
+             (!((ExactMatchFilter) termFilter).isIgnoreCase()))
+    {
+      // A part of speech that was never seen matches nothing
+      final int code =
+        dict.findSpeechCode(((ExactMatchFilter) termFilter).getTerm());
+      if (code < 0)
+      {
+        return new Candidates(new BitSet(), null);
+      }
+      
+      // The entries with the shared code have to be checked by name
+      addIndex("SpeechIndex");
+      return new Candidates(
+        dict.getSpeechIndex().findEntries(new int[] {code}),
+        ((code == DictionaryData.OTHER_SPEECH) ? filter : null));
+    }
+    
+    return null;
+  }
+  
+  
+  /**
+   * Returns the IDs of the entries accepted by a filter for the
+   * part of speech.
+   * 
+   * @param speech the filter for the part of speech
+   * @return the entry IDs
+   */
+  private BitSet findSpeechEntries(final SpeechFilter speech)
+  {
+    final int[] codes = getSpeechCodes(speech);
+    BitSet ids = dict.getSpeechIndex().findEntries(codes);
+    if (hasOtherSpeech(codes))
+    {
+      // Drop the entries that only share the code
+      for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1))
+      {
+        if ((dict.getSpeechCode(i) == DictionaryData.OTHER_SPEECH) &&
+            (!speech.accept(dict.get(i))))
+        {
+          ids.clear(i);
+        }
+      }
+    }
+    
+    return ids;
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms with at least one sense
+   * accepted by a filter for the part of speech.
+   * 
+   * @param speech the filter for the part of speech
+   * @return the term IDs
+   */
+  private BitSet findSpeechTerms(final SpeechFilter speech)
+  {
+    final int[] codes = getSpeechCodes(speech);
+    if (!hasOtherSpeech(codes))
+    {
+      return dict.getSpeechIndex().findTerms(codes);
+    }
+    
+    // Find the terms from the entries that match by name
+    final BitSet ids = findSpeechEntries(speech);
+    BitSet terms = new BitSet(dict.getTermCount());
+    for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1))
+    {
+      terms.set(dict.getTermId(i));
+    }
+    
+    return terms;
+  }
+  
+  
+  /**
+   * Returns the codes in the dictionary for the parts of speech
+   * accepted by a filter.  Parts of speech that no entry has
+   * are left out.
+   * 
+   * @param speech the filter for the part of speech
+   * @return the codes
+   */
+  private int[] getSpeechCodes(final SpeechFilter speech)
+  {
+    final String[] speeches = speech.getSpeeches();
+    IntList codes = new IntList(speeches.length);
+    for (int i = 0; i < speeches.length; ++i)
+    {
+      final int code = dict.findSpeechCode(speeches[i]);
+      if (code >= 0)
+      {
+        codes.add(code);
+      }
+    }
+    
+    return codes.toArray();
+  }
+  
+  
+  /**
+   * Returns whether any of the codes is the one shared by the
+   * parts of speech that didn't get their own.
+   * 
+   * @param codes the codes for the parts of speech
+   * @return whether the shared code is included
+   */
+  private static boolean hasOtherSpeech(final int[] codes)
+  {
+    for (int i = 0; i < codes.length; ++i)
+    {
+      if (codes[i] == DictionaryData.OTHER_SPEECH)
+      {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Returns a set of entry IDs as a bit set.
+   * 
+   * @param ids the entry IDs
+   * @return the bit set
+   */
+  private BitSet toBitSet(final int[] ids)
+  {
+    BitSet set = new BitSet(dict.size());
+    for (int i = 0; i < ids.length; ++i)
+    {
+      set.set(ids[i]);
+    }
+    
+    return set;
+  }
+  
+  
+  /**
+   * Returns the entries whose definitions best match a free-text
+   * description (a reverse-dictionary lookup), ranked with BM25
+   * over the definition index, best first.
+   * 
+   * @param wordFilter the filter for the word (can be null)
+   * @param description the description to look up
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the matching entries, best first
+   */
+  public List<Definition> searchRanked(final TermFilter wordFilter,
+                                       final String description,
+                                       final int limit)
+  {
+    return searchRanked(wordFilter, description, limit, null);
+  }
+  
+  
+  /**
+   * Returns the entries whose definitions best match a free-text
+   * description, ranked as in the other searchRanked(), keeping
+   * only the entries whose part of speech is accepted by the
+   * speech filter.
+   * 
+   * @param wordFilter the filter for the word (can be null)
+   * @param description the description to look up
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param speech the filter for the part of speech (can be null)
+   * @return the matching entries, best first
+   */
+  public List<Definition> searchRanked(final TermFilter wordFilter,
+                                       final String description,
+                                       final int limit,
+                                       final SpeechFilter speech)
+  {
+    startQuery("ranked", getLength(description));
+    if (wordFilter != null)
+    {
+      startSearch(wordFilter);
+    }
+    
+    List<Definition> list = null;
+    try
+    {
+      list = matchRanked(wordFilter, description, limit, speech);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the entries whose definitions best match a free-text
+   * description, best first, keeping the best entry for each
+   * term if the matches are grouped.
+   * 
+   * @param wordFilter the filter for the word (can be null)
+   * @param description the description to look up
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @param speech the filter for the part of speech (can be null)
+   * @return the matching entries, best first
+   */
+  private List<Definition> matchRanked(final TermFilter wordFilter,
+                                       final String description,
+                                       final int limit,
+                                       final SpeechFilter speech)
+  {
+    List<EntryFilter> filters = new ArrayList<EntryFilter>(2);
+    if (speech != null)
+    {
+      filters.add(speech);
+    }
+    
+    if (wordFilter != null)
+    {
+      filters.add(new FieldFilter(FieldFilter.WORD, wordFilter));
+    }
+    
+    final EntryFilter filter = (filters.isEmpty() ? null :
+                                new AndFilter(filters));
+    final DefinitionIndex index = dict.getDefinitionIndex();
+    addIndex("DefinitionIndex");
+    int k = limit;
+    while (true)
+    {
+      // Keep the best entry for each term
+      final int[] ids = index.rank(description, filter, k);
+      metrics.addExamined(ids.length);
+      addStage("rank", -1, ids.length);
+      Matches found = new Matches(limit);
+      for (int i = 0; (i < ids.length) && (!found.isFull()); ++i)
+      {
+        found.add(ids[i]);
+      }
+      
+      // If senses of the same term took up the top entries, ask
+      // for more, until there are enough terms or no more entries
+      if ((k < 0) || (found.isFull()) || (ids.length < k))
+      {
+        return found.toList();
+      }
+      
+      k = ((k > (Integer.MAX_VALUE / 2)) ? -1 : (k * 2));
+    }
+  }
+  
+  
+  /**
+   * Returns the k terms closest to the word by edit distance,
+   * nearest first, as the first entry for each term.  Ties are
+   * broken in favor of terms with more senses, then shorter terms.
+   * 
+   * @param word the word to compare against
+   * @param matchCase whether to match the case of the characters
+   * @param k the number of terms to return, or -1 for all of them
+   * @return the first entry for each of the closest terms
+   */
+  public List<Definition> searchClosest(final String word,
+                                        final boolean matchCase,
+                                        final int k)
+  {
+    return searchClosest(word, matchCase, k, null);
+  }
+  
+  
+  /**
+   * Returns the k terms closest to the word by edit distance
+   * that have a sense with one of the parts of speech in the
+   * filter, nearest first, as the first such entry for each
+   * term.  Ties are broken as in searchClosest().
+   * 
+   * @param word the word to compare against
+   * @param matchCase whether to match the case of the characters
+   * @param k the number of terms to return, or -1 for all of them
+   * @param speech the filter for the part of speech (can be null)
+   * @return the first matching entry for each of the closest terms
+   */
+  public List<Definition> searchClosest(final String word,
+                                        final boolean matchCase,
+                                        final int k,
+                                        final SpeechFilter speech)
+  {
+    startQuery("closest", getLength(word));
+    List<Definition> list = null;
+    try
+    {
+      list = matchClosest(word, matchCase, k, speech);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the k terms closest to the word by edit distance
+   * that have a sense accepted by the speech filter.
+   * 
+   * @param word the word to compare against
+   * @param matchCase whether to match the case of the characters
+   * @param k the number of terms to return, or -1 for all of them
+   * @param speech the filter for the part of speech (can be null)
+   * @return the first matching entry for each of the closest terms
+   */
+  private List<Definition> matchClosest(final String word,
+                                        final boolean matchCase,
+                                        final int k,
+                                        final SpeechFilter speech)
+  {
+    final BitSet allowed =
+      ((speech == null) ? null : findSpeechTerms(speech));
+    final int[] termIds =
+      dict.getFuzzyIndex().closest(word, !matchCase, k, allowed);
+    if (allowed != null)
+    {
+      addIndex("SpeechIndex");
+    }
+    
+    addIndex("FuzzyIndex");
+    addStage("rank", -1, termIds.length);
+    int[] ids = new int[termIds.length];
+    for (int i = 0; i < termIds.length; ++i)
+    {
+      ids[i] = getFirstEntry(termIds[i], speech);
+    }
+    
+    addStage("entries", termIds.length, ids.length);
+    return new EntryList(dict, ids);
+  }
+  
+  
+  /**
+   * Returns the ID of the first entry for a term that matches
+   * the filter.
+   * 
+   * @param termId the term ID
+   * @param filter the filter for the entry (can be null)
+   * @return the ID of the first matching entry for the term, or
+   *         the first entry if none match
+   */
+  private int getFirstEntry(final int termId, final EntryFilter filter)
+  {
+    if (filter != null)
+    {
+      final int[] ids = dict.getEntries(new int[] {termId});
+      for (int i = 0; i < ids.length; ++i)
+      {
+        if (filter.accept(dict.get(ids[i])))
+        {
+          return ids[i];
+        }
+      }
+    }
+    
+    return dict.getFirstEntry(termId);
+  }
+  
+  
+  /**
+   * Returns the terms that can be formed from a rack of letters
+   * ('?' for a blank), longest first, as the first entry for
+   * each term.
+   * 
+   * @param letters the available letters
+   * @param limit the maximum number of matches, or -1 for no limit
+   * @return the first entry for each matching term
+   */
+  public List<Definition> searchFromLetters(final String letters,
+                                            final int limit)
+  {
+    startQuery("letters", getLength(letters));
+    List<Definition> list = null;
+    try
+    {
+      final int[] termIds =
+        dict.getLetterIndex().find(new SubAnagramFilter(letters));
+      addIndex("LetterIndex");
+      addStage("lookup", -1, termIds.length);
+      final int size = ((limit < 0) ? termIds.length
+                                    : Math.min(limit, termIds.length));
+      int[] ids = new int[size];
+      for (int i = 0; i < size; ++i)
+      {
+        ids[i] = dict.getFirstEntry(termIds[i]);
+      }
+      
+      addStage("entries", termIds.length, size);
+      list = new EntryList(dict, ids);
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns a search for phrases of up to maxWords words whose
+   * letters together are an anagram of the input.  The caller
+   * runs the search, and can cancel it from another thread.
+   * 
+   * @param letters the letters to rearrange
+   * @param maxWords the maximum number of words in a phrase
+   * @param minLength the minimum number of letters in each word
+   * @param limit the maximum number of phrases
+   * @return the search
+   */
+  public AnagramSearch newPhraseAnagramSearch(final String letters,
+                                              final int maxWords,
+                                              final int minLength,
+                                              final int limit)
+  {
+    return new AnagramSearch(dict.getAnagramIndex(), letters, maxWords,
+                             minLength, limit);
+  }
+  
+  
+  /**
+   * Returns phrases of up to maxWords words whose letters together
+   * are an anagram of the input, searching with one thread per
+   * processor.
+   * 
+   * @param letters the letters to rearrange
+   * @param maxWords the maximum number of words in a phrase
+   * @param minLength the minimum number of letters in each word
+   * @param limit the maximum number of phrases
+   * @param timeLimit the maximum time to search, in milliseconds (0 for none)
+   * @return the phrases found
+   */
+  public List<String> searchPhraseAnagrams(final String letters,
+                                           final int maxWords,
+                                           final int minLength,
+                                           final int limit,
+                                           final long timeLimit)
+  {
+    return searchPhraseAnagrams(letters,
+        newPhraseAnagramSearch(letters, maxWords, minLength, limit),
+        timeLimit);
+  }
+  
+  
+  /**
+   * Run a search from newPhraseAnagramSearch(), with one thread
+   * per processor, counting it in the metrics (and the trace on
+   * this thread) as a phrase anagram search.  The search can be
+   * cancelled from another thread, which returns the phrases
+   * found so far.
+   * 
+   * @param letters the letters to rearrange
+   * @param search the search for the letters
+   * @param timeLimit the maximum time to search, in milliseconds (0 for none)
+   * @return the phrases found
+   */
+  public List<String> searchPhraseAnagrams(final String letters,
+                                           final AnagramSearch search,
+                                           final long timeLimit)
+  {
+    startQuery("phrase", getLength(letters));
+    List<String> list = null;
+    try
+    {
+      list = search.run(timeLimit, Runtime.getRuntime().availableProcessors());
+      addIndex("AnagramIndex");
+      addStage("search", -1, list.size());
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+  
+  
+  /**
+   * Returns the n terms that best complete a partially typed
+   * word (ignoring case), favoring terms with more senses.
+   * 
+   * @param prefix the partially typed word
+   * @param n the maximum number of completions
+   * @return the completions, best first
+   */
+  public List<String> complete(final String prefix, final int n)
+  {
+    startQuery("complete", getLength(prefix));
+    List<String> list = null;
+    try
+    {
+      final int[] termIds = dict.getCompletionTrie().complete(prefix, n);
+      addIndex("CompletionTrie");
+      addStage("lookup", -1, termIds.length);
+      List<String> terms = new ArrayList<String>(termIds.length);
+      for (int i = 0; i < termIds.length; ++i)
+      {
+        terms.add(dict.getTerm(termIds[i]));
+      }
+      
+      list = terms;
+      return list;
+    }
+    finally
+    {
+      endQuery(list);
+    }
+  }
+}
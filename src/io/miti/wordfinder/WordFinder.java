@@ -32,10 +32,19 @@ import io.miti.ui.component.Factory;
 import io.miti.ui.panel.SimpleInternalFrame;
 import io.miti.wordfinder.filter.AnagramFilter;
 import io.miti.wordfinder.filter.ContainsFilter;
+import io.miti.wordfinder.filter.LetterPatternFilter;
 import io.miti.wordfinder.filter.RegexFilter;
+import io.miti.wordfinder.filter.RegexTimeoutException;
+import io.miti.wordfinder.filter.SimilarFilter;
 import io.miti.wordfinder.filter.SoundFilter;
+import io.miti.wordfinder.filter.SpeechFilter;
+import io.miti.wordfinder.filter.SubAnagramFilter;
 import io.miti.wordfinder.filter.TermFilter;
 import io.miti.wordfinder.filter.WildcardFilter;
+import io.miti.wordfinder.index.AnagramSearch;
+import io.miti.wordfinder.metrics.FilterEvent;
+import io.miti.wordfinder.metrics.Metrics;
+import io.miti.wordfinder.metrics.PublishEvent;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
@@ -49,15 +58,17 @@ import java.awt.event.ComponentListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
-import java.io.BufferedReader;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.IOException;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -71,13 +82,13 @@ import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.border.TitledBorder;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Style;
-import javax.swing.text.StyleConstants;
-import javax.swing.text.StyleContext;
 import javax.swing.text.StyledDocument;
 
 /**
@@ -127,6 +138,26 @@ public final class WordFinder implements ComponentListener, ItemListener
    */
   private JRadioButton btnContains = null;
   
+  /**
+   * Radio button for a search for the closest terms.
+   */
+  private JRadioButton btnClosest = null;
+  
+  /**
+   * Radio button for a search for words made from a set of letters.
+   */
+  private JRadioButton btnLetters = null;
+  
+  /**
+   * Radio button for a multi-word anagram search.
+   */
+  private JRadioButton btnPhrase = null;
+  
+  /**
+   * Radio button for a letter pattern (cryptogram) search.
+   */
+  private JRadioButton btnPattern = null;
+  
   /**
    * Checkbox to limit the number of matches.
    */
@@ -137,6 +168,42 @@ public final class WordFinder implements ComponentListener, ItemListener
    */
   private JCheckBox cbCase = null;
   
+  /**
+   * Checkbox to rank the results of a definition search.
+   */
+  private JCheckBox cbRank = null;
+  
+  /**
+   * Checkbox to show one row for each term.
+   */
+  private JCheckBox cbGroup = null;
+  
+  /**
+   * Checkbox to show the trace of each search in the details.
+   */
+  private JCheckBox cbExplain = null;
+  
+  /**
+   * The trace of the last search, if it was explained.
+   */
+  private QueryTrace queryTrace = null;
+  
+  /**
+   * The part of speech to limit matches to.
+   */
+  private JComboBox<String> cmbSpeech = null;
+  
+  /**
+   * The names of the parts of speech in cmbSpeech.
+   */
+  private static final String[] speechNames =
+    {"Any", "Noun", "Verb", "Adjective", "Adverb"};
+  
+  /**
+   * The part-of-speech codes for the entries in cmbSpeech.
+   */
+  private static final String[] speechCodes = {null, "n", "v", "a", "r"};
+  
   /**
    * Text field that has the maximum number of matches
    * to return (enabled if cbLimit is checked).
@@ -161,6 +228,48 @@ public final class WordFinder implements ComponentListener, ItemListener
    */
   private static final int nInitialLimitValue = 20;
   
+  /**
+   * The number of terms to return for a Closest search
+   * when the number of matches isn't limited.
+   */
+  private static final int nDefaultClosestCount = 100;
+  
+  /**
+   * The maximum edit distance for a Closest search
+   * combined with a definition search.
+   */
+  private static final int nClosestDistance = 2;
+  
+  /**
+   * The maximum number of words in a phrase for
+   * a Phrase Anagram search.
+   */
+  private static final int nPhraseMaxWords = 4;
+  
+  /**
+   * The minimum number of letters in each word of
+   * a Phrase Anagram search.
+   */
+  private static final int nPhraseMinLength = 2;
+  
+  /**
+   * The maximum number of phrases for a Phrase Anagram
+   * search when the number of matches isn't limited.
+   */
+  private static final int nPhraseDefaultCount = 1000;
+  
+  /**
+   * The delay, in milliseconds, before showing the details of
+   * the selected row, so the details aren't built for every
+   * row passed when moving quickly through the results.
+   */
+  private static final int nDetailsDelay = 60;
+  
+  /**
+   * The maximum time for a Phrase Anagram search, in milliseconds.
+   */
+  private static final long nPhraseTimeLimit = 10000L;
+  
   /**
    * The results table model.
    */
@@ -196,6 +305,170 @@ public final class WordFinder implements ComponentListener, ItemListener
    */
   private List<Definition> listData = null;  
   
+  /**
+   * Whether the search results have one row for each term.
+   */
+  private boolean bGroupedResults = false;
+  
+  /**
+   * The search engine (null until the first search).
+   */
+  private SearchEngine searchEngine = null;
+  
+  /**
+   * The drop-down list of completions for the word field.
+   */
+  private AutoCompleter completer = null;
+  
+  /**
+   * Builds (and caches) the documents for the details pane.
+   */
+  private DetailsRenderer detailsRenderer = null;
+  
+  /**
+   * Timer to show the details once the selection stops changing.
+   */
+  private Timer detailsTimer = null;
+  
+  /**
+   * The phrase anagram search running in the background, if any.
+   */
+  private PhraseSearch phraseSearch = null;
+  
+  
+  /**
+   * Runs a phrase anagram search in the background, while the
+   * word search button cancels it, and shows the phrases when
+   * the search ends.
+   */
+  private final class PhraseSearch extends SwingWorker<List<String>, Object>
+  {
+    /**
+     * The search engine.
+     */
+    private final SearchEngine engine;
+    
+    /**
+     * The letters to rearrange.
+     */
+    private final String letters;
+    
+    /**
+     * The maximum number of phrases.
+     */
+    private final int limit;
+    
+    /**
+     * The name of the search mode, for the metrics.
+     */
+    private final String mode;
+    
+    /**
+     * The search, once it's been created.
+     */
+    private volatile AnagramSearch search = null;
+    
+    /**
+     * Whether the user cancelled the search.
+     */
+    private volatile boolean cancelled = false;
+    
+    /**
+     * The trace of the search, in explain mode.
+     */
+    private volatile QueryTrace trace = null;
+    
+    
+    /**
+     * Create the search.
+     * 
+     * @param searchEngine the search engine
+     * @param sLetters the letters to rearrange
+     * @param nLimit the maximum number of phrases
+     * @param sMode the name of the search mode
+     */
+    public PhraseSearch(final SearchEngine searchEngine,
+                        final String sLetters,
+                        final int nLimit,
+                        final String sMode)
+    {
+      super();
+      engine = searchEngine;
+      letters = sLetters;
+      limit = nLimit;
+      mode = sMode;
+    }
+    
+    
+    /**
+     * Run the search.
+     * 
+     * @return the phrases found
+     */
+    @Override
+    protected List<String> doInBackground()
+    {
+      try
+      {
+        search = engine.newPhraseAnagramSearch(letters, nPhraseMaxWords,
+                                               nPhraseMinLength, limit);
+        if (cancelled)
+        {
+          search.cancel();
+        }
+        
+        return engine.searchPhraseAnagrams(letters, search, nPhraseTimeLimit);
+      }
+      finally
+      {
+        // The trace is kept for the thread that ran the search
+        trace = (engine.isExplain() ? engine.getLastTrace() : null);
+      }
+    }
+    
+    
+    /**
+     * Stop the search, keeping the phrases found so far.
+     */
+    public void stop()
+    {
+      cancelled = true;
+      final AnagramSearch current = search;
+      if (current != null)
+      {
+        current.cancel();
+      }
+    }
+    
+    
+    /**
+     * Show the phrases found.
+     */
+    @Override
+    protected void done()
+    {
+      phraseSearch = null;
+      setSearching(false);
+      
+      try
+      {
+        listData = toPhraseRows(letters, get());
+      }
+      catch (InterruptedException ie)
+      {
+        listData = null;
+      }
+      catch (ExecutionException ee)
+      {
+        listData = null;
+        writeErr("The phrase anagram search failed: " + ee.getCause());
+      }
+      
+      queryTrace = trace;
+      showResults(mode, letters.length(), false);
+    }
+  }
+  
   
   /**
    * Default constructor.
@@ -230,6 +503,44 @@ public final class WordFinder implements ComponentListener, ItemListener
     m_appFrame.pack();
     m_appFrame.setVisible(true);
     tfWord.requestFocusInWindow();
+    
+    // Start loading the data
+    preloadDictionary();
+  }
+  
+  
+  /**
+   * Load the dictionary and the completion trie on a background
+   * thread, so completions are ready as soon as possible.  Any
+   * error is reported when the user runs a search.
+   */
+  private void preloadDictionary()
+  {
+    Thread loader = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        try
+        {
+          final DictionaryData dict = DictionaryData.getInstance();
+          dict.getCompletionTrie();
+          javax.swing.SwingUtilities.invokeLater(new Runnable()
+          {
+            public void run()
+            {
+              setSearchEngine(dict);
+            }
+          });
+        }
+        catch (IOException ioe)
+        {
+          // Reported on the first search
+          writeErr("Unable to preload the dictionary: " + ioe.getMessage());
+        }
+      }
+    }, "WordFinder-loader");
+    loader.setDaemon(true);
+    loader.start();
   }
   
   
@@ -317,6 +628,7 @@ public final class WordFinder implements ComponentListener, ItemListener
     c.gridwidth = 1;
     
     tfWord = new JTextField(12);
+    completer = new AutoCompleter(tfWord);
     panel.add(tfWord, c);
     
     c.insets = new Insets(2, 3, 3, 3);
@@ -476,6 +788,13 @@ public final class WordFinder implements ComponentListener, ItemListener
    */
   private void searchByWord(final ActionEvent evt)
   {
+    // While a phrase anagram search runs, the button cancels it
+    if (phraseSearch != null)
+    {
+      phraseSearch.stop();
+      return;
+    }
+    
     // Create the search filter for the term
     final TermFilter filter =
       getSearchFilter(tfWord.getText(), getCaseMatching());
@@ -497,12 +816,9 @@ public final class WordFinder implements ComponentListener, ItemListener
     final TermFilter wordFilter =
       getSearchFilter(tfWord.getText(), getCaseMatching());
     
-    // The definition filter is always a Contains filter
-    final TermFilter defFilter =
-      new ContainsFilter(tfDef.getText(), !getCaseMatching());
-    
-    // Perform the search
-    performSearch(wordFilter, defFilter);
+    // Perform the search; the definition text is looked
+    // up in the definition index
+    performSearch(wordFilter, tfDef.getText());
   }
   
   
@@ -510,20 +826,20 @@ public final class WordFinder implements ComponentListener, ItemListener
    * Perform a search.
    * 
    * @param wordFilter the filter for the word
-   * @param defFilter the filter for the definition
+   * @param defQuery the words and phrases to find in the definition
+   *                 (null to search on the word only)
    */
   private void performSearch(final TermFilter wordFilter,
-                             final TermFilter defFilter)
+                             final String defQuery)
   {
     // Clear the list of results
     resultsModel.setRowData(null);
-    resultsModel.fireTableDataChanged();
+    fireResultsChanged();
     
-    if (listData != null)
-    {
-      listData.clear();
-      listData = null;
-    }
+    // The results can be a read-only view of the dictionary,
+    // so drop them instead of clearing them
+    listData = null;
+    queryTrace = null;
     
     // Clear the detail pane
     updateDetailsPane(0);
@@ -536,27 +852,52 @@ public final class WordFinder implements ComponentListener, ItemListener
         java.awt.Cursor.WAIT_CURSOR));
     
     // Do the search
-    searchMatches(wordFilter, defFilter);
+    final boolean bDone = searchMatches(wordFilter, defQuery);
     
     // Restore the cursor
     m_appFrame.setCursor(currCursor);
     
-    // Check for no data
-    if (listData == null)
+    // Show the results, unless the search is running in the background
+    if (bDone)
     {
+      showResults(getSearchMode(wordFilter, defQuery),
+                  tfWord.getText().length(),
+                  ((defQuery == null) && (btnClosest.isSelected())));
+    }
+  }
+  
+  
+  /**
+   * Show the results of a search in the table.
+   * 
+   * @param mode the name of the search mode, for the metrics
+   * @param termLength the length of the search term, for the metrics
+   * @param bDistance whether to show the distance from the search term
+   */
+  private void showResults(final String mode,
+                           final int termLength,
+                           final boolean bDistance)
+  {
+    // Check for no data, showing the trace if there is one
+    if ((listData == null) || (listData.isEmpty()))
+    {
+      updateDetailsPane(-1);
       return;
     }
     
-    // Check the size and return if the data set is empty
     final int nSize = listData.size();
-    if (nSize < 1)
+    
+    // Populate the listbox, showing the distance from the
+    // search term for the closest matches
+    PublishEvent event = new PublishEvent();
+    event.begin();
+    resultsModel.setRowData(listData, bGroupedResults);
+    if (bDistance)
     {
-      return;
+      resultsModel.setDistanceWord(tfWord.getText(), !getCaseMatching());
     }
     
-    // Populate the listbox
-    resultsModel.setRowData(listData);
-    resultsModel.fireTableDataChanged();
+    fireResultsChanged();
     
     // Select the first item and update the detail pane
     ListSelectionModel lsm = tableResults.getSelectionModel();
@@ -565,20 +906,60 @@ public final class WordFinder implements ComponentListener, ItemListener
     
     // Make sure the first row is visible
     tableResults.scrollRectToVisible(tableResults.getCellRect(0, 0, true));
+    if (event.shouldCommit())
+    {
+      event.setResults(mode, termLength, nSize);
+      event.commit();
+    }
     
     // Set the focus on the table
     tableResults.requestFocusInWindow();
   }
   
   
+  /**
+   * Returns the name of the search mode, as used for the
+   * search metrics.
+   * 
+   * @param wordFilter the user's input string filter
+   * @param defQuery the user's input definition string (can be null)
+   * @return the name of the search mode
+   */
+  private String getSearchMode(final TermFilter wordFilter,
+                               final String defQuery)
+  {
+    if (defQuery != null)
+    {
+      return (cbRank.isSelected() ? "ranked" : "definition");
+    }
+    else if (btnClosest.isSelected())
+    {
+      return "closest";
+    }
+    else if (btnPhrase.isSelected())
+    {
+      return "phrase";
+    }
+    else if (btnLetters.isSelected())
+    {
+      return "letters";
+    }
+    
+    return ((wordFilter == null) ? "" : SearchEngine.getMode(wordFilter));
+  }
+  
+  
   /**
    * Search for matches against the user's search criteria.
+   * A phrase anagram search is started in the background,
+   * and shows its results when it ends.
    * 
    * @param wordFilter the user's input string filter
-   * @param defFilter the user's input definition filter
+   * @param defQuery the user's input definition string (can be null)
+   * @return whether the results are ready to show
    */
-  private void searchMatches(final TermFilter wordFilter,
-                             final TermFilter defFilter)
+  private boolean searchMatches(final TermFilter wordFilter,
+                                final String defQuery)
   {
     // Get the search parameters
     final boolean bLimitCap = getMatchLimiting();
@@ -589,113 +970,165 @@ public final class WordFinder implements ComponentListener, ItemListener
     if ((bLimitCap) && (nLimitCap < 1))
     {
       // The user entered a limit less than one, so return
-      return;
+      return true;
     }
     
-    // Set up a list to hold the results
-    listData = new ArrayList<Definition>(100);
+    // Get the search engine (this loads the dictionary on
+    // the first search)
+    final SearchEngine engine = getSearchEngine();
+    if (engine == null)
+    {
+      return true;
+    }
     
-    // Set up a counter to record how many hits we have so far
-    int nCount = 0;
+    // Get the part of speech to limit matches to (null for any)
+    final SpeechFilter speech = getSpeechFilter();
     
-    // Declare the file reader
-    BufferedReader in = null;
+    // Show one row for each term, unless the rows are phrases
+    bGroupedResults = ((cbGroup.isSelected()) &&
+                       ((defQuery != null) || (!btnPhrase.isSelected())));
+    engine.setGroupByTerm(bGroupedResults);
+    engine.setExplain(cbExplain.isSelected());
     
-    // This is the name of the input file
-    final String sInfile = "/dictionary.sml";
+    // Phrase anagrams can take a while to find, so search for
+    // them in the background, and let the user cancel
+    if ((defQuery == null) && (btnPhrase.isSelected()))
+    {
+      phraseSearch = new PhraseSearch(engine, tfWord.getText(),
+          (bLimitCap ? nLimitCap : nPhraseDefaultCount),
+          getSearchMode(wordFilter, defQuery));
+      setSearching(true);
+      phraseSearch.execute();
+      return false;
+    }
     
-    // Read the file and search for matches
+    // Run the search (a regular expression can run out of time)
     try
     {
-      // Read the dictionary file from the jar file
-      java.io.InputStream is = getClass().getResourceAsStream(sInfile);
-      if (is == null)
+      if ((defQuery == null) && (btnClosest.isSelected()))
       {
-        // The input file was not found
-        JOptionPane.showMessageDialog(null,
-            "Error: Unable to read the dictionary file (" + sInfile + ")");
+        listData = engine.searchClosest(tfWord.getText(), getCaseMatching(),
+            (bLimitCap ? nLimitCap : nDefaultClosestCount), speech);
+      }
+      else if ((defQuery == null) && (btnLetters.isSelected()))
+      {
+        listData = engine.searchFromLetters(tfWord.getText(), nLimitCap);
+      }
+      else if (defQuery == null)
+      {
+        listData = engine.search(wordFilter, nLimitCap, speech);
+      }
+      else if (cbRank.isSelected())
+      {
+        listData = engine.searchRanked(wordFilter, defQuery, nLimitCap,
+                                       speech);
       }
       else
       {
-        // Open a reader to the input file stream
-        in = new BufferedReader(new java.io.InputStreamReader(is));
-        
-        // Read each line from the input file and parse it
-        String str;
-        while ((str = in.readLine()) != null)
-        {
-          // Build the object from the line
-          final Definition term = Definition.buildFromLine(str);
-          
-          // Check for a match
-          if (matchOnSearch(wordFilter, defFilter, term))
-          {
-            // Add the match
-            listData.add(term);
-            ++nCount;
-            
-            // Check if we exceeded the limit
-            if ((bLimitCap) && (nCount >= nLimitCap))
-            {
-              break;
-            }
-          }
-        }
-        
-        // Close the input file
-        in.close();
-        in = null;
+        listData = engine.searchByDefinition(wordFilter, defQuery,
+                                   getCaseMatching(), nLimitCap, speech);
       }
     }
-    catch (IOException ioe)
+    catch (RegexTimeoutException rte)
     {
-      JOptionPane.showMessageDialog(null,
-          "Error reading the dictionary file (" + sInfile + "): " +
-          ioe.getMessage());
+      listData = null;
+      JOptionPane.showMessageDialog(m_appFrame, rte.getMessage() +
+          ".  Try a pattern with fewer nested repeats.");
     }
     finally
     {
-      if (in != null)
-      {
-        try
-        {
-          in.close();
-        }
-        catch(IOException e)
-        {
-          in = null;
-        }
-        
-        in = null;
-      }
+      // Keep the trace to show in the details pane
+      queryTrace = (engine.isExplain() ? engine.getLastTrace() : null);
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Turn the word search button into a Cancel button while
+   * a phrase anagram search runs, and back again.
+   * 
+   * @param bSearching whether a search is running
+   */
+  private void setSearching(final boolean bSearching)
+  {
+    if (bSearching)
+    {
+      btnSearchWord.setText("Cancel");
+      btnSearchWord.setToolTipText(
+          "Stop the search and show the phrases found so far");
+    }
+    else
+    {
+      btnSearchWord.setText("Go");
+      btnSearchWord.setToolTipText("Search for a match on the term");
     }
+    
+    btnSearchDef.setEnabled(!bSearching);
   }
   
   
   /**
-   * Returns whether the two terms match.
+   * Build a row for the results table for each anagram phrase.
    * 
-   * @param wordFilter the filter for the search word
-   * @param defFilter the filter for the search definition
-   * @param term the term from the data source
-   * @return whether the term matches the user's search criteria
-   */
-  private boolean matchOnSearch(final TermFilter wordFilter,
-                                final TermFilter defFilter,
-                                final Definition term)
+   * @param letters the letters that were rearranged
+   * @param phrases the list of phrases
+   * @return the list of rows
+   */
+  private static List<Definition> toPhraseRows(final String letters,
+                                               final List<String> phrases)
   {
-    // Get the result of the word filter
-    boolean result = wordFilter.accept(term.getWord());
+    final String desc = "Anagram of \"" + letters + "\"";
+    List<Definition> rows = new java.util.ArrayList<Definition>(phrases.size());
+    for (String phrase : phrases)
+    {
+      rows.add(new Definition(phrase, "", desc));
+    }
     
-    // Check the definition filter if there is one and
-    // the word filter passed
-    if ((result) && (defFilter != null))
+    return rows;
+  }
+  
+  
+  /**
+   * Create the search engine for the dictionary, if it
+   * hasn't been created yet, and enable completions.
+   * 
+   * @param dict the loaded dictionary
+   */
+  private void setSearchEngine(final DictionaryData dict)
+  {
+    if (searchEngine == null)
+    {
+      searchEngine = new SearchEngine(dict);
+      completer.setEngine(searchEngine);
+    }
+  }
+  
+  
+  /**
+   * Returns the search engine, loading the dictionary if
+   * this is the first search.
+   * 
+   * @return the search engine, or null if the dictionary can't be read
+   */
+  private SearchEngine getSearchEngine()
+  {
+    if (searchEngine == null)
     {
-      result = defFilter.accept(term.getDef());
+      try
+      {
+        setSearchEngine(DictionaryData.getInstance());
+      }
+      catch (IOException ioe)
+      {
+        JOptionPane.showMessageDialog(null,
+            "Error reading the dictionary file (" +
+            DictionaryData.DEFAULT_RESOURCE + "): " + ioe.getMessage());
+      }
     }
     
-    // Return the result
-    return result;
+    return searchEngine;
   }
 
 
@@ -775,6 +1208,69 @@ public final class WordFinder implements ComponentListener, ItemListener
     panelMaxValue.add(tfMaxValue);
     panel.add(panelMaxValue, c);
     
+    c.insets = new Insets(3, 20, 0, 3);
+    c.gridx = 0;
+    c.gridy = 3;
+    c.gridwidth = 1;
+    c.anchor = GridBagConstraints.WEST;
+    
+    // Add a checkbox to rank definition matches by relevance
+    cbRank = new JCheckBox("Rank by Definition?");
+    cbRank.setMnemonic(KeyEvent.VK_K);
+    cbRank.setToolTipText("<html>Whether to show the terms whose definitions " +
+        "best match<br>the definition text first (any word can match)");
+    cbRank.setSelected(false);
+    panel.add(cbRank, c);
+    
+    c.insets = new Insets(3, 20, 0, 3);
+    c.gridx = 0;
+    c.gridy = 4;
+    c.gridwidth = 1;
+    c.anchor = GridBagConstraints.WEST;
+    
+    // Add a checkbox to show one row for each term
+    cbGroup = new JCheckBox("Group Senses?");
+    cbGroup.setMnemonic(KeyEvent.VK_U);
+    cbGroup.setToolTipText("<html>Whether to show one row for each term, " +
+        "with all its<br>senses in the details (the limit counts terms)");
+    cbGroup.setSelected(true);
+    panel.add(cbGroup, c);
+    
+    c.insets = new Insets(3, 20, 0, 3);
+    c.gridx = 0;
+    c.gridy = 5;
+    c.gridwidth = 1;
+    c.anchor = GridBagConstraints.WEST;
+    
+    // Add a checkbox to show how each search ran
+    cbExplain = new JCheckBox("Explain Searches?");
+    cbExplain.setMnemonic(KeyEvent.VK_I);
+    cbExplain.setToolTipText("<html>Whether to show the indexes used, and " +
+        "the candidates,<br>time and memory of each stage, in the details");
+    cbExplain.setSelected(false);
+    panel.add(cbExplain, c);
+    
+    // Add the list of parts of speech to limit matches to
+    JLabel label2 = new JLabel("Word Type: ");
+    label2.setDisplayedMnemonic(KeyEvent.VK_Y);
+    
+    c.insets = new Insets(3, 20, 0, 3);
+    c.gridx = 0;
+    c.gridy = 6;
+    c.gridwidth = 1;
+    c.anchor = GridBagConstraints.WEST;
+    
+    cmbSpeech = new JComboBox<String>(speechNames);
+    label2.setLabelFor(cmbSpeech);
+    cmbSpeech.setToolTipText("<html>Only match senses with this part of " +
+        "speech<br>(not used for letters or phrase anagrams)");
+    cmbSpeech.setSelectedIndex(0);
+    
+    JPanel panelSpeech = new JPanel(new GridLayout(1, 2));
+    panelSpeech.add(label2);
+    panelSpeech.add(cmbSpeech);
+    panel.add(panelSpeech, c);
+    
     // Add the Search Options group box
     JPanel subPanel = new JPanel(new GridLayout(0, 1));
     TitledBorder titledBorder =
@@ -788,6 +1284,10 @@ public final class WordFinder implements ComponentListener, ItemListener
     btnWildcard = new JRadioButton("Wildcard (*, ?)");
     btnRegex = new JRadioButton("Regular Expression");
     btnSoundex = new JRadioButton("Soundex");
+    btnClosest = new JRadioButton("Closest Match");
+    btnLetters = new JRadioButton("From Letters (?, blank)");
+    btnPhrase = new JRadioButton("Phrase Anagram");
+    btnPattern = new JRadioButton("Letter Pattern");
     
     btnContains.setMnemonic(KeyEvent.VK_C);
     btnContains.setToolTipText("Match if the data contains the search term");
@@ -805,6 +1305,23 @@ public final class WordFinder implements ComponentListener, ItemListener
     btnAnagram.setMnemonic(KeyEvent.VK_A);
     btnAnagram.setToolTipText("Match if the data is an anagram of the search term");
     
+    btnClosest.setMnemonic(KeyEvent.VK_T);
+    btnClosest.setToolTipText("<html>Show the terms closest to the search term " +
+            "(fewest<br>changed letters), up to the maximum number of matches");
+    
+    btnLetters.setMnemonic(KeyEvent.VK_F);
+    btnLetters.setToolTipText("<html>Match terms that can be spelled with the " +
+            "letters in the<br>search term, longest first ('?' is a blank)");
+    
+    btnPhrase.setMnemonic(KeyEvent.VK_H);
+    btnPhrase.setToolTipText("<html>Find phrases of up to " + nPhraseMaxWords +
+            " words that together<br>are an anagram of the search term");
+    
+    btnPattern.setMnemonic(KeyEvent.VK_N);
+    btnPattern.setToolTipText("<html>Match terms with the same pattern of " +
+            "repeated letters<br>(xyzzy matches lotto); add known letters " +
+            "after<br>a colon, using '?' for the others (xyzzy:?o???)");
+    
     // Set the default (wildcard)
     btnContains.setSelected(true);
     
@@ -813,16 +1330,24 @@ public final class WordFinder implements ComponentListener, ItemListener
     bgOptions.add(btnRegex);
     bgOptions.add(btnSoundex);
     bgOptions.add(btnAnagram);
+    bgOptions.add(btnClosest);
+    bgOptions.add(btnLetters);
+    bgOptions.add(btnPhrase);
+    bgOptions.add(btnPattern);
     
     subPanel.add(btnContains);
     subPanel.add(btnWildcard);
     subPanel.add(btnRegex);
     subPanel.add(btnSoundex);
     subPanel.add(btnAnagram);
+    subPanel.add(btnClosest);
+    subPanel.add(btnLetters);
+    subPanel.add(btnPhrase);
+    subPanel.add(btnPattern);
     
     c.insets = new Insets(11, 25, 11, 3);
     c.gridx = 0;
-    c.gridy = 3;
+    c.gridy = 7;
     c.gridwidth = 1;
     c.anchor = GridBagConstraints.NORTHWEST;
     c.weighty = 1.0;
@@ -881,6 +1406,19 @@ public final class WordFinder implements ComponentListener, ItemListener
     });
 
     
+    // Sort the results when a column header is clicked
+    tableResults.getTableHeader().addMouseListener(new MouseAdapter() {
+      public void mouseClicked(final MouseEvent e)
+      {
+        final JTableHeader header = tableResults.getTableHeader();
+        final int col = header.columnAtPoint(e.getPoint());
+        if (col >= 0)
+        {
+          sortResults(tableResults.convertColumnIndexToModel(col));
+        }
+      }
+    });
+    
     JScrollPane scrollPane = new JScrollPane(tableResults);
     results.add(scrollPane);
     
@@ -892,6 +1430,60 @@ public final class WordFinder implements ComponentListener, ItemListener
   }
   
   
+  /**
+   * Sort the results by a column, keeping the same row selected.
+   * 
+   * @param col the column to sort by (in the model)
+   */
+  private void sortResults(final int col)
+  {
+    if (resultsModel.getRowCount() < 1)
+    {
+      return;
+    }
+    
+    // Save the selected row's position in the results
+    final int selected = tableResults.getSelectedRow();
+    final int dataRow =
+      ((selected < 0) ? -1 : resultsModel.toDataRow(selected));
+    
+    resultsModel.sortByColumn(col);
+    fireResultsChanged();
+    
+    // Select the same row at its new position
+    if (dataRow >= 0)
+    {
+      final int row = resultsModel.toViewRow(dataRow);
+      tableResults.getSelectionModel().setSelectionInterval(row, row);
+      tableResults.scrollRectToVisible(tableResults.getCellRect(row, 0, true));
+    }
+  }
+  
+  
+  /**
+   * Tell the results table that its data changed, and update
+   * the column headers (for the columns shown, and which
+   * column the rows are sorted by).
+   */
+  private void fireResultsChanged()
+  {
+    if (tableResults.getColumnCount() != resultsModel.getColumnCount())
+    {
+      resultsModel.fireTableStructureChanged();
+      return;
+    }
+    
+    resultsModel.fireTableDataChanged();
+    for (int i = 0; i < tableResults.getColumnCount(); ++i)
+    {
+      TableColumn column = tableResults.getColumnModel().getColumn(i);
+      column.setHeaderValue(resultsModel.getColumnName(column.getModelIndex()));
+    }
+    
+    tableResults.getTableHeader().repaint();
+  }
+  
+  
   /**
    * Notification that the row changed.
    * 
@@ -912,15 +1504,29 @@ public final class WordFinder implements ComponentListener, ItemListener
     }
     else
     {
-      // Update the results page with info on the selected item
-      int selectedRow = lsm.getMinSelectionIndex();
-      updateDetailsPane(selectedRow);
+      // Update the results page with info on the selected item,
+      // once the selection has stopped changing
+      detailsTimer.restart();
     }
   }
   
   
   /**
-   * Update the details pane.
+   * Show the details of the selected row.
+   */
+  private void showSelectedDetails()
+  {
+    final int nRow = tableResults.getSelectedRow();
+    if (nRow >= 0)
+    {
+      updateDetailsPane(nRow);
+    }
+  }
+  
+  
+  /**
+   * Update the details pane.  The document for the row is
+   * built (or found in the cache) before it's put in the pane.
    * 
    * @param nRow the row to update
    */
@@ -929,64 +1535,30 @@ public final class WordFinder implements ComponentListener, ItemListener
     // Remove the previous components in the details panel
     panelDetails.validate();
     
-    if ((listData == null) || (nRow < 0))
+    if ((listData == null) || (nRow < 0) || (nRow >= listData.size()))
     {
-      paneDetails.setText("");
+      paneDetails.setDocument(detailsRenderer.getDocument(queryTrace));
       return;
     }
     
-    final int nSize = listData.size();
-    if (nRow >= nSize)
-    {
-      paneDetails.setText("");
-      return;
-    }
-    
-    final Definition def = listData.get(nRow); 
+    // Show every sense of the term, marking the row's own sense
+    // unless the rows are grouped by term, and then the trace
+    // of the search if it was explained
+    final int id = resultsModel.getEntryId(nRow);
+    final StyledDocument doc = ((id >= 0)
+        ? detailsRenderer.getDocument(searchEngine.getDictionary(), id,
+                                      bGroupedResults, queryTrace)
+        : detailsRenderer.getDocument(resultsModel.getRow(nRow), queryTrace));
+    paneDetails.setDocument(doc);
     
-    showDefinitionData(def);
+    // Show the start of the text
+    paneDetails.setCaretPosition(0);
     
     // Force a redraw of the window
     panelDetails.validate();
   }
   
   
-  /**
-   * Show the data for the selected term.
-   * 
-   * @param def the object to display
-   */
-  private void showDefinitionData(final Definition def)
-  {
-    // Populate the details pane with information on the selected object
-    StringBuffer buf = new StringBuffer(200);
-    // buf.append("<html>");
-    buf.append(def.getWord()).append(" (").append(def.getSpeech())
-       .append(") - ").append(def.getDef());
-    // buf.append("</body></html>");
-    
-    // paneDetails.setText(buf.toString());
-    
-    paneDetails.setText("");
-    StyledDocument doc = paneDetails.getStyledDocument();
-    
-    try
-    {
-      doc.insertString(doc.getLength(), def.getWord(), doc.getStyle("bold"));
-      doc.insertString(doc.getLength(), " (", doc.getStyle("regular"));
-      doc.insertString(doc.getLength(), def.getAbbreviatedPartOfSpeech(),
-                       doc.getStyle("italic"));
-      doc.insertString(doc.getLength(), ") - ", doc.getStyle("regular"));
-      doc.insertString(doc.getLength(), def.getDef(), doc.getStyle("regular"));
-    }
-    catch (BadLocationException e)
-    {
-      // Auto-generated catch block
-      e.printStackTrace();
-    }
-  }
-  
-  
   /**
    * Initialize the Details panel.
    * 
@@ -1002,8 +1574,18 @@ public final class WordFinder implements ComponentListener, ItemListener
     paneDetails.setOpaque(false);
     paneDetails.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
     
-    StyledDocument doc = paneDetails.getStyledDocument();
-    addStylesToDocument(doc);
+    detailsRenderer = new DetailsRenderer();
+    paneDetails.setDocument(detailsRenderer.getEmptyDocument());
+    
+    // Show the details once the selection stops changing
+    detailsTimer = new Timer(nDetailsDelay, new java.awt.event.ActionListener()
+    {
+      public void actionPerformed(final ActionEvent evt)
+      {
+        showSelectedDetails();
+      }
+    });
+    detailsTimer.setRepeats(false);
     
     JScrollPane scrollPane = new JScrollPane(paneDetails);
     panelDetails.add(scrollPane);
@@ -1017,44 +1599,27 @@ public final class WordFinder implements ComponentListener, ItemListener
   
   
   /**
-   * Add styles to the document.
+   * Returns whether the user wants the search to be case-sensitive.
    * 
-   * @param doc the StyledDocument to add styles to
+   * @return whether the user wants the search to be case-sensitive
    */
-  protected void addStylesToDocument(final StyledDocument doc)
+  private boolean getCaseMatching()
   {
-    //Initialize some styles.
-    Style def = StyleContext.getDefaultStyleContext().
-                    getStyle(StyleContext.DEFAULT_STYLE);
-
-    Style regular = doc.addStyle("regular", def);
-    StyleConstants.setFontFamily(def, "SansSerif");
-    StyleConstants.setFontSize(def, 16);
-    StyleConstants.setLineSpacing(def, 2.0f);
-
-    Style s = doc.addStyle("italic", regular);
-    StyleConstants.setItalic(s, true);
-
-    s = doc.addStyle("bold", regular);
-    StyleConstants.setBold(s, true);
-
-    s = doc.addStyle("small", regular);
-    StyleConstants.setFontSize(s, 10);
-
-    s = doc.addStyle("large", regular);
-    StyleConstants.setFontSize(s, 18);
+    // Return whether to match case on a term
+    return cbCase.isSelected();
   }
   
   
   /**
-   * Returns whether the user wants the search to be case-sensitive.
+   * Returns the filter for the part of speech the user chose.
    * 
-   * @return whether the user wants the search to be case-sensitive
+   * @return the part-of-speech filter, or null to match any
    */
-  private boolean getCaseMatching()
+  private SpeechFilter getSpeechFilter()
   {
-    // Return whether to match case on a term
-    return cbCase.isSelected();
+    // Get the code for the selected part of speech
+    final String code = speechCodes[Math.max(0, cmbSpeech.getSelectedIndex())];
+    return ((code == null) ? null : new SpeechFilter(code));
   }
   
   
@@ -1111,13 +1676,15 @@ public final class WordFinder implements ComponentListener, ItemListener
   private TermFilter getSearchFilter(final String term,
                                      final boolean matchCase)
   {
+    FilterEvent event = new FilterEvent();
+    event.begin();
     TermFilter tf = null;
     
     if (btnRegex.isSelected())
     {
       tf = new RegexFilter(term, !matchCase);
     }
-    else if (btnAnagram.isSelected())
+    else if ((btnAnagram.isSelected()) || (btnPhrase.isSelected()))
     {
       tf = new AnagramFilter(term, !matchCase);
     }
@@ -1133,6 +1700,25 @@ public final class WordFinder implements ComponentListener, ItemListener
     {
       tf = new ContainsFilter(term, !matchCase);
     }
+    else if (btnClosest.isSelected())
+    {
+      // Only used when searching by definition
+      tf = new SimilarFilter(term, !matchCase, nClosestDistance);
+    }
+    else if (btnLetters.isSelected())
+    {
+      tf = new SubAnagramFilter(term);
+    }
+    else if (btnPattern.isSelected())
+    {
+      tf = new LetterPatternFilter(term);
+    }
+    
+    if ((tf != null) && (event.shouldCommit()))
+    {
+      event.setQuery(SearchEngine.getMode(tf), term.length());
+      event.commit();
+    }
     
     return tf;
   }
@@ -1285,6 +1871,29 @@ public final class WordFinder implements ComponentListener, ItemListener
   }
   
   
+  /**
+   * Publish the metrics through JMX, and if the wordfinder.metrics
+   * system property names a file, write the metrics to it when
+   * the application exits.
+   */
+  private static void initMetrics()
+  {
+    Metrics.getInstance().registerMBeans();
+    
+    final String fileName = System.getProperty("wordfinder.metrics");
+    if ((fileName != null) && (fileName.length() > 0))
+    {
+      Runtime.getRuntime().addShutdownHook(new Thread()
+      {
+        public void run()
+        {
+          Metrics.getInstance().dump(fileName);
+        }
+      });
+    }
+  }
+  
+  
   /**
    * Main method for the application.
    * 
@@ -1295,6 +1904,9 @@ public final class WordFinder implements ComponentListener, ItemListener
     // Set up the Mac-related properties
     makeMacCompatible("WordFinder");
     
+    // Start collecting the query metrics
+    initMetrics();
+    
     // Schedule a job for the event-dispatching thread
     javax.swing.SwingUtilities.invokeLater(new Runnable()
     {
@@ -0,0 +1,211 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+/**
+ * The base class for the filters.  The defaults for the
+ * methods other than accept() are in TermFilter.  This also
+ * has the block check shared by the filters that look for
+ * their source term in each term, at a fixed place or anywhere.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public abstract class AbstractTermFilter implements TermFilter
+{
+  /**
+   * The offset returned by getTextOffset() when the text can
+   * be anywhere in the term.
+   */
+  protected static final int ANYWHERE = -1;
+  
+  /**
+   * The buffer each thread puts characters in upper case in,
+   * kept from one block of terms to the next.
+   */
+  private static final ThreadLocal<char[]> upperBuffers =
+    new ThreadLocal<char[]>()
+    {
+      @Override
+      protected char[] initialValue()
+      {
+        return new char[64];
+      }
+    };
+  
+  
+  /**
+   * The length of the search term, or -1 if it's unknown.
+   */
+  private final int termLength;
+  
+  
+  /**
+   * Default constructor.
+   */
+  protected AbstractTermFilter()
+  {
+    this(null);
+  }
+  
+  
+  /**
+   * Initializes the filter with the search term it's built from.
+   * 
+   * @param term the search term (can be null)
+   */
+  protected AbstractTermFilter(final String term)
+  {
+    super();
+    termLength = ((term == null) ? -1 : term.length());
+  }
+  
+  
+  /**
+   * Returns the length of the search term the filter was
+   * built from.
+   * 
+   * @return the length of the search term, or -1
+   */
+  @Override
+  public int getTermLength()
+  {
+    return termLength;
+  }
+  
+  
+  /**
+   * Returns the offset at which the text passed to acceptText()
+   * has to be in a term.  By default it can be anywhere.
+   * 
+   * @param len the length of the term
+   * @param textLength the length of the text
+   * @return the offset, or ANYWHERE
+   */
+  protected int getTextOffset(final int len, final int textLength)
+  {
+    return ANYWHERE;
+  }
+  
+  
+  /**
+   * Check a block of terms, saving the IDs of the terms that
+   * hold the text at the offset from getTextOffset().  When
+   * case is ignored, only the characters being compared are
+   * put in upper case, and a term whose characters can't be
+   * put in upper case one ASCII character at a time is passed
+   * to accept() instead.
+   * 
+   * @param block the terms
+   * @param from the ID of the first term to check
+   * @param to the ID after the last term to check
+   * @param out the array to save the matching term IDs in
+   * @param text the text to look for (in upper case if case is ignored)
+   * @param ignoreCase whether to ignore the case
+   * @return the number of matching terms
+   */
+  protected final int acceptText(final TermBlock block, final int from,
+                                 final int to, final int[] out,
+                                 final char[] text, final boolean ignoreCase)
+  {
+    final char[] chars = block.getChars();
+    final char[] table =
+      ((ignoreCase) ? FilterUtility.getUpperCaseTable() : null);
+    final char[] upper =
+      ((ignoreCase) ? getUpperBuffer(block.getMaxLength()) : null);
+    
+    int count = 0;
+    for (int i = from; i < to; ++i)
+    {
+      // Find the characters to compare
+      final int start = block.getStart(i);
+      final int len = block.getLength(i);
+      final int offset = getTextOffset(len, text.length);
+      final boolean anywhere = (offset == ANYWHERE);
+      final boolean fits =
+        (anywhere || ((offset >= 0) && ((offset + text.length) <= len)));
+      final int regionStart = (anywhere ? 0 : offset);
+      final int regionLength = (anywhere ? len : text.length);
+      
+      boolean match = false;
+      if (!ignoreCase)
+      {
+        match = (fits && (anywhere
+                 ? (FilterUtility.indexOf(chars, start, len, text) >= 0)
+                 : FilterUtility.regionMatches(chars, start, len, offset,
+                                               text)));
+      }
+      else if (!fits)
+      {
+        // Only a term that gets longer in upper case can still match
+        match = ((!FilterUtility.toUpperCase(chars, start, len, table, upper))
+                 && (accept(block.getTerm(i))));
+      }
+      else if (FilterUtility.toUpperCase(chars, start + regionStart,
+                                         regionLength, table, upper))
+      {
+        match = (anywhere
+                 ? (FilterUtility.indexOf(upper, 0, regionLength, text) >= 0)
+                 : FilterUtility.regionMatches(upper, 0, regionLength, 0,
+                                               text));
+      }
+      else
+      {
+        match = accept(block.getTerm(i));
+      }
+      
+      if (match)
+      {
+        out[count++] = i;
+      }
+    }
+    
+    return count;
+  }
+  
+  
+  /**
+   * Returns this thread's buffer for characters put in upper
+   * case, making it longer if needed.
+   * 
+   * @param len the number of characters the buffer must hold
+   * @return the buffer
+   */
+  protected static char[] getUpperBuffer(final int len)
+  {
+    char[] buffer = upperBuffers.get();
+    if (buffer.length < len)
+    {
+      buffer = new char[Math.max(len, buffer.length * 2)];
+      upperBuffers.set(buffer);
+    }
+    
+    return buffer;
+  }
+}
@@ -37,7 +37,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class AnagramFilter implements TermFilter
+public final class AnagramFilter extends AbstractTermFilter
 {
   /**
    * The source term.
@@ -70,7 +70,7 @@ public final class AnagramFilter implements TermFilter
    */
   public AnagramFilter(final String word, final boolean bIgnoreCase)
   {
-    super();
+    super(word);
     
     // Save whether to ignore the case
     ignoreCase = bIgnoreCase;
@@ -149,4 +149,40 @@ public final class AnagramFilter implements TermFilter
     // Return the built string
     return value;
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    // Spaces are ignored, so only the other characters count
+    return term.length();
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length
+   */
+  public int getMaxLength()
+  {
+    return term.length();
+  }
+  
+  
+  /**
+   * Returns whether spaces count toward the length of a term.
+   * They don't, since spaces are ignored.
+   * 
+   * @return false
+   */
+  @Override
+  public boolean isSpaceCounted()
+  {
+    return false;
+  }
 }
@@ -42,7 +42,7 @@ import java.util.List;
  * @author mwallace
  * @version 1.0
  */
-public final class ContainsAllFilter implements TermFilter
+public final class ContainsAllFilter extends AbstractTermFilter
 {
   /**
    * Whether to ignore the case.
@@ -76,7 +76,7 @@ public final class ContainsAllFilter implements TermFilter
   public ContainsAllFilter(final String word,
                            final boolean bIgnoreCase)
   {
-    super();
+    super(word);
     
     // Save whether to ignore the case
     ignoreCase = bIgnoreCase;
@@ -165,4 +165,33 @@ public final class ContainsAllFilter implements TermFilter
     // Return whether we found one of the strings
     return found;
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    // Every phrase must be in the term
+    int len = 0;
+    for (String key : terms.keySet())
+    {
+      len = Math.max(len, key.length());
+    }
+    
+    return len;
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
 }
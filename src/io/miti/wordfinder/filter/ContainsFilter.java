@@ -37,7 +37,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class ContainsFilter implements TermFilter
+public final class ContainsFilter extends AbstractTermFilter
 {
   /**
    * The source term.
@@ -49,6 +49,12 @@ public final class ContainsFilter implements TermFilter
    */
   private boolean ignoreCase = false;
   
+  /**
+   * The characters of the source term, in upper case if case
+   * is ignored.
+   */
+  private char[] text = null;
+  
   
   /**
    * Default constructor.
@@ -68,8 +74,14 @@ public final class ContainsFilter implements TermFilter
    */
   public ContainsFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     term = word;
     ignoreCase = bIgnoreCase;
+    if (term != null)
+    {
+      text = ((ignoreCase) ? term.toUpperCase() : term).toCharArray();
+    }
   }
   
   
@@ -105,4 +117,55 @@ public final class ContainsFilter implements TermFilter
       return (word.indexOf(term) >= 0);
     }
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    if (term == null)
+    {
+      return 0;
+    }
+    
+    // The term must fit in the word
+    return ((ignoreCase) ? term.toUpperCase() : term).length();
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
+  
+  
+  /**
+   * Check a block of terms, saving the IDs of the terms that
+   * contain the source term (see AbstractTermFilter.acceptText()).
+   * 
+   * @param block the terms
+   * @param from the ID of the first term to check
+   * @param to the ID after the last term to check
+   * @param out the array to save the matching term IDs in
+   * @return the number of matching terms
+   */
+  @Override
+  public int acceptAll(final TermBlock block, final int from, final int to,
+                       final int[] out)
+  {
+    if (term == null)
+    {
+      return super.acceptAll(block, from, to, out);
+    }
+    
+    return acceptText(block, from, to, out, text, ignoreCase);
+  }
 }
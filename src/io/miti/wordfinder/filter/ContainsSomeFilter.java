@@ -45,7 +45,7 @@ import java.util.List;
  * @author mwallace
  * @version 1.0
  */
-public final class ContainsSomeFilter implements TermFilter
+public final class ContainsSomeFilter extends AbstractTermFilter
 {
   /**
    * Whether to ignore the case.
@@ -79,7 +79,7 @@ public final class ContainsSomeFilter implements TermFilter
   public ContainsSomeFilter(final String word,
                             final boolean bIgnoreCase)
   {
-    super();
+    super(word);
     
     // Save whether to ignore the case
     ignoreCase = bIgnoreCase;
@@ -123,4 +123,34 @@ public final class ContainsSomeFilter implements TermFilter
     // Return whether we found one of the strings
     return found;
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    // At least one phrase must be in the term
+    int len = UNBOUNDED;
+    final int size = terms.size();
+    for (int i = 0; i < size; ++i)
+    {
+      len = Math.min(len, terms.get(i).length());
+    }
+    
+    return ((size == 0) ? 0 : len);
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
 }
@@ -37,7 +37,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class EndsWithFilter implements TermFilter
+public final class EndsWithFilter extends AbstractTermFilter
 {
   /**
    * The source term.
@@ -49,6 +49,12 @@ public final class EndsWithFilter implements TermFilter
    */
   private boolean ignoreCase = false;
   
+  /**
+   * The characters of the source term, in upper case if case
+   * is ignored.
+   */
+  private char[] text = null;
+  
   
   /**
    * Default constructor.
@@ -68,8 +74,14 @@ public final class EndsWithFilter implements TermFilter
    */
   public EndsWithFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     term = word;
     ignoreCase = bIgnoreCase;
+    if (term != null)
+    {
+      text = ((ignoreCase) ? term.toUpperCase() : term).toCharArray();
+    }
   }
   
   
@@ -105,4 +117,70 @@ public final class EndsWithFilter implements TermFilter
       return (word.endsWith(term));
     }
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    if (term == null)
+    {
+      return 0;
+    }
+    
+    // The term must fit in the word
+    return ((ignoreCase) ? term.toUpperCase() : term).length();
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
+  
+  
+  /**
+   * Check a block of terms, saving the IDs of the terms that
+   * end with the source term (see AbstractTermFilter.acceptText()).
+   * 
+   * @param block the terms
+   * @param from the ID of the first term to check
+   * @param to the ID after the last term to check
+   * @param out the array to save the matching term IDs in
+   * @return the number of matching terms
+   */
+  @Override
+  public int acceptAll(final TermBlock block, final int from, final int to,
+                       final int[] out)
+  {
+    if (term == null)
+    {
+      return super.acceptAll(block, from, to, out);
+    }
+    
+    return acceptText(block, from, to, out, text, ignoreCase);
+  }
+  
+  
+  /**
+   * Returns the offset at which the source term has to be in
+   * a term.
+   * 
+   * @param len the length of the term
+   * @param textLength the length of the source term
+   * @return the offset
+   */
+  @Override
+  protected int getTextOffset(final int len, final int textLength)
+  {
+    return (len - textLength);
+  }
 }
@@ -0,0 +1,63 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import io.miti.wordfinder.Definition;
+
+/**
+ * This defines the EntryFilter interface, used to filter the
+ * entries returned by a search on any of their fields (the
+ * word, part of speech and definition).  Filters can be
+ * combined with AndFilter, OrFilter and NotFilter.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public interface EntryFilter
+{
+  /**
+   * Determines if the entry matches the filter.
+   * 
+   * @param def the entry to check
+   * @return whether the entry matches
+   */
+  boolean accept(Definition def);
+  
+  
+  /**
+   * Returns the length of the search term the filter was
+   * built from, for the metrics.  By default it's unknown.
+   * 
+   * @return the length of the search term, or -1
+   */
+  default int getTermLength()
+  {
+    return -1;
+  }
+}
@@ -35,7 +35,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class ExactMatchFilter implements TermFilter
+public final class ExactMatchFilter extends AbstractTermFilter
 {
   /**
    * The source term.
@@ -66,6 +66,8 @@ public final class ExactMatchFilter implements TermFilter
    */
   public ExactMatchFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     term = word;
     ignoreCase = bIgnoreCase;
   }
@@ -103,4 +105,48 @@ public final class ExactMatchFilter implements TermFilter
       return (term.equals(word));
     }
   }
+  
+  
+  /**
+   * Returns the term the terms are compared to.
+   * 
+   * @return the term
+   */
+  public String getTerm()
+  {
+    return term;
+  }
+  
+  
+  /**
+   * Returns whether the filter ignores case.
+   * 
+   * @return whether case is ignored
+   */
+  public boolean isIgnoreCase()
+  {
+    return ignoreCase;
+  }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    return ((term == null) ? 0 : term.length());
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return ((term == null) ? UNBOUNDED : term.length());
+  }
 }
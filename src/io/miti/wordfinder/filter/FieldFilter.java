@@ -0,0 +1,140 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import io.miti.wordfinder.Definition;
+
+/**
+ * Provide a filter for entries that applies a term filter
+ * to one field of the entry: the word, the part of speech
+ * or the definition.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class FieldFilter implements EntryFilter
+{
+  /**
+   * The field for the word.
+   */
+  public static final int WORD = 0;
+  
+  /**
+   * The field for the part of speech.
+   */
+  public static final int SPEECH = 1;
+  
+  /**
+   * The field for the definition.
+   */
+  public static final int DEFINITION = 2;
+  
+  /**
+   * The field to check.
+   */
+  private final int field;
+  
+  /**
+   * The filter for the field.
+   */
+  private final TermFilter filter;
+  
+  
+  /**
+   * Initializes the filter with the field and its filter.
+   * 
+   * @param nField the field to check (WORD, SPEECH or DEFINITION)
+   * @param fieldFilter the filter for the field
+   */
+  public FieldFilter(final int nField, final TermFilter fieldFilter)
+  {
+    super();
+    field = nField;
+    filter = fieldFilter;
+  }
+  
+  
+  /**
+   * Determines if the entry's field matches the filter.
+   * 
+   * @param def the entry to check
+   * @return whether the entry matches
+   */
+  public boolean accept(final Definition def)
+  {
+    switch (field)
+    {
+      case WORD:
+        return filter.accept(def.getWord());
+      
+      case SPEECH:
+        return filter.accept(def.getSpeech());
+      
+      case DEFINITION:
+        return filter.accept(def.getDef());
+      
+      default:
+        return false;
+    }
+  }
+  
+  
+  /**
+   * Returns the field to check.
+   * 
+   * @return the field (WORD, SPEECH or DEFINITION)
+   */
+  public int getField()
+  {
+    return field;
+  }
+  
+  
+  /**
+   * Returns the filter for the field.
+   * 
+   * @return the term filter
+   */
+  public TermFilter getFilter()
+  {
+    return filter;
+  }
+  
+  
+  /**
+   * Returns the length of the search term the field's
+   * filter was built from.
+   * 
+   * @return the length of the search term, or -1
+   */
+  public int getTermLength()
+  {
+    return filter.getTermLength();
+  }
+}
@@ -40,6 +40,17 @@ import java.util.List;
  */
 public final class FilterUtility
 {
+  /**
+   * The upper case of each ASCII character, in upperCaseLocale.
+   */
+  private static volatile char[] upperCaseTable = null;
+  
+  /**
+   * The locale upperCaseTable was built for.
+   */
+  private static volatile java.util.Locale upperCaseLocale = null;
+  
+  
   /**
    * Default constructor.
    */
@@ -214,4 +225,195 @@ public final class FilterUtility
     // Return the list
     return list;
   }
+  
+  
+  /**
+   * Returns the upper case of each ASCII character in the default
+   * locale (as String.toUpperCase() gives it), or 0 where the
+   * upper case isn't a single character.
+   * 
+   * @return the upper case of each ASCII character
+   */
+  public static char[] getUpperCaseTable()
+  {
+    // Rebuild the table if the locale has changed
+    final java.util.Locale locale = java.util.Locale.getDefault();
+    char[] table = upperCaseTable;
+    if ((table == null) || (!locale.equals(upperCaseLocale)))
+    {
+      table = new char[128];
+      for (int i = 0; i < table.length; ++i)
+      {
+        final String upper = String.valueOf((char) i).toUpperCase();
+        table[i] = ((upper.length() == 1) ? upper.charAt(0) : 0);
+      }
+      
+      upperCaseLocale = locale;
+      upperCaseTable = table;
+    }
+    
+    return table;
+  }
+  
+  
+  /**
+   * Copy a run of characters in upper case, using a table from
+   * getUpperCaseTable().  This fails if any of the characters
+   * isn't in the table, in which case the caller should use
+   * String.toUpperCase() instead.
+   * 
+   * @param chars the source characters
+   * @param start the index of the first character
+   * @param len the number of characters
+   * @param table the upper case of each ASCII character
+   * @param dest the array to copy into (at least len long)
+   * @return whether every character could be converted
+   */
+  public static boolean toUpperCase(final char[] chars, final int start,
+                                    final int len, final char[] table,
+                                    final char[] dest)
+  {
+    for (int i = 0; i < len; ++i)
+    {
+      final char ch = chars[start + i];
+      if ((ch >= table.length) || (table[ch] == 0))
+      {
+        return false;
+      }
+      
+      dest[i] = table[ch];
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns whether some text appears at an offset in a run
+   * of characters.
+   * 
+   * @param chars the characters to search
+   * @param start the index of the first character to search
+   * @param len the number of characters to search
+   * @param offset the offset from start to check
+   * @param text the text to find
+   * @return whether the text is at the offset
+   */
+  public static boolean regionMatches(final char[] chars, final int start,
+                                      final int len, final int offset,
+                                      final char[] text)
+  {
+    if ((offset < 0) || (offset + text.length > len))
+    {
+      return false;
+    }
+    
+    for (int i = 0; i < text.length; ++i)
+    {
+      if (chars[start + offset + i] != text[i])
+      {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns the index of the first occurrence of some text in
+   * a run of characters, or -1 if it's not there.
+   * 
+   * @param chars the characters to search
+   * @param start the index of the first character to search
+   * @param len the number of characters to search
+   * @param text the text to find
+   * @return the offset of the text from start, or -1
+   */
+  public static int indexOf(final char[] chars, final int start,
+                            final int len, final char[] text)
+  {
+    final int last = len - text.length;
+    for (int i = 0; i <= last; ++i)
+    {
+      int j = 0;
+      while ((j < text.length) && (chars[start + i + j] == text[j]))
+      {
+        ++j;
+      }
+      
+      if (j == text.length)
+      {
+        return i;
+      }
+    }
+    
+    return -1;
+  }
+  
+  
+  /**
+   * Read the next token from the text, starting at an index,
+   * into the string builder (lower-cased).  A token is a run
+   * of letters and digits.
+   * 
+   * @param text the text to read from
+   * @param start the index to start looking from
+   * @param sb the buffer to store the token in (empty if none)
+   * @return the index after the end of the token
+   */
+  public static int nextToken(final String text,
+                               final int start,
+                               final StringBuilder sb)
+  {
+    sb.setLength(0);
+    final int len = text.length();
+    int i = start;
+    
+    // Skip any separators
+    while ((i < len) && (!Character.isLetterOrDigit(text.charAt(i))))
+    {
+      ++i;
+    }
+    
+    // Save the token characters
+    while ((i < len) && (Character.isLetterOrDigit(text.charAt(i))))
+    {
+      sb.append(Character.toLowerCase(text.charAt(i)));
+      ++i;
+    }
+    
+    return i;
+  }
+  
+  
+  /**
+   * Split the text into lower-cased tokens, the same way
+   * the definitions are split when the definition index is built.
+   * 
+   * @param text the text to split
+   * @return the list of tokens
+   */
+  public static List<String> tokenize(final String text)
+  {
+    List<String> list = new ArrayList<String>(10);
+    if (text == null)
+    {
+      return list;
+    }
+    
+    StringBuilder sb = new StringBuilder(40);
+    final int len = text.length();
+    int i = 0;
+    while (i < len)
+    {
+      i = nextToken(text, i, sb);
+      if (sb.length() > 0)
+      {
+        list.add(sb.toString());
+      }
+    }
+    
+    return list;
+  }
 }
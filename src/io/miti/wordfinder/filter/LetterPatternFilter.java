@@ -0,0 +1,185 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+/**
+ * Provide a filter for search terms that only
+ * accepts matches where the term passed to accept()
+ * has the same pattern of repeated letters as the
+ * source term (as in a cryptogram: "xyzzy" matches
+ * "lotto").  The source term can be followed by a
+ * colon and a wildcard pattern of known letters
+ * ("xyzzy:?o???"), which the term must also match.
+ * Case is ignored, and characters other than letters
+ * must match exactly.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class LetterPatternFilter extends AbstractTermFilter
+{
+  /**
+   * The letter pattern signature of the source term.
+   */
+  private final String signature;
+  
+  /**
+   * The filter for the known letters (can be null).
+   */
+  private final WildcardFilter known;
+  
+  
+  /**
+   * Default constructor.
+   */
+  private LetterPatternFilter()
+  {
+    this("");
+  }
+  
+  
+  /**
+   * Initializes the filter with the source term.
+   * 
+   * @param word the source term, optionally followed by a colon
+   *             and a wildcard pattern of known letters
+   */
+  public LetterPatternFilter(final String word)
+  {
+    super(word);
+    
+    // Split off the known letters, if any
+    final String source = ((word == null) ? "" : word.trim());
+    final int colon = source.indexOf(':');
+    if (colon < 0)
+    {
+      signature = getSignature(source);
+      known = null;
+    }
+    else
+    {
+      signature = getSignature(source.substring(0, colon));
+      final String letters = source.substring(colon + 1);
+      known = ((letters.length() < 1) ? null
+                                      : new WildcardFilter(letters, true));
+    }
+  }
+  
+  
+  /**
+   * Determines if the term matches the source term.
+   * 
+   * @param word the term to compare to the source term
+   * @return whether the terms match
+   */
+  @Override
+  public boolean accept(final String word)
+  {
+    if (word == null)
+    {
+      return false;
+    }
+    
+    return ((signature.equals(getSignature(word))) &&
+            ((known == null) || (known.accept(word))));
+  }
+  
+  
+  /**
+   * Returns the letter pattern signature of the source term.
+   * 
+   * @return the signature
+   */
+  public String getSignature()
+  {
+    return signature;
+  }
+  
+  
+  /**
+   * Returns the letter pattern signature of a word: each
+   * letter is replaced by 'A' for the first distinct letter
+   * (ignoring case), 'B' for the second, and so on ("xyzzy"
+   * becomes "ABCCB").  Other characters are kept as-is.
+   * 
+   * @param word the word
+   * @return the signature
+   */
+  public static String getSignature(final String word)
+  {
+    // The symbol assigned to each letter (0 if none yet)
+    char[] symbols = new char[26];
+    char next = 'A';
+    
+    final int len = word.length();
+    char[] sig = new char[len];
+    for (int i = 0; i < len; ++i)
+    {
+      final char ch = Character.toLowerCase(word.charAt(i));
+      if ((ch >= 'a') && (ch <= 'z'))
+      {
+        if (symbols[ch - 'a'] == 0)
+        {
+          symbols[ch - 'a'] = next++;
+        }
+        
+        sig[i] = symbols[ch - 'a'];
+      }
+      else
+      {
+        sig[i] = ch;
+      }
+    }
+    
+    return new String(sig);
+  }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    // The signature has one character for each character of the term
+    return signature.length();
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return signature.length();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import io.miti.wordfinder.Definition;
+
+/**
+ * Provide a filter for entries that only accepts an entry
+ * that doesn't match another filter.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class NotFilter implements EntryFilter
+{
+  /**
+   * The filter to negate.
+   */
+  private final EntryFilter filter;
+  
+  
+  /**
+   * Initializes the filter with the filter to negate.
+   * 
+   * @param entryFilter the filter to negate
+   */
+  public NotFilter(final EntryFilter entryFilter)
+  {
+    super();
+    filter = entryFilter;
+  }
+  
+  
+  /**
+   * Determines if the entry doesn't match the other filter.
+   * 
+   * @param def the entry to check
+   * @return whether the entry matches
+   */
+  public boolean accept(final Definition def)
+  {
+    return (!filter.accept(def));
+  }
+  
+  
+  /**
+   * Returns the filter being negated.
+   * 
+   * @return the filter
+   */
+  public EntryFilter getFilter()
+  {
+    return filter;
+  }
+  
+  
+  /**
+   * Returns the length of the search term the negated
+   * filter was built from.
+   * 
+   * @return the length of the search term, or -1
+   */
+  public int getTermLength()
+  {
+    return filter.getTermLength();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import io.miti.wordfinder.Definition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provide a filter for entries that only accepts an entry
+ * that matches at least one of its filters.  The filters
+ * are checked in order, stopping at the first one that
+ * matches.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class OrFilter implements EntryFilter
+{
+  /**
+   * The filters to combine.
+   */
+  private final List<EntryFilter> filters;
+  
+  
+  /**
+   * Initializes the filter with the filters to combine.
+   * 
+   * @param list the filters
+   */
+  public OrFilter(final EntryFilter... list)
+  {
+    this(Arrays.asList(list));
+  }
+  
+  
+  /**
+   * Initializes the filter with the filters to combine.
+   * 
+   * @param list the filters
+   */
+  public OrFilter(final List<EntryFilter> list)
+  {
+    super();
+    filters = new ArrayList<EntryFilter>(list);
+  }
+  
+  
+  /**
+   * Determines if the entry matches the filters.
+   * 
+   * @param def the entry to check
+   * @return whether the entry matches
+   */
+  public boolean accept(final Definition def)
+  {
+    final int size = filters.size();
+    for (int i = 0; i < size; ++i)
+    {
+      if (filters.get(i).accept(def))
+      {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Returns the filters being combined.
+   * 
+   * @return the filters
+   */
+  public List<EntryFilter> getFilters()
+  {
+    return Collections.unmodifiableList(filters);
+  }
+  
+  
+  /**
+   * Returns the length of the longest search term the
+   * combined filters were built from.
+   * 
+   * @return the length of the search term, or -1
+   */
+  public int getTermLength()
+  {
+    int length = -1;
+    final int size = filters.size();
+    for (int i = 0; i < size; ++i)
+    {
+      length = Math.max(length, filters.get(i).getTermLength());
+    }
+    
+    return length;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provide a filter for definitions that only accepts
+ * text containing every word and quoted phrase in the
+ * string passed to the constructor, as whole words and
+ * ignoring case.  The text is split into words the same
+ * way the definition index splits definitions, so a
+ * search can use the index to find the matches.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class PhraseFilter extends AbstractTermFilter
+{
+  /**
+   * The words and phrases to look for.
+   */
+  private final List<String> phrases;
+  
+  /**
+   * The tokens in each phrase.
+   */
+  private final List<List<String>> phraseTokens;
+  
+  
+  /**
+   * Initializes the filter with the words and phrases.
+   * 
+   * @param query the words and quoted phrases to look for
+   */
+  public PhraseFilter(final String query)
+  {
+    super(query);
+    phrases = FilterUtility.parseIntoPhrases(query);
+    phraseTokens = new ArrayList<List<String>>(phrases.size());
+    for (String phrase : phrases)
+    {
+      phraseTokens.add(FilterUtility.tokenize(phrase));
+    }
+  }
+  
+  
+  /**
+   * Determines if the text contains every word and phrase.
+   * 
+   * @param text the text to check
+   * @return whether the text matches
+   */
+  @Override
+  public boolean accept(final String text)
+  {
+    if (text == null)
+    {
+      return false;
+    }
+    
+    final List<String> tokens = FilterUtility.tokenize(text);
+    for (List<String> phrase : phraseTokens)
+    {
+      if ((phrase.isEmpty()) ||
+          (Collections.indexOfSubList(tokens, phrase) < 0))
+      {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns the words and phrases to look for.
+   * 
+   * @return the phrases
+   */
+  public List<String> getPhrases()
+  {
+    return Collections.unmodifiableList(phrases);
+  }
+  
+  
+  /**
+   * Returns the length of the shortest text the filter can accept.
+   * 
+   * @return the minimum text length
+   */
+  public int getMinLength()
+  {
+    return 0;
+  }
+  
+  
+  /**
+   * Returns the length of the longest text the filter can accept.
+   * 
+   * @return the maximum text length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
+}
@@ -28,24 +28,167 @@
 
 package io.miti.wordfinder.filter;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Provide a filter for search terms that only
  * accepts matches where the term passed to accept()
  * matches the regular expression string passed in
- * the constructor.
+ * the constructor.  The length and literal text of
+ * each term are checked first (see RegexLiterals),
+ * so most terms never reach the regex engine.  Each
+ * thread reuses one Matcher, and a search that runs
+ * past the time limit (as a pattern with nested
+ * quantifiers can) throws RegexTimeoutException.  The
+ * clock starts again with each call to startSearch(),
+ * which SearchEngine makes at the start of every search.
  * 
  * @author mwallace
  * @version 1.0
  */
-public final class RegexFilter implements TermFilter
+public final class RegexFilter extends AbstractTermFilter
 {
+  /**
+   * The default time limit for one search, in milliseconds.
+   */
+  public static final long DEFAULT_TIME_LIMIT = 5000L;
+  
+  /**
+   * The number of characters read between checks of the clock.
+   */
+  private static final int CHECK_INTERVAL = 0x3FF;
+  
   /**
    * The pattern for the source term.
    */
   private Pattern pattern = null;
   
+  /**
+   * The literals, anchors and length bounds of the pattern.
+   */
+  private RegexLiterals literals = RegexLiterals.parse(null);
+  
+  /**
+   * Whether to ignore the case.
+   */
+  private boolean ignoreCase = false;
+  
+  /**
+   * The time limit for one search, in milliseconds.
+   */
+  private long timeLimit = DEFAULT_TIME_LIMIT;
+  
+  /**
+   * When the search must end (System.nanoTime()), or
+   * Long.MAX_VALUE if no search has been started.
+   */
+  private volatile long deadline = Long.MAX_VALUE;
+  
+  /**
+   * The matcher each thread reuses for every term.
+   */
+  private final ThreadLocal<TermMatcher> matchers =
+    new ThreadLocal<TermMatcher>()
+    {
+      @Override
+      protected TermMatcher initialValue()
+      {
+        return new TermMatcher();
+      }
+    };
+  
+  
+  /**
+   * A Matcher and the term it reads, reused for every term,
+   * which checks the clock as the regex engine reads the term.
+   */
+  private final class TermMatcher implements CharSequence
+  {
+    /**
+     * The matcher, reset for each term.
+     */
+    private final Matcher matcher = pattern.matcher("");
+    
+    /**
+     * The term being matched.
+     */
+    private String word = "";
+    
+    /**
+     * The number of characters read.
+     */
+    private int reads = 0;
+    
+    
+    /**
+     * Returns whether the term matches the pattern.
+     * 
+     * @param term the term
+     * @return whether the term matches
+     */
+    public boolean matches(final String term)
+    {
+      word = term;
+      matcher.reset(this);
+      return matcher.matches();
+    }
+    
+    
+    /**
+     * Returns a character of the term, checking the clock
+     * every so often.
+     * 
+     * @param index the index of the character
+     * @return the character
+     */
+    public char charAt(final int index)
+    {
+      if (((++reads & CHECK_INTERVAL) == 0) && (System.nanoTime() > deadline))
+      {
+        throw new RegexTimeoutException(pattern.pattern(), timeLimit);
+      }
+      
+      return word.charAt(index);
+    }
+    
+    
+    /**
+     * Returns the length of the term.
+     * 
+     * @return the length
+     */
+    public int length()
+    {
+      return word.length();
+    }
+    
+    
+    /**
+     * Returns part of the term.
+     * 
+     * @param start the start index
+     * @param end the end index
+     * @return the part of the term
+     */
+    public CharSequence subSequence(final int start, final int end)
+    {
+      return word.subSequence(start, end);
+    }
+    
+    
+    /**
+     * Returns the term.
+     * 
+     * @return the term
+     */
+    @Override
+    public String toString()
+    {
+      return word;
+    }
+  }
+  
   
   /**
    * Default constructor.
@@ -65,6 +208,8 @@ public final class RegexFilter implements TermFilter
    */
   public RegexFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     // Check the input
     if (word == null)
     {
@@ -72,6 +217,10 @@ public final class RegexFilter implements TermFilter
     }
     else
     {
+      // Save what can be checked without the regex engine
+      ignoreCase = bIgnoreCase;
+      literals = RegexLiterals.parse(word);
+      
       // Check if we're ignoring case
       if (bIgnoreCase)
       {
@@ -105,7 +254,79 @@ public final class RegexFilter implements TermFilter
       return false;
     }
     
+    // Skip the terms that can't match
+    if (!literals.mayMatch(word, ignoreCase))
+    {
+      return false;
+    }
+    
     // Use the regex package to compare words
-    return (pattern.matcher(word).matches());
+    return (matchers.get().matches(word));
+  }
+  
+  
+  /**
+   * Set the time limit for a search with this filter.  The
+   * clock starts when startSearch() is called.
+   * 
+   * @param millis the time limit, in milliseconds
+   */
+  public void setTimeLimit(final long millis)
+  {
+    timeLimit = millis;
+  }
+  
+  
+  /**
+   * Start the clock for a new search.
+   */
+  @Override
+  public void startSearch()
+  {
+    deadline = System.nanoTime() + (timeLimit * 1000000L);
+  }
+  
+  
+  /**
+   * Returns the literals, anchors and length bounds of the pattern.
+   * 
+   * @return the facts about the pattern
+   */
+  public RegexLiterals getLiterals()
+  {
+    return literals;
+  }
+  
+  
+  /**
+   * Returns whether the filter ignores case.
+   * 
+   * @return whether case is ignored
+   */
+  public boolean isIgnoreCase()
+  {
+    return ignoreCase;
+  }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    return literals.getMinLength();
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return literals.getMaxLength();
   }
 }
@@ -0,0 +1,617 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The facts about a regular expression that can be checked
+ * without running it: the literal text every match must
+ * start with, end with and contain, and the shortest and
+ * longest length of a match.  The expression is matched
+ * against the whole term, so a leading '^' and a trailing
+ * '$' are allowed.  Only plain sequences of characters,
+ * classes and quantifiers are looked at; anything else (such
+ * as alternation, flags or back references) is skipped over,
+ * or the expression is given up on, so the facts are always
+ * true of every match, but may not say much.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class RegexLiterals
+{
+  /**
+   * The maximum length, when the length is unbounded.
+   */
+  public static final int UNBOUNDED = TermFilter.UNBOUNDED;
+  
+  /**
+   * The escaped letters that match one character from a class.
+   */
+  private static final String CLASS_ESCAPES = "dDsSwWhHvV";
+  
+  /**
+   * The escaped letters that stand for one control character.
+   */
+  private static final String CONTROL_ESCAPES = "tnrfae";
+  
+  /**
+   * The control characters for CONTROL_ESCAPES.
+   */
+  private static final String CONTROL_CHARS = "\t\n\r\f\u0007\u001B";
+  
+  /**
+   * The text every match starts with.
+   */
+  private String prefix = "";
+  
+  /**
+   * The text every match ends with.
+   */
+  private String suffix = "";
+  
+  /**
+   * The runs of text every match contains.
+   */
+  private List<String> literals = new ArrayList<String>(4);
+  
+  /**
+   * The length of the shortest match.
+   */
+  private int minLength = 0;
+  
+  /**
+   * The length of the longest match.
+   */
+  private int maxLength = UNBOUNDED;
+  
+  /**
+   * The run of literal text being read.
+   */
+  private StringBuilder run = new StringBuilder(20);
+  
+  /**
+   * Whether the current run started at the start of the expression.
+   */
+  private boolean runAtStart = true;
+  
+  
+  /**
+   * Default constructor.
+   */
+  private RegexLiterals()
+  {
+    super();
+  }
+  
+  
+  /**
+   * Returns the facts about a regular expression.  The
+   * expression should already be known to compile.
+   * 
+   * @param regex the regular expression
+   * @return the facts about the expression
+   */
+  public static RegexLiterals parse(final String regex)
+  {
+    RegexLiterals result = new RegexLiterals();
+    if ((regex != null) && (!result.read(regex)))
+    {
+      // The expression is too complex, so nothing is known
+      result = new RegexLiterals();
+    }
+    
+    return result;
+  }
+  
+  
+  /**
+   * Read the expression, filling in the facts.
+   * 
+   * @param regex the regular expression
+   * @return whether the expression could be read
+   */
+  private boolean read(final String regex)
+  {
+    // Drop the anchors, since the whole term is matched anyway
+    int start = (regex.startsWith("^") ? 1 : 0);
+    int end = regex.length();
+    if ((end > start) && (regex.charAt(end - 1) == '$') &&
+        (!isEscaped(regex, end - 1)))
+    {
+      --end;
+    }
+    
+    long min = 0L;
+    long max = 0L;
+    int i = start;
+    while (i < end)
+    {
+      // Read one atom: its literal character (-1 if none),
+      // and the shortest and longest text it matches
+      final char ch = regex.charAt(i);
+      int literal = -1;
+      int atomMin = 1;
+      int atomMax = 1;
+      switch (ch)
+      {
+        case '\\':
+          if (i + 1 >= end)
+          {
+            return false;
+          }
+          
+          final char next = regex.charAt(i + 1);
+          if (!Character.isLetterOrDigit(next))
+          {
+            literal = next;
+          }
+          else if (CONTROL_ESCAPES.indexOf(next) >= 0)
+          {
+            literal = CONTROL_CHARS.charAt(CONTROL_ESCAPES.indexOf(next));
+          }
+          else if (CLASS_ESCAPES.indexOf(next) >= 0)
+          {
+            // A class can match a surrogate pair
+            atomMax = 2;
+          }
+          else
+          {
+            return false;
+          }
+          
+          i += 2;
+          break;
+        
+        case '.':
+          atomMax = 2;
+          ++i;
+          break;
+        
+        case '[':
+          i = skipClass(regex, i, end);
+          if (i < 0)
+          {
+            return false;
+          }
+          
+          atomMax = 2;
+          break;
+        
+        case '(':
+          // A group could match anything; a flag group
+          // could change what the rest of the literals mean
+          if ((i + 1 < end) && (regex.charAt(i + 1) == '?'))
+          {
+            return false;
+          }
+          
+          i = skipGroup(regex, i, end);
+          if (i < 0)
+          {
+            return false;
+          }
+          
+          atomMin = 0;
+          atomMax = UNBOUNDED;
+          break;
+        
+        case '|':
+        case '^':
+        case '$':
+        case ')':
+        case ']':
+        case '{':
+        case '}':
+        case '*':
+        case '+':
+        case '?':
+          return false;
+        
+        default:
+          // A quantifier after a surrogate pair applies to both halves
+          if ((Character.isHighSurrogate(ch)) ||
+              (Character.isLowSurrogate(ch)))
+          {
+            return false;
+          }
+          
+          literal = ch;
+          ++i;
+          break;
+      }
+      
+      // Read the quantifier, if any
+      int low = 1;
+      int high = 1;
+      if (i < end)
+      {
+        final char q = regex.charAt(i);
+        if (q == '?')
+        {
+          low = 0;
+          ++i;
+        }
+        else if (q == '*')
+        {
+          low = 0;
+          high = UNBOUNDED;
+          ++i;
+        }
+        else if (q == '+')
+        {
+          high = UNBOUNDED;
+          ++i;
+        }
+        else if (q == '{')
+        {
+          final int close = regex.indexOf('}', i);
+          if ((close < 0) || (close >= end))
+          {
+            return false;
+          }
+          
+          final String bounds = regex.substring(i + 1, close);
+          final int comma = bounds.indexOf(',');
+          try
+          {
+            if (comma < 0)
+            {
+              low = Integer.parseInt(bounds.trim());
+              high = low;
+            }
+            else
+            {
+              low = Integer.parseInt(bounds.substring(0, comma).trim());
+              final String upper = bounds.substring(comma + 1).trim();
+              high = ((upper.length() == 0) ? UNBOUNDED
+                                            : Integer.parseInt(upper));
+            }
+          }
+          catch (NumberFormatException nfe)
+          {
+            return false;
+          }
+          
+          i = close + 1;
+        }
+        
+        // Skip a lazy or possessive marker
+        if ((i < end) && ((low != 1) || (high != 1)) &&
+            ((regex.charAt(i) == '?') || (regex.charAt(i) == '+')))
+        {
+          ++i;
+        }
+      }
+      
+      // Add up the lengths
+      min += (long) atomMin * low;
+      max = (((atomMax == UNBOUNDED) || (high == UNBOUNDED) ||
+              (max == UNBOUNDED)) ? UNBOUNDED
+                                  : Math.min(UNBOUNDED,
+                                             max + ((long) atomMax * high)));
+      
+      // Add the literal to the run, ending the run at anything else
+      if ((literal >= 0) && (low >= 1))
+      {
+        for (int j = 0; (j < low) && (j < 1000); ++j)
+        {
+          run.append((char) literal);
+        }
+      }
+      
+      if ((literal < 0) || (low != 1) || (high != 1))
+      {
+        endRun(false);
+      }
+    }
+    
+    endRun(true);
+    minLength = (int) Math.min(UNBOUNDED, min);
+    maxLength = (int) max;
+    return true;
+  }
+  
+  
+  /**
+   * Save the current run of literal text, and start a new one.
+   * 
+   * @param atEnd whether the run reaches the end of the expression
+   */
+  private void endRun(final boolean atEnd)
+  {
+    if (run.length() > 0)
+    {
+      final String text = run.toString();
+      literals.add(text);
+      if (runAtStart)
+      {
+        prefix = text;
+      }
+      
+      if (atEnd)
+      {
+        suffix = text;
+      }
+      
+      run.setLength(0);
+    }
+    
+    runAtStart = false;
+  }
+  
+  
+  /**
+   * Returns the index after the character class starting at start,
+   * or -1 if it can't be read.
+   * 
+   * @param regex the regular expression
+   * @param start the index of the '['
+   * @param end the end of the expression
+   * @return the index after the class, or -1
+   */
+  private static int skipClass(final String regex, final int start,
+                               final int end)
+  {
+    int i = start + 1;
+    if ((i < end) && (regex.charAt(i) == '^'))
+    {
+      ++i;
+    }
+    
+    // A ']' first is read differently by different engines
+    if ((i < end) && (regex.charAt(i) == ']'))
+    {
+      return -1;
+    }
+    
+    int depth = 1;
+    while (i < end)
+    {
+      final char ch = regex.charAt(i);
+      if (ch == '\\')
+      {
+        i += 2;
+        continue;
+      }
+      else if (ch == '[')
+      {
+        ++depth;
+      }
+      else if (ch == ']')
+      {
+        --depth;
+        if (depth == 0)
+        {
+          return (i + 1);
+        }
+      }
+      
+      ++i;
+    }
+    
+    return -1;
+  }
+  
+  
+  /**
+   * Returns the index after the group starting at start, or -1
+   * if it can't be read.
+   * 
+   * @param regex the regular expression
+   * @param start the index of the '('
+   * @param end the end of the expression
+   * @return the index after the group, or -1
+   */
+  private static int skipGroup(final String regex, final int start,
+                               final int end)
+  {
+    int depth = 0;
+    int i = start;
+    while (i < end)
+    {
+      final char ch = regex.charAt(i);
+      if (ch == '\\')
+      {
+        i += 2;
+        continue;
+      }
+      else if (ch == '[')
+      {
+        i = skipClass(regex, i, end);
+        if (i < 0)
+        {
+          return -1;
+        }
+        
+        continue;
+      }
+      else if (ch == '(')
+      {
+        ++depth;
+      }
+      else if (ch == ')')
+      {
+        --depth;
+        if (depth == 0)
+        {
+          return (i + 1);
+        }
+      }
+      
+      ++i;
+    }
+    
+    return -1;
+  }
+  
+  
+  /**
+   * Returns whether the character at an index is escaped
+   * by an odd number of backslashes.
+   * 
+   * @param regex the regular expression
+   * @param index the index of the character
+   * @return whether the character is escaped
+   */
+  private static boolean isEscaped(final String regex, final int index)
+  {
+    int count = 0;
+    for (int i = index - 1; (i >= 0) && (regex.charAt(i) == '\\'); --i)
+    {
+      ++count;
+    }
+    
+    return ((count % 2) == 1);
+  }
+  
+  
+  /**
+   * Returns whether a term could match, judging only by its
+   * length and literal text.
+   * 
+   * @param word the term
+   * @param ignoreCase whether to ignore the case of the literals
+   * @return false if the term can't match
+   */
+  public boolean mayMatch(final String word, final boolean ignoreCase)
+  {
+    final int len = word.length();
+    if ((len < minLength) || (len > maxLength))
+    {
+      return false;
+    }
+    
+    if ((!word.regionMatches(ignoreCase, 0, prefix, 0, prefix.length())) ||
+        (!word.regionMatches(ignoreCase, len - suffix.length(), suffix, 0,
+                             suffix.length())))
+    {
+      return false;
+    }
+    
+    // Check the other literals
+    final int num = literals.size();
+    for (int i = 0; i < num; ++i)
+    {
+      if (!contains(word, literals.get(i), ignoreCase))
+      {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns whether a word contains some text.
+   * 
+   * @param word the word
+   * @param text the text to look for
+   * @param ignoreCase whether to ignore the case
+   * @return whether the word contains the text
+   */
+  private static boolean contains(final String word, final String text,
+                                  final boolean ignoreCase)
+  {
+    if (!ignoreCase)
+    {
+      return (word.indexOf(text) >= 0);
+    }
+    
+    final int last = word.length() - text.length();
+    for (int i = 0; i <= last; ++i)
+    {
+      if (word.regionMatches(true, i, text, 0, text.length()))
+      {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Returns the text every match starts with (can be empty).
+   * 
+   * @return the prefix
+   */
+  public String getPrefix()
+  {
+    return prefix;
+  }
+  
+  
+  /**
+   * Returns the text every match ends with (can be empty).
+   * 
+   * @return the suffix
+   */
+  public String getSuffix()
+  {
+    return suffix;
+  }
+  
+  
+  /**
+   * Returns the runs of text every match contains.
+   * 
+   * @return the literals
+   */
+  public List<String> getLiterals()
+  {
+    return Collections.unmodifiableList(literals);
+  }
+  
+  
+  /**
+   * Returns the length of the shortest match.
+   * 
+   * @return the minimum length
+   */
+  public int getMinLength()
+  {
+    return minLength;
+  }
+  
+  
+  /**
+   * Returns the length of the longest match, or UNBOUNDED.
+   * 
+   * @return the maximum length
+   */
+  public int getMaxLength()
+  {
+    return maxLength;
+  }
+}
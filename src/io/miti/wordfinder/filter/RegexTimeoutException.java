@@ -0,0 +1,57 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+/**
+ * Thrown when a regular expression search runs past its time
+ * limit, usually because the pattern backtracks too much.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class RegexTimeoutException extends RuntimeException
+{
+  /**
+   * Set up the version number.
+   */
+  private static final long serialVersionUID = 1L;
+  
+  
+  /**
+   * Initializes the exception with the pattern.
+   * 
+   * @param pattern the regular expression that took too long
+   * @param timeLimit the time limit, in milliseconds
+   */
+  public RegexTimeoutException(final String pattern, final long timeLimit)
+  {
+    super("The regular expression \"" + pattern + "\" took longer than " +
+          timeLimit + " ms");
+  }
+}
@@ -37,7 +37,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class SimilarFilter implements TermFilter
+public final class SimilarFilter extends AbstractTermFilter
 {
   /**
    * The source term.
@@ -76,6 +76,8 @@ public final class SimilarFilter implements TermFilter
                        final boolean bIgnoreCase,
                        final int maxDistance)
   {
+    super(word);
+    
     term = word;
     ignoreCase = bIgnoreCase;
     maxScore = maxDistance;
@@ -206,4 +208,160 @@ public final class SimilarFilter implements TermFilter
     // Step 7
     return d[n][m];
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    if (term == null)
+    {
+      return 0;
+    }
+    
+    // Each edit changes the length by at most one
+    final int len = ((ignoreCase) ? term.toUpperCase() : term).length();
+    return Math.max(0, len - maxScore);
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    if (term == null)
+    {
+      return UNBOUNDED;
+    }
+    
+    final int len = ((ignoreCase) ? term.toUpperCase() : term).length();
+    return (len + maxScore);
+  }
+  
+  
+  /**
+   * Check a block of terms, saving the IDs of the terms within
+   * the maximum distance of the source term.  The characters
+   * are compared in place, reusing two rows of scores, and a
+   * term is dropped as soon as every score in a row is too
+   * high.  Only terms that can't be put in upper case one ASCII
+   * character at a time are passed to accept().
+   * 
+   * @param block the terms
+   * @param from the ID of the first term to check
+   * @param to the ID after the last term to check
+   * @param out the array to save the matching term IDs in
+   * @return the number of matching terms
+   */
+  @Override
+  public int acceptAll(final TermBlock block, final int from, final int to,
+                       final int[] out)
+  {
+    if ((term == null) || (maxScore < 0))
+    {
+      return super.acceptAll(block, from, to, out);
+    }
+    
+    // Get the source term, and the buffers for the terms and scores
+    final char[] source =
+      ((ignoreCase) ? term.toUpperCase() : term).toCharArray();
+    final char[] table = FilterUtility.getUpperCaseTable();
+    final char[] upper = getUpperBuffer(block.getMaxLength());
+    final char[] chars = block.getChars();
+    int[] prev = new int[source.length + 1];
+    int[] curr = new int[source.length + 1];
+    
+    int count = 0;
+    for (int i = from; i < to; ++i)
+    {
+      final int len = block.getLength(i);
+      boolean match = false;
+      if (!ignoreCase)
+      {
+        match = (getBoundedScore(source, chars, block.getStart(i), len,
+                                 prev, curr) <= maxScore);
+      }
+      else if (FilterUtility.toUpperCase(chars, block.getStart(i), len,
+                                         table, upper))
+      {
+        match = (getBoundedScore(source, upper, 0, len,
+                                 prev, curr) <= maxScore);
+      }
+      else
+      {
+        match = accept(block.getTerm(i));
+      }
+      
+      if (match)
+      {
+        out[count++] = i;
+      }
+    }
+    
+    return count;
+  }
+  
+  
+  /**
+   * Returns the Levenshtein score for two strings, or any
+   * number above the maximum score once it's known to be
+   * above it.
+   * 
+   * @param s the source term
+   * @param t the characters of the other term
+   * @param start the index of the other term's first character
+   * @param m the length of the other term
+   * @param row1 a buffer for one row of scores (s.length + 1 long)
+   * @param row2 a buffer for one row of scores (s.length + 1 long)
+   * @return the Levenshtein rating, if not above the maximum
+   */
+  private int getBoundedScore(final char[] s, final char[] t,
+                              final int start, final int m,
+                              final int[] row1, final int[] row2)
+  {
+    // The lengths alone can rule out a match
+    final int n = s.length;
+    if (Math.abs(n - m) > maxScore)
+    {
+      return (maxScore + 1);
+    }
+    
+    int[] prev = row1;
+    int[] curr = row2;
+    for (int i = 0; i <= n; ++i)
+    {
+      prev[i] = i;
+    }
+    
+    for (int j = 1; j <= m; ++j)
+    {
+      final char t_j = t[start + j - 1];
+      curr[0] = j;
+      int best = j;
+      for (int i = 1; i <= n; ++i)
+      {
+        final int cost = ((s[i - 1] == t_j) ? 0 : 1);
+        curr[i] = minimum(prev[i] + 1, curr[i - 1] + 1, prev[i - 1] + cost);
+        best = Math.min(best, curr[i]);
+      }
+      
+      // The scores never go down from one row to the next
+      if (best > maxScore)
+      {
+        return best;
+      }
+      
+      final int[] swap = prev;
+      prev = curr;
+      curr = swap;
+    }
+    
+    return prev[n];
+  }
 }
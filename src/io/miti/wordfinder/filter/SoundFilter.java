@@ -36,7 +36,7 @@ package io.miti.wordfinder.filter;
  * @author mwallace
  * @version 1.0
  */
-public final class SoundFilter implements TermFilter
+public final class SoundFilter extends AbstractTermFilter
 {
   /**
    * The soundex code for source term.
@@ -67,6 +67,8 @@ public final class SoundFilter implements TermFilter
    */
   public SoundFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     termCode = getSoundexCode(word);
     ignoreCase = bIgnoreCase;
   }
@@ -233,4 +235,26 @@ public final class SoundFilter implements TermFilter
     // Return the generated soundex code for the input string
     return buf.toString();
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    return 0;
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+import io.miti.wordfinder.Definition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * Provide a filter for entries that only accepts entries
+ * with one of a set of parts of speech (such as "n" or "v").
+ * The search engine finds the entries for the parts of speech
+ * by their codes in the dictionary.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class SpeechFilter implements EntryFilter
+{
+  /**
+   * The parts of speech to accept.
+   */
+  private final String[] speeches;
+  
+  
+  /**
+   * Initializes the filter with the parts of speech to accept,
+   * separated by commas or spaces (such as "n,v").
+   * 
+   * @param speech the parts of speech to accept
+   */
+  public SpeechFilter(final String speech)
+  {
+    super();
+    
+    // Save each part of speech once
+    List<String> list = new ArrayList<String>(4);
+    StringTokenizer st = new StringTokenizer((speech == null) ? "" : speech,
+                                             ", ");
+    while (st.hasMoreTokens())
+    {
+      final String token = st.nextToken();
+      if (!list.contains(token))
+      {
+        list.add(token);
+      }
+    }
+    
+    speeches = list.toArray(new String[list.size()]);
+  }
+  
+  
+  /**
+   * Determines if the entry has one of the parts of speech.
+   * 
+   * @param def the entry to check
+   * @return whether the entry matches
+   */
+  public boolean accept(final Definition def)
+  {
+    final String speech = def.getSpeech();
+    for (int i = 0; i < speeches.length; ++i)
+    {
+      if (speeches[i].equals(speech))
+      {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Returns the parts of speech to accept.
+   * 
+   * @return the parts of speech
+   */
+  public String[] getSpeeches()
+  {
+    return speeches.clone();
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+/**
+ * Provide a filter for search terms that only
+ * accepts matches where every letter of the term
+ * passed to accept() can be taken from the letters
+ * passed in the constructor (a "rack" of letters,
+ * as in a word game), each letter used at most once.
+ * A '?' in the rack is a blank that can stand for
+ * any letter.  Case is ignored, spaces, hyphens and
+ * apostrophes in the term are skipped, and terms
+ * with any other non-letter never match.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class SubAnagramFilter extends AbstractTermFilter
+{
+  /**
+   * The number of letters in the alphabet.
+   */
+  public static final int LETTERS = 26;
+  
+  /**
+   * The mask bit set for a term that has a character that
+   * can't come from the rack.
+   */
+  public static final int INVALID = 1 << LETTERS;
+  
+  /**
+   * The count of each letter in the rack.
+   */
+  private final int[] counts = new int[LETTERS];
+  
+  /**
+   * The letters present in the rack, one bit per letter.
+   */
+  private final int mask;
+  
+  /**
+   * The number of blanks in the rack.
+   */
+  private final int blanks;
+  
+  /**
+   * The number of letters and blanks in the rack.
+   */
+  private final int size;
+  
+  
+  /**
+   * Default constructor.
+   */
+  private SubAnagramFilter()
+  {
+    this("");
+  }
+  
+  
+  /**
+   * Initializes the filter with the rack of letters.
+   * 
+   * @param letters the available letters ('?' for a blank)
+   */
+  public SubAnagramFilter(final String letters)
+  {
+    super(letters);
+    
+    // Count the blanks, then the letters
+    int numBlanks = 0;
+    final String rack = ((letters == null) ? "" : letters);
+    StringBuilder sb = new StringBuilder(rack.length());
+    for (int i = 0; i < rack.length(); ++i)
+    {
+      final char ch = rack.charAt(i);
+      if (ch == '?')
+      {
+        ++numBlanks;
+      }
+      else
+      {
+        sb.append(ch);
+      }
+    }
+    
+    blanks = numBlanks;
+    final int letterMask = countLetters(sb.toString(), counts);
+    mask = letterMask & ~INVALID;
+    
+    int total = blanks;
+    for (int i = 0; i < LETTERS; ++i)
+    {
+      total += counts[i];
+    }
+    
+    size = total;
+  }
+  
+  
+  /**
+   * Determines if the term matches the source term.
+   * 
+   * @param word the term to compare to the source term
+   * @return whether the terms match
+   */
+  @Override
+  public boolean accept(final String word)
+  {
+    if (word == null)
+    {
+      return false;
+    }
+    
+    int[] wordCounts = new int[LETTERS];
+    final int wordMask = countLetters(word, wordCounts);
+    if ((wordMask == 0) || (!acceptMask(wordMask)))
+    {
+      return false;
+    }
+    
+    // Count the letters that need a blank
+    int needed = 0;
+    for (int i = 0; i < LETTERS; ++i)
+    {
+      needed += Math.max(0, wordCounts[i] - counts[i]);
+    }
+    
+    return (needed <= blanks);
+  }
+  
+  
+  /**
+   * Returns whether a term with the given letter mask could
+   * be formed from the rack.  This only rejects terms; a term
+   * that passes still needs its letter counts checked.
+   * 
+   * @param wordMask the letters in the term, one bit per letter
+   * @return whether the term could match
+   */
+  public boolean acceptMask(final int wordMask)
+  {
+    final int missing = wordMask & ~mask;
+    if (missing == 0)
+    {
+      return true;
+    }
+    
+    return ((blanks > 0) && ((missing & INVALID) == 0) &&
+            (Integer.bitCount(missing) <= blanks));
+  }
+  
+  
+  /**
+   * Returns whether a term's letter counts can be formed from
+   * the rack.
+   * 
+   * @param wordCounts the letter counts for many terms
+   * @param offset the index of the term's first count
+   * @return whether the term can be formed
+   */
+  public boolean acceptCounts(final byte[] wordCounts, final int offset)
+  {
+    int needed = 0;
+    for (int i = 0; i < LETTERS; ++i)
+    {
+      final int extra = wordCounts[offset + i] - counts[i];
+      if (extra > 0)
+      {
+        needed += extra;
+        if (needed > blanks)
+        {
+          return false;
+        }
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Returns the number of letters and blanks in the rack.
+   * 
+   * @return the size of the rack
+   */
+  public int getRackSize()
+  {
+    return size;
+  }
+  
+  
+  /**
+   * Count the letters in a word, ignoring case, and return a mask
+   * with one bit set for each letter present.  Spaces, hyphens
+   * and apostrophes are skipped; any other character sets the
+   * INVALID bit.
+   * 
+   * @param word the word
+   * @param wordCounts the array to add the counts to (26 long)
+   * @return the mask of the letters in the word
+   */
+  public static int countLetters(final String word, final int[] wordCounts)
+  {
+    int wordMask = 0;
+    final int len = word.length();
+    for (int i = 0; i < len; ++i)
+    {
+      final char ch = Character.toLowerCase(word.charAt(i));
+      if ((ch >= 'a') && (ch <= 'z'))
+      {
+        ++wordCounts[ch - 'a'];
+        wordMask |= (1 << (ch - 'a'));
+      }
+      else if ((ch != ' ') && (ch != '-') && (ch != '\''))
+      {
+        wordMask |= INVALID;
+      }
+    }
+    
+    return wordMask;
+  }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    // A term needs at least one letter from the rack
+    return 1;
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    // Spaces, hyphens and apostrophes don't use up the rack
+    return UNBOUNDED;
+  }
+}
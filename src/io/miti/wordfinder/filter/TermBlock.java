@@ -0,0 +1,162 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.filter;
+
+/**
+ * The terms of a dictionary, numbered by term ID, with their
+ * characters packed end to end in one array.  Filters can
+ * read the characters directly when checking a block of
+ * terms (see TermFilter.acceptAll()).
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class TermBlock
+{
+  /**
+   * The terms.
+   */
+  private final String[] terms;
+  
+  /**
+   * The characters of all the terms.
+   */
+  private final char[] chars;
+  
+  /**
+   * The start of each term in chars (one longer than the
+   * number of terms).
+   */
+  private final int[] starts;
+  
+  /**
+   * The length of the longest term.
+   */
+  private final int maxLength;
+  
+  
+  /**
+   * Pack the terms.
+   * 
+   * @param list the terms, indexed by term ID
+   */
+  public TermBlock(final String[] list)
+  {
+    super();
+    terms = list;
+    
+    // Find where each term starts
+    starts = new int[terms.length + 1];
+    int longest = 0;
+    for (int i = 0; i < terms.length; ++i)
+    {
+      starts[i + 1] = starts[i] + terms[i].length();
+      longest = Math.max(longest, terms[i].length());
+    }
+    
+    maxLength = longest;
+    
+    // Copy the characters
+    chars = new char[starts[terms.length]];
+    for (int i = 0; i < terms.length; ++i)
+    {
+      terms[i].getChars(0, terms[i].length(), chars, starts[i]);
+    }
+  }
+  
+  
+  /**
+   * Returns the number of terms.
+   * 
+   * @return the number of terms
+   */
+  public int size()
+  {
+    return terms.length;
+  }
+  
+  
+  /**
+   * Returns a term.
+   * 
+   * @param termId the term ID
+   * @return the term
+   */
+  public String getTerm(final int termId)
+  {
+    return terms[termId];
+  }
+  
+  
+  /**
+   * Returns the characters of all the terms.  The array
+   * must not be changed.
+   * 
+   * @return the packed characters
+   */
+  public char[] getChars()
+  {
+    return chars;
+  }
+  
+  
+  /**
+   * Returns the index in getChars() of a term's first character.
+   * 
+   * @param termId the term ID
+   * @return the start of the term
+   */
+  public int getStart(final int termId)
+  {
+    return starts[termId];
+  }
+  
+  
+  /**
+   * Returns the length of a term.
+   * 
+   * @param termId the term ID
+   * @return the length of the term
+   */
+  public int getLength(final int termId)
+  {
+    return (starts[termId + 1] - starts[termId]);
+  }
+  
+  
+  /**
+   * Returns the length of the longest term.
+   * 
+   * @return the maximum term length
+   */
+  public int getMaxLength()
+  {
+    return maxLength;
+  }
+}
@@ -30,13 +30,29 @@ package io.miti.wordfinder.filter;
 
 /**
  * This defines the TermFilter interface, used to provide a
- * filter for terms returned by the search.
+ * filter for terms returned by the search.  Each filter
+ * also declares the range of term lengths it can accept,
+ * so a search can skip the terms outside the range, and
+ * whether spaces count toward that length.  The
+ * range only needs to hold for terms whose length doesn't
+ * change with their case (as the German sharp s becomes "SS" in upper
+ * case); those are always passed to accept().  A block
+ * of terms can be checked at once with acceptAll(), and
+ * startSearch() is called before each search that uses
+ * the filter.  Apart from accept(), the methods have defaults,
+ * so a filter only needs to override the ones it can improve on.
  * 
  * @author mwallace
  * @version 1.0
  */
 public interface TermFilter
 {
+  /**
+   * The maximum length, when the length is unbounded.
+   */
+  int UNBOUNDED = Integer.MAX_VALUE;
+  
+  
   /**
    * Determines if the term matches the source term.
    * 
@@ -44,4 +60,90 @@ public interface TermFilter
    * @return whether the terms match
    */
   boolean accept(String word);
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * By default there is no minimum.
+   * 
+   * @return the minimum term length
+   */
+  default int getMinLength()
+  {
+    return 0;
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * By default there is no maximum.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  default int getMaxLength()
+  {
+    return UNBOUNDED;
+  }
+  
+  
+  /**
+   * Returns whether spaces count toward the length of a term,
+   * for getMinLength() and getMaxLength().  By default they do.
+   * 
+   * @return whether spaces are counted
+   */
+  default boolean isSpaceCounted()
+  {
+    return true;
+  }
+  
+  
+  /**
+   * Returns the length of the search term the filter was
+   * built from, for the metrics.  By default it's unknown.
+   * 
+   * @return the length of the search term, or -1
+   */
+  default int getTermLength()
+  {
+    return -1;
+  }
+  
+  
+  /**
+   * Check a block of terms, saving the IDs of the terms that
+   * match.  By default each term is passed to accept().
+   * 
+   * @param block the terms
+   * @param from the ID of the first term to check
+   * @param to the ID after the last term to check
+   * @param out the array to save the matching term IDs in
+   *            (at least to - from long)
+   * @return the number of matching terms
+   */
+  default int acceptAll(final TermBlock block, final int from, final int to,
+                        final int[] out)
+  {
+    int count = 0;
+    for (int i = from; i < to; ++i)
+    {
+      if (accept(block.getTerm(i)))
+      {
+        out[count++] = i;
+      }
+    }
+    
+    return count;
+  }
+  
+  
+  /**
+   * Called at the start of each search that uses the filter,
+   * so a filter with a time limit can start its clock.  By
+   * default this does nothing.
+   */
+  default void startSearch()
+  {
+    // Nothing to do
+  }
 }
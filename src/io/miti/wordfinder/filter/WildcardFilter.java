@@ -41,7 +41,7 @@ import java.util.StringTokenizer;
  * @author mwallace
  * @version 1.0
  */
-public final class WildcardFilter implements TermFilter
+public final class WildcardFilter extends AbstractTermFilter
 {
   /**
    * The list of substrings in the string with wildcards.
@@ -53,6 +53,11 @@ public final class WildcardFilter implements TermFilter
    */
   private boolean ignoreCase = false;
   
+  /**
+   * The whole pattern (in upper case if case is ignored).
+   */
+  private String pattern = null;
+  
   
   /**
    * Default constructor.
@@ -72,7 +77,10 @@ public final class WildcardFilter implements TermFilter
    */
   public WildcardFilter(final String word, final boolean bIgnoreCase)
   {
+    super(word);
+    
     ignoreCase = bIgnoreCase;
+    pattern = (((word != null) && ignoreCase) ? word.toUpperCase() : word);
     parsePattern(word);
   }
   
@@ -102,6 +110,49 @@ public final class WildcardFilter implements TermFilter
   }
   
   
+  /**
+   * Returns the pattern if it has no '*', so it only matches
+   * terms of the same length (with '?' for any one character),
+   * or null if it has a '*'.  If case is ignored, the pattern
+   * is in upper case.
+   * 
+   * @return the fixed-length pattern, or null
+   */
+  public String getFixedLengthPattern()
+  {
+    if ((fields == null) || (fields.size() != 1))
+    {
+      return null;
+    }
+    
+    return fields.get(0);
+  }
+  
+  
+  /**
+   * Returns the whole pattern, with '*' for any run of characters
+   * and '?' for any one character.  If case is ignored, the
+   * pattern is in upper case.
+   * 
+   * @return the pattern
+   */
+  public String getPattern()
+  {
+    return pattern;
+  }
+  
+  
+  /**
+   * Returns whether the filter ignores case.
+   * 
+   * @return whether case is ignored
+   */
+  public boolean isIgnoreCase()
+  {
+    return ignoreCase;
+  }
+  
+  
   /**
    * Returns whether target fits the pattern in pat.
    *
@@ -510,4 +561,43 @@ public final class WildcardFilter implements TermFilter
       }
     }
   }
+  
+  
+  /**
+   * Returns the length of the shortest term the filter can accept.
+   * 
+   * @return the minimum term length
+   */
+  public int getMinLength()
+  {
+    if ((fields == null) || (fields.size() == 0))
+    {
+      return 0;
+    }
+    
+    // Every part of the pattern must be in the term
+    int len = 0;
+    for (String field : fields)
+    {
+      if (field != null)
+      {
+        len = Math.max(len, field.length());
+      }
+    }
+    
+    return len;
+  }
+  
+  
+  /**
+   * Returns the length of the longest term the filter can accept.
+   * 
+   * @return the maximum term length, or UNBOUNDED
+   */
+  public int getMaxLength()
+  {
+    // A pattern with no '*' only matches terms of the same length
+    final String pattern = getFixedLengthPattern();
+    return ((pattern == null) ? UNBOUNDED : pattern.length());
+  }
 }
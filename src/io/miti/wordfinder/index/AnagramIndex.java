@@ -0,0 +1,216 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+import io.miti.wordfinder.filter.SubAnagramFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Groups the single-word terms of the dictionary by their letter
+ * signature (the sorted, lower-cased letters, as in AnagramFilter),
+ * with a letter-count vector and letter mask per signature.  Used
+ * to find phrases of several words that together are an anagram
+ * of some input (see AnagramSearch).
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class AnagramIndex
+{
+  /**
+   * The letter mask of each signature.
+   */
+  private final int[] masks;
+  
+  /**
+   * The letter counts, 26 per signature.
+   */
+  private final byte[] counts;
+  
+  /**
+   * The number of letters in each signature.
+   */
+  private final int[] lengths;
+  
+  /**
+   * The distinct (ignoring case) words for each signature.
+   */
+  private final String[][] words;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.  Terms
+   * that aren't made only of letters are skipped.
+   * 
+   * @param dict the dictionary to index
+   */
+  public AnagramIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Group the words by signature, skipping repeated spellings
+    HashMap<String, List<String>> groups =
+      new HashMap<String, List<String>>(100000);
+    List<String> keys = new ArrayList<String>(100000);
+    java.util.HashSet<String> seen = new java.util.HashSet<String>(100000);
+    final int num = dict.getTermCount();
+    for (int i = 0; i < num; ++i)
+    {
+      final String term = dict.getTerm(i);
+      final String lower = term.toLowerCase();
+      if ((!isLetters(lower)) || (!seen.add(lower)))
+      {
+        continue;
+      }
+      
+      char[] chars = lower.toCharArray();
+      java.util.Arrays.sort(chars);
+      final String key = new String(chars);
+      List<String> group = groups.get(key);
+      if (group == null)
+      {
+        group = new ArrayList<String>(2);
+        groups.put(key, group);
+        keys.add(key);
+      }
+      
+      group.add(term);
+    }
+    
+    // Build the arrays for each signature
+    final int size = keys.size();
+    final int letters = SubAnagramFilter.LETTERS;
+    masks = new int[size];
+    counts = new byte[size * letters];
+    lengths = new int[size];
+    words = new String[size][];
+    int[] wordCounts = new int[letters];
+    for (int i = 0; i < size; ++i)
+    {
+      final String key = keys.get(i);
+      java.util.Arrays.fill(wordCounts, 0);
+      masks[i] = SubAnagramFilter.countLetters(key, wordCounts);
+      for (int j = 0; j < letters; ++j)
+      {
+        counts[(i * letters) + j] = (byte) Math.min(wordCounts[j], 127);
+      }
+      
+      lengths[i] = key.length();
+      final List<String> group = groups.get(key);
+      words[i] = group.toArray(new String[group.size()]);
+    }
+  }
+  
+  
+  /**
+   * Returns whether the string is non-empty and only has
+   * the letters a to z.
+   * 
+   * @param str the string to check
+   * @return whether the string is only letters
+   */
+  private static boolean isLetters(final String str)
+  {
+    final int len = str.length();
+    for (int i = 0; i < len; ++i)
+    {
+      final char ch = str.charAt(i);
+      if ((ch < 'a') || (ch > 'z'))
+      {
+        return false;
+      }
+    }
+    
+    return (len > 0);
+  }
+  
+  
+  /**
+   * Returns the number of signatures.
+   * 
+   * @return the number of signatures
+   */
+  public int size()
+  {
+    return masks.length;
+  }
+  
+  
+  /**
+   * Returns the letter mask of a signature.
+   * 
+   * @param sig the signature index
+   * @return the letter mask
+   */
+  int getMask(final int sig)
+  {
+    return masks[sig];
+  }
+  
+  
+  /**
+   * Returns the count of one letter in a signature.
+   * 
+   * @param sig the signature index
+   * @param letter the letter (0 to 25)
+   * @return the number of times the letter occurs
+   */
+  int getCount(final int sig, final int letter)
+  {
+    return counts[(sig * SubAnagramFilter.LETTERS) + letter];
+  }
+  
+  
+  /**
+   * Returns the number of letters in a signature.
+   * 
+   * @param sig the signature index
+   * @return the number of letters
+   */
+  int getLength(final int sig)
+  {
+    return lengths[sig];
+  }
+  
+  
+  /**
+   * Returns the words with a signature.
+   * 
+   * @param sig the signature index
+   * @return the words
+   */
+  String[] getWords(final int sig)
+  {
+    return words[sig];
+  }
+}
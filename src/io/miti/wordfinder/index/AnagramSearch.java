@@ -0,0 +1,490 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.filter.SubAnagramFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A search for phrases of dictionary words whose letters, taken
+ * together, are an anagram of the input.  The search recurses on
+ * the letters that remain, choosing word signatures in index order
+ * so each combination is found once.  The sets of remaining letters
+ * that lead nowhere are memoized, branches whose remaining letters
+ * can't be covered by any word are pruned with a letter mask, and
+ * the branches for the first word are explored in parallel.  The
+ * combinations are counted as they're found, so the search stops
+ * as soon as it has the maximum number of phrases, and also stops
+ * if it's cancelled or runs out of time.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class AnagramSearch
+{
+  /**
+   * The signature index.
+   */
+  private final AnagramIndex index;
+  
+  /**
+   * The letter counts of the input.
+   */
+  private final int[] input = new int[SubAnagramFilter.LETTERS];
+  
+  /**
+   * The number of letters in the input.
+   */
+  private final int inputLength;
+  
+  /**
+   * The signatures that fit in the input, in index order.
+   */
+  private final int[] candidates;
+  
+  /**
+   * The maximum number of words in a phrase.
+   */
+  private final int maxWords;
+  
+  /**
+   * The maximum number of phrases to return.
+   */
+  private final int maxResults;
+  
+  /**
+   * For each set of remaining letters (and number of words
+   * left), the lowest candidate index from which no combination
+   * can start.
+   */
+  private final Map<String, Integer> deadEnds =
+    new ConcurrentHashMap<String, Integer>(1000);
+  
+  /**
+   * The number of combinations found so far.
+   */
+  private final AtomicInteger found = new AtomicInteger(0);
+  
+  /**
+   * The time at which to give up (0 for no limit).
+   */
+  private volatile long deadline = 0L;
+  
+  /**
+   * Whether the search has been stopped.
+   */
+  private volatile boolean cancelled = false;
+  
+  
+  /**
+   * Initializes the search.
+   * 
+   * @param anagramIndex the signature index
+   * @param letters the input letters (other characters are skipped)
+   * @param maxWordCount the maximum number of words in a phrase
+   * @param minLength the minimum number of letters in a word
+   * @param maxPhrases the maximum number of phrases to return
+   */
+  public AnagramSearch(final AnagramIndex anagramIndex,
+                       final String letters,
+                       final int maxWordCount,
+                       final int minLength,
+                       final int maxPhrases)
+  {
+    super();
+    index = anagramIndex;
+    maxWords = maxWordCount;
+    maxResults = maxPhrases;
+    
+    // Count the input letters
+    final int inputMask = SubAnagramFilter.countLetters(
+        ((letters == null) ? "" : letters), input) & ~SubAnagramFilter.INVALID;
+    int total = 0;
+    for (int i = 0; i < input.length; ++i)
+    {
+      total += input[i];
+    }
+    
+    inputLength = total;
+    
+    // Keep the signatures that fit in the input
+    IntList list = new IntList(1000);
+    final int size = index.size();
+    for (int sig = 0; sig < size; ++sig)
+    {
+      if (((index.getMask(sig) & ~inputMask) == 0) &&
+          (index.getLength(sig) >= minLength) && (fits(sig, input)))
+      {
+        list.add(sig);
+      }
+    }
+    
+    candidates = list.toArray();
+  }
+  
+  
+  /**
+   * Stop the search.  The phrases found so far are returned.
+   */
+  public void cancel()
+  {
+    cancelled = true;
+  }
+  
+  
+  /**
+   * Run the search.
+   * 
+   * @param timeLimit the maximum time to run, in milliseconds (0 for none)
+   * @param threads the number of threads to search with
+   * @return the phrases found
+   */
+  public List<String> run(final long timeLimit, final int threads)
+  {
+    deadline = ((timeLimit > 0L) ? (System.currentTimeMillis() + timeLimit)
+                                 : 0L);
+    if ((inputLength == 0) || (maxWords < 1) || (maxResults < 1))
+    {
+      return new ArrayList<String>(0);
+    }
+    
+    // Explore the branch for each first word in parallel
+    List<Callable<List<int[]>>> tasks =
+      new ArrayList<Callable<List<int[]>>>(candidates.length);
+    for (int c = 0; c < candidates.length; ++c)
+    {
+      final int first = c;
+      tasks.add(new Callable<List<int[]>>()
+      {
+        public List<int[]> call()
+        {
+          return searchFrom(first);
+        }
+      });
+    }
+    
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    List<int[]> combos = new ArrayList<int[]>(100);
+    try
+    {
+      for (Future<List<int[]>> future : pool.invokeAll(tasks))
+      {
+        combos.addAll(future.get());
+      }
+    }
+    catch (InterruptedException ie)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException ee)
+    {
+      throw new IllegalStateException(ee.getCause());
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+    
+    // Turn the combinations of signatures into phrases
+    List<String> phrases = new ArrayList<String>(Math.min(maxResults, 1000));
+    String[] chosen = new String[maxWords];
+    for (int i = 0; (i < combos.size()) && (phrases.size() < maxResults); ++i)
+    {
+      expand(combos.get(i), 0, 0, chosen, phrases);
+    }
+    
+    return phrases;
+  }
+  
+  
+  /**
+   * Find the combinations that start with a candidate.
+   * 
+   * @param first the index of the first candidate
+   * @return the combinations (as candidate indexes)
+   */
+  private List<int[]> searchFrom(final int first)
+  {
+    List<int[]> result = new ArrayList<int[]>(10);
+    if (isStopped())
+    {
+      return result;
+    }
+    
+    int[] rest = input.clone();
+    final int sig = candidates[first];
+    subtract(sig, rest);
+    int[] combo = new int[maxWords];
+    combo[0] = first;
+    solve(rest, inputLength - index.getLength(sig), 1, combo, result);
+    return result;
+  }
+  
+  
+  /**
+   * Find every combination of candidates that completes the one
+   * chosen so far, in non-descending order, whose letters add up
+   * to the remaining letters.  Each combination is counted as
+   * it's found, and the search stops at the maximum.
+   * 
+   * @param remaining the remaining letter counts
+   * @param remainingLength the number of remaining letters
+   * @param pos the number of words chosen so far
+   * @param combo the candidates chosen so far (maxWords long)
+   * @param result the list to add the combinations to
+   * @return whether any combination was found
+   */
+  private boolean solve(final int[] remaining,
+                        final int remainingLength,
+                        final int pos,
+                        final int[] combo,
+                        final List<int[]> result)
+  {
+    if (remainingLength == 0)
+    {
+      addCombo(combo, pos, result);
+      return true;
+    }
+    
+    if ((pos == maxWords) || (isStopped()))
+    {
+      return false;
+    }
+    
+    // Skip the letters known to have no combination starting
+    // at or after the first candidate that can be used
+    final int start = combo[pos - 1];
+    final String key = getKey(remaining, maxWords - pos);
+    final Integer dead = deadEnds.get(key);
+    if ((dead != null) && (start >= dead.intValue()))
+    {
+      return false;
+    }
+    
+    // Find the candidates that fit, and make sure every
+    // remaining letter is in at least one of them
+    int remainingMask = 0;
+    for (int i = 0; i < remaining.length; ++i)
+    {
+      if (remaining[i] > 0)
+      {
+        remainingMask |= (1 << i);
+      }
+    }
+    
+    IntList fitting = new IntList(100);
+    int covered = 0;
+    for (int c = start; c < candidates.length; ++c)
+    {
+      final int sig = candidates[c];
+      if (((index.getMask(sig) & ~remainingMask) == 0) &&
+          (index.getLength(sig) <= remainingLength) && (fits(sig, remaining)))
+      {
+        fitting.add(c);
+        covered |= index.getMask(sig);
+      }
+    }
+    
+    int last = -1;
+    if ((covered & remainingMask) == remainingMask)
+    {
+      // Try each fitting candidate as the next word
+      for (int f = 0; (f < fitting.size()) && (!isStopped()); ++f)
+      {
+        final int c = fitting.get(f);
+        final int sig = candidates[c];
+        int[] rest = remaining.clone();
+        subtract(sig, rest);
+        combo[pos] = c;
+        if (solve(rest, remainingLength - index.getLength(sig), pos + 1,
+                  combo, result))
+        {
+          last = c;
+        }
+      }
+    }
+    
+    // Unless the search was cut short, no combination starts
+    // after the last candidate that started one
+    final int from = ((last < 0) ? start : (last + 1));
+    if ((!isStopped()) && ((dead == null) || (from < dead.intValue())))
+    {
+      deadEnds.put(key, Integer.valueOf(from));
+    }
+    
+    return (last >= 0);
+  }
+  
+  
+  /**
+   * Save a combination, and stop the search once the maximum
+   * number of combinations has been found.
+   * 
+   * @param combo the candidates chosen
+   * @param length the number of candidates chosen
+   * @param result the list to add the combination to
+   */
+  private void addCombo(final int[] combo, final int length,
+                        final List<int[]> result)
+  {
+    final int count = found.incrementAndGet();
+    if (count <= maxResults)
+    {
+      int[] copy = new int[length];
+      System.arraycopy(combo, 0, copy, 0, length);
+      result.add(copy);
+    }
+    
+    if (count >= maxResults)
+    {
+      cancelled = true;
+    }
+  }
+  
+  
+  /**
+   * Add the phrases for a combination of candidates to the list.
+   * Repeated signatures use their words in non-descending order,
+   * so a phrase isn't repeated with the words swapped.
+   * 
+   * @param combo the combination (candidate indexes)
+   * @param pos the position in the combination
+   * @param minWord the first word to use for this position
+   * @param chosen the words chosen so far
+   * @param phrases the list of phrases to add to
+   */
+  private void expand(final int[] combo, final int pos, final int minWord,
+                      final String[] chosen, final List<String> phrases)
+  {
+    if (pos == combo.length)
+    {
+      StringBuilder sb = new StringBuilder(inputLength + combo.length);
+      for (int i = 0; i < combo.length; ++i)
+      {
+        sb.append((i == 0) ? "" : " ").append(chosen[i]);
+      }
+      
+      phrases.add(sb.toString());
+      return;
+    }
+    
+    final String[] words = index.getWords(candidates[combo[pos]]);
+    for (int w = minWord; (w < words.length) && (phrases.size() < maxResults);
+         ++w)
+    {
+      chosen[pos] = words[w];
+      final boolean same = ((pos + 1 < combo.length) &&
+                            (combo[pos + 1] == combo[pos]));
+      expand(combo, pos + 1, (same ? w : 0), chosen, phrases);
+    }
+  }
+  
+  
+  /**
+   * Returns whether the search should stop.
+   * 
+   * @return whether the search was cancelled or ran out of time
+   */
+  private boolean isStopped()
+  {
+    if ((!cancelled) && (deadline > 0L) &&
+        (System.currentTimeMillis() > deadline))
+    {
+      cancelled = true;
+    }
+    
+    return cancelled;
+  }
+  
+  
+  /**
+   * Returns whether a signature's letters fit in the counts.
+   * 
+   * @param sig the signature index
+   * @param available the available letter counts
+   * @return whether the signature fits
+   */
+  private boolean fits(final int sig, final int[] available)
+  {
+    for (int i = 0; i < available.length; ++i)
+    {
+      if (index.getCount(sig, i) > available[i])
+      {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Remove a signature's letters from the counts.
+   * 
+   * @param sig the signature index
+   * @param available the letter counts to update
+   */
+  private void subtract(final int sig, final int[] available)
+  {
+    for (int i = 0; i < available.length; ++i)
+    {
+      available[i] -= index.getCount(sig, i);
+    }
+  }
+  
+  
+  /**
+   * Returns the memo key for the remaining letters.
+   * 
+   * @param remaining the remaining letter counts
+   * @param wordsLeft the number of words that can still be used
+   * @return the key
+   */
+  private static String getKey(final int[] remaining, final int wordsLeft)
+  {
+    char[] key = new char[remaining.length + 1];
+    for (int i = 0; i < remaining.length; ++i)
+    {
+      key[i] = (char) remaining[i];
+    }
+    
+    key[remaining.length] = (char) wordsLeft;
+    return new String(key);
+  }
+}
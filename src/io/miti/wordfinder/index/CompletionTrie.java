@@ -0,0 +1,337 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A compact trie over the lower-cased terms, used to complete a
+ * partially typed word.  The nodes and edges are stored in flat
+ * arrays (the edges of a node are contiguous and sorted by
+ * character), and each node records the highest score of any
+ * term below it, so the top completions are found best-first
+ * without visiting the rest of the subtree.  A term's score is
+ * its number of senses.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class CompletionTrie
+{
+  /**
+   * An empty result.
+   */
+  private static final int[] EMPTY = new int[0];
+  
+  /**
+   * The start of each node's edges (one longer than the
+   * number of nodes).
+   */
+  private final int[] edgeStart;
+  
+  /**
+   * The character on each edge.
+   */
+  private final char[] edgeChar;
+  
+  /**
+   * The node each edge leads to.
+   */
+  private final int[] edgeTarget;
+  
+  /**
+   * The start of each node's terms in termIds.
+   */
+  private final int[] termStart;
+  
+  /**
+   * The end of each node's terms in termIds.
+   */
+  private final int[] termEnd;
+  
+  /**
+   * The IDs of the terms ending at each node.
+   */
+  private final int[] termIds;
+  
+  /**
+   * The highest score of any term at or below each node.
+   */
+  private final int[] maxScore;
+  
+  /**
+   * The score of each term, indexed by term ID.
+   */
+  private final int[] scores;
+  
+  
+  /**
+   * Build the trie over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public CompletionTrie(final DictionaryData dict)
+  {
+    super();
+    
+    // Sort the term IDs by their lower-cased form
+    final int num = dict.getTermCount();
+    final String[] keys = new String[num];
+    Integer[] order = new Integer[num];
+    scores = new int[num];
+    for (int i = 0; i < num; ++i)
+    {
+      keys[i] = dict.getTerm(i).toLowerCase();
+      order[i] = Integer.valueOf(i);
+      scores[i] = dict.getSenseCount(i);
+    }
+    
+    Arrays.sort(order, new Comparator<Integer>()
+    {
+      public int compare(final Integer a, final Integer b)
+      {
+        return keys[a.intValue()].compareTo(keys[b.intValue()]);
+      }
+    });
+    
+    termIds = new int[num];
+    for (int i = 0; i < num; ++i)
+    {
+      termIds[i] = order[i].intValue();
+    }
+    
+    // Build the nodes breadth-first, so each node's edges are
+    // added together.  Each node covers a range of the sorted
+    // terms that share its prefix.
+    IntList lo = new IntList(num);
+    IntList hi = new IntList(num);
+    IntList depth = new IntList(num);
+    IntList starts = new IntList(num);
+    IntList termStarts = new IntList(num);
+    IntList termEnds = new IntList(num);
+    StringBuilder chars = new StringBuilder(num);
+    IntList targets = new IntList(num);
+    lo.add(0);
+    hi.add(num);
+    depth.add(0);
+    for (int node = 0; node < lo.size(); ++node)
+    {
+      starts.add(targets.size());
+      final int d = depth.get(node);
+      int i = lo.get(node);
+      final int end = hi.get(node);
+      
+      // The terms that end here sort before the longer ones
+      termStarts.add(i);
+      while ((i < end) && (keys[termIds[i]].length() == d))
+      {
+        ++i;
+      }
+      
+      termEnds.add(i);
+      
+      // Add an edge for each distinct next character
+      while (i < end)
+      {
+        final char ch = keys[termIds[i]].charAt(d);
+        final int from = i;
+        while ((i < end) && (keys[termIds[i]].charAt(d) == ch))
+        {
+          ++i;
+        }
+        
+        chars.append(ch);
+        targets.add(lo.size());
+        lo.add(from);
+        hi.add(i);
+        depth.add(d + 1);
+      }
+    }
+    
+    // Store the nodes in arrays
+    final int numNodes = lo.size();
+    edgeStart = new int[numNodes + 1];
+    for (int node = 0; node < numNodes; ++node)
+    {
+      edgeStart[node] = starts.get(node);
+    }
+    
+    edgeStart[numNodes] = targets.size();
+    termStart = termStarts.toArray();
+    termEnd = termEnds.toArray();
+    edgeChar = new char[chars.length()];
+    chars.getChars(0, chars.length(), edgeChar, 0);
+    edgeTarget = targets.toArray();
+    
+    // Fill in the best score below each node (children have
+    // higher node numbers than their parents)
+    maxScore = new int[numNodes];
+    for (int node = numNodes - 1; node >= 0; --node)
+    {
+      int best = 0;
+      for (int t = termStart[node]; t < termEnd[node]; ++t)
+      {
+        best = Math.max(best, scores[termIds[t]]);
+      }
+      
+      for (int e = edgeStart[node]; e < edgeStart[node + 1]; ++e)
+      {
+        best = Math.max(best, maxScore[edgeTarget[e]]);
+      }
+      
+      maxScore[node] = best;
+    }
+  }
+  
+  
+  /**
+   * Returns the node reached by following the prefix from the
+   * root, ignoring case, or -1 if there is none.
+   * 
+   * @param prefix the prefix
+   * @return the node, or -1
+   */
+  public int findNode(final CharSequence prefix)
+  {
+    int node = 0;
+    final int len = prefix.length();
+    for (int i = 0; (i < len) && (node >= 0); ++i)
+    {
+      node = getChild(node, Character.toLowerCase(prefix.charAt(i)));
+    }
+    
+    return node;
+  }
+  
+  
+  /**
+   * Returns the child of a node along the edge for a character,
+   * or -1 if there is none.
+   * 
+   * @param node the node
+   * @param ch the (lower-case) character
+   * @return the child node, or -1
+   */
+  public int getChild(final int node, final char ch)
+  {
+    // The edges are sorted, so use a binary search
+    int low = edgeStart[node];
+    int high = edgeStart[node + 1] - 1;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      final char c = edgeChar[mid];
+      if (c < ch)
+      {
+        low = mid + 1;
+      }
+      else if (c > ch)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return edgeTarget[mid];
+      }
+    }
+    
+    return -1;
+  }
+  
+  
+  /**
+   * Returns the IDs of the n highest-scoring terms that start
+   * with the prefix (ignoring case), best first.
+   * 
+   * @param prefix the partially typed word
+   * @param n the number of completions to return
+   * @return the term IDs, best first
+   */
+  public int[] complete(final CharSequence prefix, final int n)
+  {
+    final int start = findNode(prefix);
+    if ((start < 0) || (n < 1))
+    {
+      return EMPTY;
+    }
+    
+    // Visit the nodes and terms best-first.  Each item in the
+    // queue packs the score, whether it's a term, and its index.
+    PriorityQueue<Long> queue = new PriorityQueue<Long>(32);
+    queue.add(Long.valueOf(pack(maxScore[start], false, start)));
+    IntList result = new IntList(n);
+    while ((!queue.isEmpty()) && (result.size() < n))
+    {
+      final long item = queue.poll().longValue();
+      final int index = (int) (item & 0x7FFFFFFFL);
+      if ((item & 0x80000000L) == 0L)
+      {
+        result.add(termIds[index]);
+        continue;
+      }
+      
+      // Queue the node's terms and children
+      for (int t = termStart[index]; t < termEnd[index]; ++t)
+      {
+        queue.add(Long.valueOf(pack(scores[termIds[t]], true, t)));
+      }
+      
+      for (int e = edgeStart[index]; e < edgeStart[index + 1]; ++e)
+      {
+        final int child = edgeTarget[e];
+        queue.add(Long.valueOf(pack(maxScore[child], false, child)));
+      }
+    }
+    
+    return result.toArray();
+  }
+  
+  
+  /**
+   * Pack a queue item into a long, so the highest score comes
+   * first in a natural-order queue, terms come before nodes with
+   * the same score, and lower indexes (alphabetically earlier)
+   * come first.
+   * 
+   * @param score the score
+   * @param isTerm whether the item is a term (else a node)
+   * @param index the term or node index
+   * @return the packed item
+   */
+  private static long pack(final int score, final boolean isTerm,
+                           final int index)
+  {
+    return ((long) (Integer.MAX_VALUE - score) << 32) |
+           (isTerm ? 0L : 0x80000000L) | index;
+  }
+}
@@ -0,0 +1,522 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.Definition;
+import io.miti.wordfinder.DictionaryData;
+import io.miti.wordfinder.filter.EntryFilter;
+import io.miti.wordfinder.filter.FilterUtility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An inverted index over the definition text of every entry in
+ * the dictionary.  Each token maps to a posting list of the IDs
+ * of the entries whose definition contains it, along with the
+ * positions of the token in each definition, so single words
+ * are answered by a lookup and phrases by a positional
+ * intersection of posting lists.  Free-text queries can also be
+ * ranked with BM25 for reverse-dictionary lookups.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class DefinitionIndex
+{
+  /**
+   * An empty result.
+   */
+  private static final int[] EMPTY = new int[0];
+  
+  /**
+   * The BM25 term-frequency saturation parameter.
+   */
+  private static final double BM25_K1 = 1.2;
+  
+  /**
+   * The BM25 length normalization parameter.
+   */
+  private static final double BM25_B = 0.75;
+  
+  /**
+   * The dictionary that was indexed.
+   */
+  private final DictionaryData dict;
+  
+  /**
+   * The number of tokens in each definition, indexed by entry ID.
+   */
+  private final int[] docLength;
+  
+  /**
+   * The average number of tokens in a definition.
+   */
+  private final double avgDocLength;
+  
+  /**
+   * Map of token to token ID.
+   */
+  private final HashMap<String, Integer> vocabulary;
+  
+  /**
+   * The posting lists, indexed by token ID.
+   */
+  private final Postings[] postings;
+  
+  
+  /**
+   * The posting list for one token.
+   */
+  private static final class Postings
+  {
+    /**
+     * The entry IDs, in ascending order.
+     */
+    private final int[] docs;
+    
+    /**
+     * The start of each entry's positions in the positions
+     * array (one longer than docs).
+     */
+    private final int[] offsets;
+    
+    /**
+     * The token positions, grouped by entry.
+     */
+    private final int[] positions;
+    
+    
+    /**
+     * Build the posting list from the raw (entry, position) pairs.
+     * 
+     * @param pairs the entry ID and position of each occurrence
+     */
+    private Postings(final IntList pairs)
+    {
+      // Count the distinct entries (the pairs are in entry order)
+      final int count = pairs.size() / 2;
+      int numDocs = 0;
+      int last = -1;
+      for (int i = 0; i < count; ++i)
+      {
+        if (pairs.get(2 * i) != last)
+        {
+          last = pairs.get(2 * i);
+          ++numDocs;
+        }
+      }
+      
+      docs = new int[numDocs];
+      offsets = new int[numDocs + 1];
+      positions = new int[count];
+      
+      // Split the pairs into the three arrays
+      int d = -1;
+      last = -1;
+      for (int i = 0; i < count; ++i)
+      {
+        final int doc = pairs.get(2 * i);
+        if (doc != last)
+        {
+          last = doc;
+          docs[++d] = doc;
+          offsets[d] = i;
+        }
+        
+        positions[i] = pairs.get((2 * i) + 1);
+      }
+      
+      offsets[numDocs] = count;
+    }
+    
+    
+    /**
+     * Returns whether the token occurs at a position within
+     * an entry, given the index of the entry in docs.
+     * 
+     * @param docIndex the index into docs
+     * @param pos the position to look for
+     * @return whether the token is at that position
+     */
+    private boolean hasPosition(final int docIndex, final int pos)
+    {
+      return (java.util.Arrays.binarySearch(positions, offsets[docIndex],
+                offsets[docIndex + 1], pos) >= 0);
+    }
+  }
+  
+  
+  /**
+   * Build the index over the definitions in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public DefinitionIndex(final DictionaryData dict)
+  {
+    super();
+    this.dict = dict;
+    
+    // Collect the (entry, position) pairs for each token
+    vocabulary = new HashMap<String, Integer>(100000);
+    List<IntList> raw = new ArrayList<IntList>(100000);
+    StringBuilder sb = new StringBuilder(40);
+    
+    final int size = dict.size();
+    docLength = new int[size];
+    long totalLength = 0L;
+    for (int id = 0; id < size; ++id)
+    {
+      final String def = dict.get(id).getDef();
+      final int len = def.length();
+      int pos = 0;
+      int i = 0;
+      while (i < len)
+      {
+        // Skip to the start of the next token
+        i = FilterUtility.nextToken(def, i, sb);
+        if (sb.length() == 0)
+        {
+          break;
+        }
+        
+        // Look up the token, adding it if it's new
+        final String token = sb.toString();
+        Integer tokenId = vocabulary.get(token);
+        if (tokenId == null)
+        {
+          tokenId = Integer.valueOf(raw.size());
+          vocabulary.put(token, tokenId);
+          raw.add(new IntList(4));
+        }
+        
+        final IntList list = raw.get(tokenId.intValue());
+        list.add(id);
+        list.add(pos++);
+      }
+      
+      docLength[id] = pos;
+      totalLength += pos;
+    }
+    
+    avgDocLength = ((size == 0) ? 1.0
+                    : Math.max(1.0, totalLength / (double) size));
+    
+    // Convert the raw lists into compact posting lists
+    final int numTokens = raw.size();
+    postings = new Postings[numTokens];
+    for (int i = 0; i < numTokens; ++i)
+    {
+      postings[i] = new Postings(raw.get(i));
+      raw.set(i, null);
+    }
+  }
+  
+  
+  /**
+   * Returns the number of distinct tokens in the index.
+   * 
+   * @return the number of distinct tokens
+   */
+  public int getTokenCount()
+  {
+    return postings.length;
+  }
+  
+  
+  /**
+   * Returns the IDs of the entries whose definitions contain
+   * every one of the phrases, in ascending order.
+   * 
+   * @param phrases the list of words or phrases
+   * @return the matching entry IDs
+   */
+  public int[] findAll(final List<String> phrases)
+  {
+    int[] result = null;
+    for (String phrase : phrases)
+    {
+      final int[] ids = findPhrase(phrase);
+      result = ((result == null) ? ids : intersect(result, ids));
+      if (result.length == 0)
+      {
+        break;
+      }
+    }
+    
+    return ((result == null) ? EMPTY : result);
+  }
+  
+  
+  /**
+   * Returns the IDs of the entries whose definitions contain
+   * the phrase (the phrase's tokens in consecutive positions),
+   * in ascending order.
+   * 
+   * @param phrase the word or phrase to look for
+   * @return the matching entry IDs
+   */
+  public int[] findPhrase(final String phrase)
+  {
+    // Look up the posting list for each token in the phrase
+    final List<String> tokens = FilterUtility.tokenize(phrase);
+    final int num = tokens.size();
+    if (num == 0)
+    {
+      return EMPTY;
+    }
+    
+    Postings[] lists = new Postings[num];
+    for (int i = 0; i < num; ++i)
+    {
+      final Integer tokenId = vocabulary.get(tokens.get(i));
+      if (tokenId == null)
+      {
+        // The token isn't in any definition
+        return EMPTY;
+      }
+      
+      lists[i] = postings[tokenId.intValue()];
+    }
+    
+    // A single word needs no position checks
+    if (num == 1)
+    {
+      return lists[0].docs.clone();
+    }
+    
+    // Find the entries that contain every token, starting
+    // from the rarest one
+    int rarest = 0;
+    for (int i = 1; i < num; ++i)
+    {
+      if (lists[i].docs.length < lists[rarest].docs.length)
+      {
+        rarest = i;
+      }
+    }
+    
+    int[] candidates = lists[rarest].docs;
+    for (int i = 0; (i < num) && (candidates.length > 0); ++i)
+    {
+      if (i != rarest)
+      {
+        candidates = intersect(candidates, lists[i].docs);
+      }
+    }
+    
+    // Keep the candidates where the tokens are adjacent
+    IntList matches = new IntList(candidates.length);
+    int[] cursor = new int[num];
+    for (int c = 0; c < candidates.length; ++c)
+    {
+      final int doc = candidates[c];
+      
+      // Find the entry in each posting list (the candidates
+      // are ascending, so the cursors only move forward)
+      for (int i = 0; i < num; ++i)
+      {
+        final int[] docs = lists[i].docs;
+        while (docs[cursor[i]] < doc)
+        {
+          ++cursor[i];
+        }
+      }
+      
+      if (matchesPhrase(lists, cursor))
+      {
+        matches.add(doc);
+      }
+    }
+    
+    return matches.toArray();
+  }
+  
+  
+  /**
+   * Returns whether the tokens occur in consecutive positions
+   * in one entry.
+   * 
+   * @param lists the posting list for each token
+   * @param docIndex the index of the entry in each posting list
+   * @return whether the phrase occurs in the entry
+   */
+  private static boolean matchesPhrase(final Postings[] lists,
+                                       final int[] docIndex)
+  {
+    // Try each position of the first token as the phrase start
+    final Postings first = lists[0];
+    final int end = first.offsets[docIndex[0] + 1];
+    for (int p = first.offsets[docIndex[0]]; p < end; ++p)
+    {
+      final int start = first.positions[p];
+      boolean found = true;
+      for (int i = 1; (i < lists.length) && (found); ++i)
+      {
+        found = lists[i].hasPosition(docIndex[i], start + i);
+      }
+      
+      if (found)
+      {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Returns the IDs of the entries whose definitions best match
+   * the free-text query, ranked with BM25, best first.  The
+   * posting lists of the query tokens are merged one entry at a
+   * time and only the top k entries are kept, so no per-entry
+   * score array is allocated.
+   * 
+   * @param query the description to look up
+   * @param filter the filter the entry must pass (can be null)
+   * @param k the maximum number of entries to return, or -1 for all
+   * @return the entry IDs, in order of descending score
+   */
+  public int[] rank(final String query,
+                    final EntryFilter filter,
+                    final int k)
+  {
+    // Collect the posting list and weight of each distinct query token
+    List<Postings> lists = new ArrayList<Postings>(8);
+    List<Double> weights = new ArrayList<Double>(8);
+    final double numDocs = docLength.length;
+    int maxMatches = 0;
+    final List<String> queryTokens = FilterUtility.tokenize(query);
+    for (String token : new java.util.LinkedHashSet<String>(queryTokens))
+    {
+      final Integer tokenId = vocabulary.get(token);
+      if (tokenId != null)
+      {
+        final Postings p = postings[tokenId.intValue()];
+        final double df = p.docs.length;
+        lists.add(p);
+        final double idf = Math.log(1.0 + ((numDocs - df + 0.5) / (df + 0.5)));
+        weights.add(Double.valueOf(idf));
+        maxMatches += p.docs.length;
+      }
+    }
+    
+    final int num = lists.size();
+    if (num == 0)
+    {
+      return EMPTY;
+    }
+    
+    // Merge the posting lists in entry order
+    TopK top = new TopK((k < 0) ? maxMatches : Math.min(k, maxMatches));
+    int[] cursor = new int[num];
+    while (true)
+    {
+      // Find the lowest entry ID under the cursors
+      int doc = Integer.MAX_VALUE;
+      for (int i = 0; i < num; ++i)
+      {
+        final int[] docs = lists.get(i).docs;
+        if ((cursor[i] < docs.length) && (docs[cursor[i]] < doc))
+        {
+          doc = docs[cursor[i]];
+        }
+      }
+      
+      if (doc == Integer.MAX_VALUE)
+      {
+        break;
+      }
+      
+      // Sum the score for each token in the entry, and
+      // move those cursors forward
+      final double norm = BM25_K1 *
+        (1.0 - BM25_B + (BM25_B * docLength[doc] / avgDocLength));
+      double score = 0.0;
+      for (int i = 0; i < num; ++i)
+      {
+        final Postings p = lists.get(i);
+        if ((cursor[i] < p.docs.length) && (p.docs[cursor[i]] == doc))
+        {
+          final int tf = p.offsets[cursor[i] + 1] - p.offsets[cursor[i]];
+          score += weights.get(i).doubleValue() *
+                   (tf * (BM25_K1 + 1.0)) / (tf + norm);
+          ++cursor[i];
+        }
+      }
+      
+      // Only check the filter if the entry would make the list
+      if ((!top.isFull()) || (score > top.getMinScore()))
+      {
+        if ((filter == null) || (filter.accept(dict.get(doc))))
+        {
+          top.offer(doc, score);
+        }
+      }
+    }
+    
+    return top.toSortedArray();
+  }
+  
+  
+  /**
+   * Returns the values found in both sorted arrays.
+   * 
+   * @param a the first sorted array
+   * @param b the second sorted array
+   * @return the sorted intersection
+   */
+  public static int[] intersect(final int[] a, final int[] b)
+  {
+    // Walk the shorter array, searching forward in the longer one
+    final int[] small = ((a.length <= b.length) ? a : b);
+    final int[] large = ((a.length <= b.length) ? b : a);
+    
+    IntList result = new IntList(small.length);
+    int from = 0;
+    for (int i = 0; (i < small.length) && (from < large.length); ++i)
+    {
+      final int index = java.util.Arrays.binarySearch(large, from,
+                                                      large.length, small[i]);
+      if (index >= 0)
+      {
+        result.add(small[i]);
+        from = index + 1;
+      }
+      else
+      {
+        from = -(index + 1);
+      }
+    }
+    
+    return result.toArray();
+  }
+}
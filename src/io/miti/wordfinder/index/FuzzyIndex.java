@@ -0,0 +1,304 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.BitSet;
+
+/**
+ * Finds the terms closest to a word by edit (Levenshtein)
+ * distance.  The terms are found by walking the term automaton
+ * (see TermDawg.findNear()), with the k-th best match found so
+ * far as the limit, so every subtree whose words are all further
+ * away is skipped and the cost depends on how many terms are
+ * near the word rather than on the size of the dictionary.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class FuzzyIndex
+{
+  /**
+   * The weight of the distance in a match's score.  The
+   * tie-breakers must stay below this.
+   */
+  private static final double DISTANCE_WEIGHT = 1000000.0;
+  
+  /**
+   * The upper limit for each tie-breaker.
+   */
+  private static final int TIE_LIMIT = 999;
+  
+  /**
+   * The dictionary that was indexed.
+   */
+  private final DictionaryData dict;
+  
+  /**
+   * The automaton over the terms.
+   */
+  private final TermDawg dawg;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public FuzzyIndex(final DictionaryData dict)
+  {
+    super();
+    this.dict = dict;
+    dawg = dict.getTermDawg();
+  }
+  
+  
+  /**
+   * Returns the IDs of the k terms closest to the word, nearest
+   * first.  Terms at the same distance are ordered by the number
+   * of senses (more first), then by length (shorter first).
+   * 
+   * @param word the word to compare against
+   * @param ignoreCase whether to ignore the case of the characters
+   * @param k the number of terms to return, or -1 for all of them
+   * @return the term IDs, nearest first
+   */
+  public int[] closest(final String word,
+                       final boolean ignoreCase,
+                       final int k)
+  {
+    return closest(word, ignoreCase, k, null);
+  }
+  
+  
+  /**
+   * Returns the IDs of the k terms in a set that are closest to
+   * the word, nearest first, ordered as in the other closest().
+   * 
+   * @param word the word to compare against
+   * @param ignoreCase whether to ignore the case of the characters
+   * @param k the number of terms to return, or -1 for all of them
+   * @param allowed the IDs of the terms to consider, or null for all
+   * @return the term IDs, nearest first
+   */
+  public int[] closest(final String word,
+                       final boolean ignoreCase,
+                       final int k,
+                       final BitSet allowed)
+  {
+    final String source = ((word == null) ? "" : word);
+    final int count =
+      ((allowed == null) ? dict.getTermCount() : allowed.cardinality());
+    if ((k < 0) || (k >= count))
+    {
+      return rankAll(source, ignoreCase, allowed, count);
+    }
+    else if (k == 0)
+    {
+      return new int[0];
+    }
+    
+    // Walk the automaton, narrowing the limit as closer terms are found
+    final TopK top = new TopK(k);
+    dawg.findNear(source, ignoreCase, new TermDawg.NearTerms()
+    {
+      public int getLimit()
+      {
+        return getThreshold(top);
+      }
+      
+      public void add(final int termId, final int dist)
+      {
+        if ((allowed == null) || (allowed.get(termId)))
+        {
+          top.offer(termId, score(termId, dist));
+        }
+      }
+    });
+    
+    return top.toSortedArray();
+  }
+  
+  
+  /**
+   * Returns the IDs of all the terms in a set, ordered as in
+   * closest().
+   * 
+   * @param source the word to compare against
+   * @param ignoreCase whether to ignore the case of the characters
+   * @param allowed the IDs of the terms to rank, or null for all
+   * @param count the number of terms in the set
+   * @return the term IDs, nearest first
+   */
+  private int[] rankAll(final String source, final boolean ignoreCase,
+                        final BitSet allowed, final int count)
+  {
+    // Reuse the rows of the distance matrix across terms
+    final int n = source.length();
+    int[] prev = new int[n + 1];
+    int[] curr = new int[n + 1];
+    TopK top = new TopK(count);
+    final int terms = dict.getTermCount();
+    for (int termId = 0; termId < terms; ++termId)
+    {
+      if ((allowed == null) || (allowed.get(termId)))
+      {
+        final int dist = distance(source, dict.getTerm(termId), ignoreCase,
+                                  Integer.MAX_VALUE, prev, curr);
+        top.offer(termId, score(termId, dist));
+      }
+    }
+    
+    return top.toSortedArray();
+  }
+  
+  
+  /**
+   * Returns the highest distance that could still make the list.
+   * 
+   * @param top the matches found so far
+   * @return the distance threshold
+   */
+  private static int getThreshold(final TopK top)
+  {
+    if (!top.isFull())
+    {
+      return Integer.MAX_VALUE;
+    }
+    
+    // The tie-breakers are a positive fraction of the distance weight
+    return (int) Math.ceil(-top.getMinScore() / DISTANCE_WEIGHT);
+  }
+  
+  
+  /**
+   * Returns the score for a term at a distance (higher is better).
+   * 
+   * @param termId the term ID
+   * @param dist the edit distance
+   * @return the score
+   */
+  private double score(final int termId, final int dist)
+  {
+    final int senses = Math.min(dict.getSenseCount(termId), TIE_LIMIT);
+    final int len = Math.min(dict.getTerm(termId).length(), TIE_LIMIT);
+    return (-(dist * DISTANCE_WEIGHT)) + ((senses * (TIE_LIMIT + 1)) - len);
+  }
+  
+  
+  /**
+   * Returns the edit distance between two strings.
+   * 
+   * @param s the source string
+   * @param t the target string
+   * @param ignoreCase whether to ignore the case of the characters
+   * @return the edit distance
+   */
+  public static int distance(final String s, final String t,
+                             final boolean ignoreCase)
+  {
+    final int n = s.length();
+    return distance(s, t, ignoreCase, Integer.MAX_VALUE,
+                    new int[n + 1], new int[n + 1]);
+  }
+  
+  
+  /**
+   * Returns the edit distance between two strings, or a value
+   * over the limit as soon as the distance is known to exceed it.
+   * 
+   * @param s the source string
+   * @param t the target string
+   * @param ignoreCase whether to ignore the case of the characters
+   * @param limit the highest distance of interest
+   * @param prev a row buffer at least as long as s plus one
+   * @param curr a row buffer at least as long as s plus one
+   * @return the edit distance, or more than the limit
+   */
+  private static int distance(final String s, final String t,
+                              final boolean ignoreCase, final int limit,
+                              final int[] prev, final int[] curr)
+  {
+    final int n = s.length();
+    final int m = t.length();
+    if (Math.abs(n - m) > limit)
+    {
+      return Math.abs(n - m);
+    }
+    
+    for (int i = 0; i <= n; ++i)
+    {
+      prev[i] = i;
+    }
+    
+    int[] p = prev;
+    int[] c = curr;
+    for (int j = 1; j <= m; ++j)
+    {
+      final char tj = fold(t.charAt(j - 1), ignoreCase);
+      c[0] = j;
+      int rowMin = j;
+      for (int i = 1; i <= n; ++i)
+      {
+        final int cost = ((fold(s.charAt(i - 1), ignoreCase) == tj) ? 0 : 1);
+        c[i] = Math.min(Math.min(c[i - 1] + 1, p[i] + 1), p[i - 1] + cost);
+        rowMin = Math.min(rowMin, c[i]);
+      }
+      
+      // Every later row is at least this row's minimum
+      if (rowMin > limit)
+      {
+        return rowMin;
+      }
+      
+      final int[] swap = p;
+      p = c;
+      c = swap;
+    }
+    
+    return p[n];
+  }
+  
+  
+  /**
+   * Fold the case of a character if case is being ignored, the
+   * same way TermDawg does, so two characters that are equal
+   * ignoring case fold to the same character.
+   * 
+   * @param ch the character
+   * @param ignoreCase whether to ignore the case
+   * @return the character to compare
+   */
+  private static char fold(final char ch, final boolean ignoreCase)
+  {
+    return (ignoreCase ?
+            Character.toLowerCase(Character.toUpperCase(ch)) : ch);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+/**
+ * A growable list of primitive ints, used when building
+ * the indexes so that postings don't need to be boxed.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class IntList
+{
+  /**
+   * The data.
+   */
+  private int[] data;
+  
+  /**
+   * The number of values in the list.
+   */
+  private int size = 0;
+  
+  
+  /**
+   * Default constructor.
+   */
+  public IntList()
+  {
+    this(8);
+  }
+  
+  
+  /**
+   * Initializes the list with an initial capacity.
+   * 
+   * @param capacity the initial capacity
+   */
+  public IntList(final int capacity)
+  {
+    super();
+    data = new int[Math.max(1, capacity)];
+  }
+  
+  
+  /**
+   * Append a value to the end of the list.
+   * 
+   * @param value the value to add
+   */
+  public void add(final int value)
+  {
+    // Grow the array if it's full
+    if (size == data.length)
+    {
+      int[] bigger = new int[size + (size >> 1) + 1];
+      System.arraycopy(data, 0, bigger, 0, size);
+      data = bigger;
+    }
+    
+    data[size++] = value;
+  }
+  
+  
+  /**
+   * Returns the value at the specified index.
+   * 
+   * @param index the index of the value
+   * @return the value at the specified index
+   */
+  public int get(final int index)
+  {
+    return data[index];
+  }
+  
+  
+  /**
+   * Returns the number of values in the list.
+   * 
+   * @return the number of values in the list
+   */
+  public int size()
+  {
+    return size;
+  }
+  
+  
+  /**
+   * Empty the list, keeping the allocated storage.
+   */
+  public void clear()
+  {
+    size = 0;
+  }
+  
+  
+  /**
+   * Returns the values as an array sized to fit.
+   * 
+   * @return the values in the list
+   */
+  public int[] toArray()
+  {
+    int[] result = new int[size];
+    System.arraycopy(data, 0, result, 0, size);
+    return result;
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+/**
+ * Partitions the terms by length, so a search can skip the
+ * terms that are too short or too long for its filter.  The
+ * terms are partitioned twice if any of them has a space: by
+ * their full length, and by their length without the spaces,
+ * for filters that don't count spaces.  Terms whose length
+ * changes with their case are kept apart and returned for
+ * every range, since a filter that ignores case may see them
+ * at a different length.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class LengthIndex
+{
+  /**
+   * The terms grouped by their full length.
+   */
+  private final Groups withSpaces;
+  
+  /**
+   * The terms grouped by their length without spaces (the
+   * same groups if no term has a space).
+   */
+  private final Groups withoutSpaces;
+  
+  /**
+   * The terms whose length changes with their case.
+   */
+  private final int[] irregular;
+  
+  
+  /**
+   * The term IDs grouped by one measure of length.
+   */
+  private static final class Groups
+  {
+    /**
+     * The start of each length's terms in byLength (one longer
+     * than the number of lengths).
+     */
+    private final int[] lengthStart;
+    
+    /**
+     * The term IDs, grouped by length, in ascending order
+     * within each length.
+     */
+    private final int[] byLength;
+    
+    
+    /**
+     * Group the terms by length.
+     * 
+     * @param lengths the length of each term, or -1 to leave it out
+     * @param maxLen the longest length
+     * @param num the number of terms not left out
+     */
+    private Groups(final int[] lengths, final int maxLen, final int num)
+    {
+      // Count the terms of each length
+      lengthStart = new int[maxLen + 2];
+      for (int i = 0; i < lengths.length; ++i)
+      {
+        if (lengths[i] >= 0)
+        {
+          ++lengthStart[lengths[i] + 1];
+        }
+      }
+      
+      for (int len = 0; len <= maxLen; ++len)
+      {
+        lengthStart[len + 1] += lengthStart[len];
+      }
+      
+      // Fill in the groups
+      byLength = new int[num];
+      int[] next = new int[maxLen + 1];
+      System.arraycopy(lengthStart, 0, next, 0, maxLen + 1);
+      for (int i = 0; i < lengths.length; ++i)
+      {
+        if (lengths[i] >= 0)
+        {
+          byLength[next[lengths[i]]++] = i;
+        }
+      }
+    }
+    
+    
+    /**
+     * Returns the longest length.
+     * 
+     * @return the maximum length
+     */
+    private int getMaxLength()
+    {
+      return (lengthStart.length - 2);
+    }
+  }
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public LengthIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Find the length of each term, with and without spaces
+    final int num = dict.getTermCount();
+    int[] full = new int[num];
+    int[] letters = new int[num];
+    int maxLen = 0;
+    int maxLetters = 0;
+    boolean spaces = false;
+    IntList others = new IntList(4);
+    for (int i = 0; i < num; ++i)
+    {
+      final String term = dict.getTerm(i);
+      if ((term.toUpperCase().length() != term.length()) ||
+          (term.toLowerCase().length() != term.length()))
+      {
+        full[i] = -1;
+        letters[i] = -1;
+        others.add(i);
+        continue;
+      }
+      
+      full[i] = term.length();
+      letters[i] = term.length() - countSpaces(term);
+      spaces = (spaces || (letters[i] != full[i]));
+      maxLen = Math.max(maxLen, full[i]);
+      maxLetters = Math.max(maxLetters, letters[i]);
+    }
+    
+    irregular = others.toArray();
+    final int regular = num - irregular.length;
+    withSpaces = new Groups(full, maxLen, regular);
+    withoutSpaces =
+      ((spaces) ? new Groups(letters, maxLetters, regular) : withSpaces);
+  }
+  
+  
+  /**
+   * Returns the length of the longest term.
+   * 
+   * @return the maximum term length
+   */
+  public int getMaxLength()
+  {
+    return withSpaces.getMaxLength();
+  }
+  
+  
+  /**
+   * Returns the number of spaces in a term.
+   * 
+   * @param term the term
+   * @return the number of spaces
+   */
+  private static int countSpaces(final String term)
+  {
+    int count = 0;
+    for (int i = term.indexOf(' '); i >= 0; i = term.indexOf(' ', i + 1))
+    {
+      ++count;
+    }
+    
+    return count;
+  }
+  
+  
+  /**
+   * Returns the number of terms find() would return for a range.
+   * 
+   * @param minLength the minimum length
+   * @param maxLength the maximum length
+   * @return the number of terms
+   */
+  public int count(final int minLength, final int maxLength)
+  {
+    return count(minLength, maxLength, true);
+  }
+  
+  
+  /**
+   * Returns the number of terms find() would return for a range.
+   * 
+   * @param minLength the minimum length
+   * @param maxLength the maximum length
+   * @param spaces whether spaces count toward the length
+   * @return the number of terms
+   */
+  public int count(final int minLength, final int maxLength,
+                   final boolean spaces)
+  {
+    final Groups groups = (spaces ? withSpaces : withoutSpaces);
+    final int low = Math.max(0, minLength);
+    final int high = Math.min(groups.getMaxLength(), maxLength);
+    final int num = ((low > high) ? 0 : (groups.lengthStart[high + 1] -
+                                         groups.lengthStart[low]));
+    return (num + irregular.length);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms with a length in the range,
+   * and of the terms whose length changes with their case.
+   * 
+   * @param minLength the minimum length
+   * @param maxLength the maximum length
+   * @return the term IDs, in ascending order
+   */
+  public int[] find(final int minLength, final int maxLength)
+  {
+    return find(minLength, maxLength, true);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms with a length in the range,
+   * and of the terms whose length changes with their case.
+   * 
+   * @param minLength the minimum length
+   * @param maxLength the maximum length
+   * @param spaces whether spaces count toward the length
+   * @return the term IDs, in ascending order
+   */
+  public int[] find(final int minLength, final int maxLength,
+                    final boolean spaces)
+  {
+    // Find the range of terms to copy
+    final Groups groups = (spaces ? withSpaces : withoutSpaces);
+    final int low = Math.max(0, minLength);
+    final int high = Math.min(groups.getMaxLength(), maxLength);
+    final int start = ((low > high) ? 0 : groups.lengthStart[low]);
+    final int end = ((low > high) ? 0 : groups.lengthStart[high + 1]);
+    
+    int[] ids = new int[(end - start) + irregular.length];
+    System.arraycopy(groups.byLength, start, ids, 0, end - start);
+    System.arraycopy(irregular, 0, ids, end - start, irregular.length);
+    
+    // More than one group (or the irregular terms) need sorting
+    if ((high > low) || (irregular.length > 0))
+    {
+      java.util.Arrays.sort(ids);
+    }
+    
+    return ids;
+  }
+}
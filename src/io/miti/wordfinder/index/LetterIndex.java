@@ -0,0 +1,138 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+import io.miti.wordfinder.filter.SubAnagramFilter;
+
+/**
+ * Holds a 26-letter count vector and a letter-presence mask for
+ * every term, so "words from these letters" searches reject most
+ * terms with a single mask test, and only compare letter counts
+ * for the rest.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class LetterIndex
+{
+  /**
+   * The letter mask for each term, indexed by term ID.
+   */
+  private final int[] masks;
+  
+  /**
+   * The letter counts, 26 per term, indexed by term ID.
+   */
+  private final byte[] counts;
+  
+  /**
+   * The number of letters in each term, indexed by term ID.
+   */
+  private final int[] lengths;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public LetterIndex(final DictionaryData dict)
+  {
+    super();
+    
+    final int num = dict.getTermCount();
+    final int letters = SubAnagramFilter.LETTERS;
+    masks = new int[num];
+    counts = new byte[num * letters];
+    lengths = new int[num];
+    int[] wordCounts = new int[letters];
+    for (int i = 0; i < num; ++i)
+    {
+      java.util.Arrays.fill(wordCounts, 0);
+      masks[i] = SubAnagramFilter.countLetters(dict.getTerm(i), wordCounts);
+      for (int j = 0; j < letters; ++j)
+      {
+        // No real word has more than 127 of one letter
+        counts[(i * letters) + j] = (byte) Math.min(wordCounts[j], 127);
+        lengths[i] += wordCounts[j];
+      }
+    }
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that can be formed from the
+   * filter's rack of letters, longest first.
+   * 
+   * @param filter the rack of letters
+   * @return the matching term IDs, longest first
+   */
+  public int[] find(final SubAnagramFilter filter)
+  {
+    // Check the mask, then the length, then the counts
+    final int rackSize = filter.getRackSize();
+    final int letters = SubAnagramFilter.LETTERS;
+    IntList matches = new IntList(100);
+    final int num = masks.length;
+    for (int i = 0; i < num; ++i)
+    {
+      if ((filter.acceptMask(masks[i])) && (lengths[i] > 0) &&
+          (lengths[i] <= rackSize) &&
+          (filter.acceptCounts(counts, i * letters)))
+      {
+        matches.add(i);
+      }
+    }
+    
+    // Order the matches by length (longest first), keeping
+    // term order for terms of the same length
+    int[] byLength = new int[rackSize + 2];
+    final int size = matches.size();
+    for (int i = 0; i < size; ++i)
+    {
+      ++byLength[rackSize - lengths[matches.get(i)] + 1];
+    }
+    
+    for (int i = 1; i < byLength.length; ++i)
+    {
+      byLength[i] += byLength[i - 1];
+    }
+    
+    int[] result = new int[size];
+    for (int i = 0; i < size; ++i)
+    {
+      final int termId = matches.get(i);
+      result[byLength[rackSize - lengths[termId]]++] = termId;
+    }
+    
+    return result;
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+import io.miti.wordfinder.filter.LetterPatternFilter;
+
+import java.util.HashMap;
+
+/**
+ * Indexes the terms by their letter pattern signature (see
+ * LetterPatternFilter), so "words with the same pattern as
+ * xyzzy" is a single lookup.  The signatures are computed
+ * when the index is built.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class LetterPatternIndex
+{
+  /**
+   * An empty result.
+   */
+  private static final int[] EMPTY = new int[0];
+  
+  /**
+   * Map of signature to the IDs of the terms with it.
+   */
+  private final HashMap<String, int[]> terms;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public LetterPatternIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Group the term IDs by signature
+    final int num = dict.getTermCount();
+    HashMap<String, IntList> groups = new HashMap<String, IntList>(num);
+    for (int i = 0; i < num; ++i)
+    {
+      final String sig = LetterPatternFilter.getSignature(dict.getTerm(i));
+      IntList group = groups.get(sig);
+      if (group == null)
+      {
+        group = new IntList(2);
+        groups.put(sig, group);
+      }
+      
+      group.add(i);
+    }
+    
+    // Store each group as an array
+    terms = new HashMap<String, int[]>(groups.size());
+    for (java.util.Map.Entry<String, IntList> entry : groups.entrySet())
+    {
+      terms.put(entry.getKey(), entry.getValue().toArray());
+    }
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms with a signature.
+   * 
+   * @param signature the letter pattern signature
+   * @return the term IDs, in ascending order
+   */
+  public int[] find(final String signature)
+  {
+    final int[] ids = terms.get(signature);
+    return ((ids == null) ? EMPTY : ids);
+  }
+}
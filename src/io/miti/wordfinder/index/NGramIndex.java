@@ -0,0 +1,171 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.HashMap;
+
+/**
+ * Indexes the terms by the runs of three characters (trigrams)
+ * they contain, with case folded, so the terms that contain
+ * some text can be found by intersecting the lists for the
+ * text's trigrams.  Every term that contains the text is in
+ * the result, but a term can have all the trigrams without
+ * containing the text, so the terms still need to be checked.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class NGramIndex
+{
+  /**
+   * The number of characters in each gram.
+   */
+  public static final int GRAM = 3;
+  
+  /**
+   * An empty result.
+   */
+  private static final int[] EMPTY = new int[0];
+  
+  /**
+   * Map of packed trigram to the IDs of the terms with it.
+   */
+  private final HashMap<Long, int[]> terms;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public NGramIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Collect the term IDs for each trigram
+    final int num = dict.getTermCount();
+    HashMap<Long, IntList> grams = new HashMap<Long, IntList>(num);
+    for (int i = 0; i < num; ++i)
+    {
+      final String term = dict.getTerm(i);
+      final int last = term.length() - GRAM;
+      for (int j = 0; j <= last; ++j)
+      {
+        final Long key = Long.valueOf(pack(term, j));
+        IntList list = grams.get(key);
+        if (list == null)
+        {
+          list = new IntList(4);
+          grams.put(key, list);
+        }
+        
+        // Only add the term once per trigram
+        if ((list.size() == 0) || (list.get(list.size() - 1) != i))
+        {
+          list.add(i);
+        }
+      }
+    }
+    
+    // Store each list as an array
+    terms = new HashMap<Long, int[]>(grams.size());
+    for (java.util.Map.Entry<Long, IntList> entry : grams.entrySet())
+    {
+      terms.put(entry.getKey(), entry.getValue().toArray());
+    }
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that have every trigram in
+   * the text (ignoring case), or null if the text is too
+   * short to have a trigram.
+   * 
+   * @param text the text the terms must contain
+   * @return the term IDs in ascending order, or null
+   */
+  public int[] find(final String text)
+  {
+    final int last = text.length() - GRAM;
+    if (last < 0)
+    {
+      return null;
+    }
+    
+    // Start with the shortest list, to keep the intersections small
+    int[][] lists = new int[last + 1][];
+    int shortest = 0;
+    for (int j = 0; j <= last; ++j)
+    {
+      lists[j] = terms.get(Long.valueOf(pack(text, j)));
+      if (lists[j] == null)
+      {
+        return EMPTY;
+      }
+      else if (lists[j].length < lists[shortest].length)
+      {
+        shortest = j;
+      }
+    }
+    
+    int[] result = lists[shortest];
+    for (int j = 0; (j <= last) && (result.length > 0); ++j)
+    {
+      if (j != shortest)
+      {
+        result = DefinitionIndex.intersect(result, lists[j]);
+      }
+    }
+    
+    return result;
+  }
+  
+  
+  /**
+   * Returns the trigram at an index in a string, with its case
+   * folded, packed into a long.
+   * 
+   * @param str the string
+   * @param index the index of the first character
+   * @return the packed trigram
+   */
+  private static long pack(final String str, final int index)
+  {
+    long key = 0L;
+    for (int i = 0; i < GRAM; ++i)
+    {
+      final char ch = str.charAt(index + i);
+      key = (key << 16) | Character.toLowerCase(Character.toUpperCase(ch));
+    }
+    
+    return key;
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index for crossword-style patterns, where each character of
+ * the pattern is either a known letter or '?' (any one character).
+ * The terms are partitioned by length, and for every length there
+ * is a bitset for each (position, character) pair, so a pattern is
+ * resolved by intersecting the bitsets for its known characters.
+ * Characters are indexed in upper case; a case-sensitive pattern
+ * gets a superset of its matches, to be checked by the caller.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class PatternIndex
+{
+  /**
+   * The term IDs of each length, in ascending order.
+   */
+  private final int[][] byLength;
+  
+  /**
+   * For each length, the bitsets over that length's terms,
+   * keyed on the position and character.
+   */
+  private final List<Map<Integer, long[]>> bitsets;
+  
+  /**
+   * The terms whose upper-case form has a different length,
+   * which are returned as candidates for every pattern.
+   */
+  private final int[] irregular;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public PatternIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Count the terms of each length
+    final int num = dict.getTermCount();
+    int maxLength = 0;
+    for (int i = 0; i < num; ++i)
+    {
+      maxLength = Math.max(maxLength, dict.getTerm(i).length());
+    }
+    
+    int[] sizes = new int[maxLength + 1];
+    IntList odd = new IntList(4);
+    for (int i = 0; i < num; ++i)
+    {
+      final String term = dict.getTerm(i);
+      ++sizes[term.length()];
+      if (term.toUpperCase().length() != term.length())
+      {
+        odd.add(i);
+      }
+    }
+    
+    irregular = odd.toArray();
+    
+    // Set the bits for each term
+    byLength = new int[maxLength + 1][];
+    bitsets = new ArrayList<Map<Integer, long[]>>(maxLength + 1);
+    for (int len = 0; len <= maxLength; ++len)
+    {
+      byLength[len] = new int[sizes[len]];
+      bitsets.add(new HashMap<Integer, long[]>(len * 30));
+      sizes[len] = 0;
+    }
+    
+    for (int i = 0; i < num; ++i)
+    {
+      final String term = dict.getTerm(i);
+      final int len = term.length();
+      final int bit = sizes[len]++;
+      byLength[len][bit] = i;
+      
+      final int words = (byLength[len].length + 63) >>> 6;
+      final Map<Integer, long[]> sets = bitsets.get(len);
+      for (int pos = 0; pos < len; ++pos)
+      {
+        final Integer key =
+          getKey(pos, Character.toUpperCase(term.charAt(pos)));
+        long[] bits = sets.get(key);
+        if (bits == null)
+        {
+          bits = new long[words];
+          sets.put(key, bits);
+        }
+        
+        bits[bit >>> 6] |= (1L << bit);
+      }
+    }
+  }
+  
+  
+  /**
+   * Returns the key for a position and character.
+   * 
+   * @param pos the position in the term
+   * @param ch the character
+   * @return the key
+   */
+  private static Integer getKey(final int pos, final char ch)
+  {
+    return Integer.valueOf((pos << 16) | ch);
+  }
+  
+  
+  /**
+   * Returns the IDs of the candidate terms for a pattern: every
+   * term of the pattern's length with the pattern's known
+   * characters (ignoring case) in the same positions.
+   * 
+   * @param pattern the pattern, with '?' for any one character
+   * @return the candidate term IDs, in ascending order
+   */
+  public int[] find(final String pattern)
+  {
+    final int len = pattern.length();
+    IntList result = new IntList(100);
+    if ((len > 0) && (len < byLength.length))
+    {
+      // Intersect the bitsets for the known characters
+      final int[] ids = byLength[len];
+      long[] bits = null;
+      for (int pos = 0; pos < len; ++pos)
+      {
+        final char ch = pattern.charAt(pos);
+        if (ch == '?')
+        {
+          continue;
+        }
+        
+        final long[] set =
+          bitsets.get(len).get(getKey(pos, Character.toUpperCase(ch)));
+        if (set == null)
+        {
+          // No term has this character here
+          bits = new long[0];
+          break;
+        }
+        
+        if (bits == null)
+        {
+          bits = set.clone();
+        }
+        else
+        {
+          for (int w = 0; w < bits.length; ++w)
+          {
+            bits[w] &= set[w];
+          }
+        }
+      }
+      
+      // Collect the term IDs for the set bits
+      if (bits == null)
+      {
+        for (int i = 0; i < ids.length; ++i)
+        {
+          result.add(ids[i]);
+        }
+      }
+      else
+      {
+        for (int w = 0; w < bits.length; ++w)
+        {
+          long word = bits[w];
+          while (word != 0L)
+          {
+            result.add(ids[(w << 6) + Long.numberOfTrailingZeros(word)]);
+            word &= (word - 1L);
+          }
+        }
+      }
+    }
+    
+    if (irregular.length == 0)
+    {
+      return result.toArray();
+    }
+    
+    // Add the terms that can't be indexed by position
+    for (int i = 0; i < irregular.length; ++i)
+    {
+      result.add(irregular[i]);
+    }
+    
+    int[] ids = result.toArray();
+    java.util.Arrays.sort(ids);
+    IntList unique = new IntList(ids.length);
+    for (int i = 0; i < ids.length; ++i)
+    {
+      if ((i == 0) || (ids[i] != ids[i - 1]))
+      {
+        unique.add(ids[i]);
+      }
+    }
+    
+    return unique.toArray();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.BitSet;
+
+/**
+ * Keeps a bit set of entry IDs for each part of speech, and
+ * a bit set of the term IDs with at least one sense of it, so
+ * a search by part of speech is a union of bit sets that can
+ * be combined cheaply with the results of the other indexes.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class SpeechIndex
+{
+  /**
+   * The entry IDs for each part of speech, indexed by code.
+   */
+  private final BitSet[] entries;
+  
+  /**
+   * The term IDs for each part of speech, indexed by code.
+   */
+  private final BitSet[] terms;
+  
+  
+  /**
+   * Build the index over the entries in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public SpeechIndex(final DictionaryData dict)
+  {
+    super();
+    
+    // Every code in use was assigned when the entries were loaded
+    final int codes = dict.getSpeechCodeCount();
+    entries = new BitSet[codes];
+    terms = new BitSet[codes];
+    
+    final int size = dict.size();
+    for (int i = 0; i < size; ++i)
+    {
+      final int code = dict.getSpeechCode(i);
+      if (entries[code] == null)
+      {
+        entries[code] = new BitSet(size);
+        terms[code] = new BitSet(dict.getTermCount());
+      }
+      
+      entries[code].set(i);
+      terms[code].set(dict.getTermId(i));
+    }
+  }
+  
+  
+  /**
+   * Returns the IDs of the entries with any of the parts of
+   * speech, as a new bit set.
+   * 
+   * @param codes the codes for the parts of speech
+   * @return the entry IDs
+   */
+  public BitSet findEntries(final int[] codes)
+  {
+    return union(entries, codes);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms with at least one sense with
+   * any of the parts of speech, as a new bit set.
+   * 
+   * @param codes the codes for the parts of speech
+   * @return the term IDs
+   */
+  public BitSet findTerms(final int[] codes)
+  {
+    return union(terms, codes);
+  }
+  
+  
+  /**
+   * Returns the union of the bit sets for the codes.
+   * 
+   * @param sets the bit sets, indexed by code
+   * @param codes the codes
+   * @return the union, as a new bit set
+   */
+  private static BitSet union(final BitSet[] sets, final int[] codes)
+  {
+    BitSet result = new BitSet();
+    for (int i = 0; i < codes.length; ++i)
+    {
+      // Skip codes that no entry has
+      final int code = codes[i];
+      if ((code >= 0) && (code < sets.length) && (sets[code] != null))
+      {
+        result.or(sets[code]);
+      }
+    }
+    
+    return result;
+  }
+}
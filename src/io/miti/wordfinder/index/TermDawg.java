@@ -0,0 +1,792 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A minimal acyclic automaton (DAWG) over the set of terms, which
+ * shares both the prefixes and the suffixes of the words.  Once
+ * built, the automaton is stored in flat int arrays.  Each node
+ * records how many words it accepts, so every word has an index
+ * (its position in sorted order) that is summed up along its path,
+ * and all the words below a node form one contiguous range of
+ * indexes.  Prefix and wildcard searches walk the automaton and
+ * skip every subtree that can't match, and add a subtree whole
+ * once the rest of the pattern is only '*'.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class TermDawg
+{
+  /**
+   * The longest pattern (in positions) the automaton can walk.
+   */
+  private static final int MAX_PATTERN = 62;
+  
+  /**
+   * The pattern kind for a literal character.
+   */
+  private static final byte LITERAL = 0;
+  
+  /**
+   * The pattern kind for any one character ('?').
+   */
+  private static final byte ANY = 1;
+  
+  /**
+   * The pattern kind for any run of characters ('*').
+   */
+  private static final byte STAR = 2;
+  
+  /**
+   * The start of each node's edges (one longer than the
+   * number of nodes).  The root is node 0.
+   */
+  private final int[] edgeStart;
+  
+  /**
+   * The character on each edge.
+   */
+  private final char[] edgeChar;
+  
+  /**
+   * The node each edge leads to.
+   */
+  private final int[] edgeTarget;
+  
+  /**
+   * The number added to a word's index for taking each edge:
+   * the words that end at the edge's node, plus the words
+   * under the node's earlier edges.
+   */
+  private final int[] edgeSkip;
+  
+  /**
+   * For each node, the number of words it accepts shifted left
+   * one bit, with the low bit set if a word ends at the node.
+   */
+  private final int[] nodeInfo;
+  
+  /**
+   * The term ID for each word index.
+   */
+  private final int[] termIds;
+  
+  /**
+   * The terms whose upper-case form has a different length,
+   * which are returned as candidates for every case-insensitive
+   * search.
+   */
+  private final int[] irregular;
+  
+  
+  /**
+   * Receives the terms found near a word by findNear().
+   */
+  public interface NearTerms
+  {
+    /**
+     * Returns the highest distance still of interest.
+     * 
+     * @return the distance limit
+     */
+    int getLimit();
+    
+    /**
+     * Add a term found within the limit.
+     * 
+     * @param termId the term ID
+     * @param dist the edit distance of the term
+     */
+    void add(int termId, int dist);
+  }
+  
+  
+  /**
+   * A node of the automaton while it's being built.
+   */
+  private static final class Node
+  {
+    /**
+     * Whether a word ends here.
+     */
+    private boolean isFinal = false;
+    
+    /**
+     * The edge characters, in ascending order.
+     */
+    private final StringBuilder chars = new StringBuilder(2);
+    
+    /**
+     * The edge targets.
+     */
+    private final List<Node> kids = new ArrayList<Node>(2);
+    
+    /**
+     * The node's number in the final arrays (-1 until known).
+     */
+    private int id = -1;
+    
+    
+    /**
+     * Returns a key that's equal for two nodes only if they
+     * accept the same words (their children are already unique).
+     * 
+     * @return the key
+     */
+    private String getKey()
+    {
+      StringBuilder sb = new StringBuilder(8 + (kids.size() * 8));
+      sb.append(isFinal ? '1' : '0');
+      for (int i = 0; i < kids.size(); ++i)
+      {
+        sb.append(chars.charAt(i)).append(kids.get(i).id).append(',');
+      }
+      
+      return sb.toString();
+    }
+  }
+  
+  
+  /**
+   * Build the automaton over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public TermDawg(final DictionaryData dict)
+  {
+    super();
+    
+    // Sort the term IDs by term
+    final int num = dict.getTermCount();
+    final String[] words = new String[num];
+    Integer[] order = new Integer[num];
+    IntList odd = new IntList(4);
+    for (int i = 0; i < num; ++i)
+    {
+      words[i] = dict.getTerm(i);
+      order[i] = Integer.valueOf(i);
+      if (words[i].toUpperCase().length() != words[i].length())
+      {
+        odd.add(i);
+      }
+    }
+    
+    irregular = odd.toArray();
+    Arrays.sort(order, new Comparator<Integer>()
+    {
+      public int compare(final Integer a, final Integer b)
+      {
+        return words[a.intValue()].compareTo(words[b.intValue()]);
+      }
+    });
+    
+    termIds = new int[num];
+    for (int i = 0; i < num; ++i)
+    {
+      termIds[i] = order[i].intValue();
+    }
+    
+    // Add the words in sorted order, merging the finished part
+    // of the automaton with the equivalent nodes seen so far
+    HashMap<String, Node> register = new HashMap<String, Node>(num);
+    List<Node> nodes = new ArrayList<Node>(num);
+    Node root = new Node();
+    String previous = "";
+    for (int i = 0; i < num; ++i)
+    {
+      final String word = words[termIds[i]];
+      
+      // Find the end of the prefix shared with the previous word
+      int common = 0;
+      final int max = Math.min(word.length(), previous.length());
+      while ((common < max) && (word.charAt(common) == previous.charAt(common)))
+      {
+        ++common;
+      }
+      
+      Node node = root;
+      for (int j = 0; j < common; ++j)
+      {
+        node = node.kids.get(node.kids.size() - 1);
+      }
+      
+      // The rest of the previous word is finished
+      replaceOrRegister(node, register, nodes);
+      
+      // Add the rest of this word
+      for (int j = common; j < word.length(); ++j)
+      {
+        Node next = new Node();
+        node.chars.append(word.charAt(j));
+        node.kids.add(next);
+        node = next;
+      }
+      
+      node.isFinal = true;
+      previous = word;
+    }
+    
+    replaceOrRegister(root, register, nodes);
+    root.id = nodes.size();
+    nodes.add(root);
+    
+    // Store the nodes in arrays, with the root first
+    final int numNodes = nodes.size();
+    int numEdges = 0;
+    for (Node n : nodes)
+    {
+      numEdges += n.kids.size();
+    }
+    
+    edgeStart = new int[numNodes + 1];
+    edgeChar = new char[numEdges];
+    edgeTarget = new int[numEdges];
+    edgeSkip = new int[numEdges];
+    nodeInfo = new int[numNodes];
+    
+    // Children are registered before their parents, so the
+    // counts can be filled in in registration order
+    int[] counts = new int[numNodes];
+    for (Node n : nodes)
+    {
+      int count = (n.isFinal ? 1 : 0);
+      for (Node kid : n.kids)
+      {
+        count += counts[kid.id];
+      }
+      
+      counts[n.id] = count;
+    }
+    
+    int e = 0;
+    for (int k = 0; k < numNodes; ++k)
+    {
+      // Number the root 0, shifting the others up by one
+      final Node n = nodes.get((k == 0) ? (numNodes - 1) : (k - 1));
+      edgeStart[k] = e;
+      nodeInfo[k] = (counts[n.id] << 1) | (n.isFinal ? 1 : 0);
+      int skip = (n.isFinal ? 1 : 0);
+      for (int i = 0; i < n.kids.size(); ++i)
+      {
+        final Node kid = n.kids.get(i);
+        edgeChar[e] = n.chars.charAt(i);
+        edgeTarget[e] = ((kid.id + 1) % numNodes);
+        edgeSkip[e] = skip;
+        skip += counts[kid.id];
+        ++e;
+      }
+    }
+    
+    edgeStart[numNodes] = e;
+  }
+  
+  
+  /**
+   * Merge the chain of last children below a node with the
+   * equivalent registered nodes, registering any new ones.
+   * 
+   * @param node the node whose last child is finished
+   * @param register the registered nodes, by key
+   * @param nodes the registered nodes, in order
+   */
+  private static void replaceOrRegister(final Node node,
+                                        final HashMap<String, Node> register,
+                                        final List<Node> nodes)
+  {
+    if (node.kids.isEmpty())
+    {
+      return;
+    }
+    
+    final int last = node.kids.size() - 1;
+    final Node child = node.kids.get(last);
+    if (child.id >= 0)
+    {
+      // Already registered
+      return;
+    }
+    
+    replaceOrRegister(child, register, nodes);
+    
+    final String key = child.getKey();
+    final Node same = register.get(key);
+    if (same != null)
+    {
+      node.kids.set(last, same);
+    }
+    else
+    {
+      child.id = nodes.size();
+      nodes.add(child);
+      register.put(key, child);
+    }
+  }
+  
+  
+  /**
+   * Returns the number of nodes in the automaton.
+   * 
+   * @return the number of nodes
+   */
+  public int getNodeCount()
+  {
+    return nodeInfo.length;
+  }
+  
+  
+  /**
+   * Returns the term ID of a word (matching case), or -1 if
+   * it's not in the automaton.
+   * 
+   * @param word the word to look up
+   * @return the term ID, or -1
+   */
+  public int find(final String word)
+  {
+    int node = 0;
+    int index = 0;
+    final int len = word.length();
+    for (int i = 0; i < len; ++i)
+    {
+      final int e = getEdge(node, word.charAt(i));
+      if (e < 0)
+      {
+        return -1;
+      }
+      
+      index += edgeSkip[e];
+      node = edgeTarget[e];
+    }
+    
+    return (((nodeInfo[node] & 1) != 0) ? termIds[index] : -1);
+  }
+  
+  
+  /**
+   * Returns whether a word (matching case) is a term.
+   * 
+   * @param word the word to look up
+   * @return whether the word is a term
+   */
+  public boolean contains(final String word)
+  {
+    return (find(word) >= 0);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that start with the prefix.
+   * 
+   * @param prefix the prefix
+   * @param ignoreCase whether to ignore the case
+   * @return the term IDs in ascending order, or null if too long
+   */
+  public int[] findPrefix(final String prefix, final boolean ignoreCase)
+  {
+    return findPattern(prefix, ignoreCase, false, true);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that equal the word.
+   * 
+   * @param word the word
+   * @param ignoreCase whether to ignore the case
+   * @return the term IDs in ascending order, or null if too long
+   */
+  public int[] findExact(final String word, final boolean ignoreCase)
+  {
+    return findPattern(word, ignoreCase, false, false);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that could match a wildcard
+   * pattern, where '*' is any run of characters and '?' is any
+   * one character, or null if the pattern is empty (which
+   * WildcardFilter takes to match everything) or starts with
+   * '*' (so every node would be visited) or is too long to
+   * walk.  As in
+   * WildcardFilter, the part after the last '*' is matched
+   * against the end of the word on its own, so it may overlap
+   * the parts before it; that part is left for the filter to
+   * check, and the terms returned match the pattern up to and
+   * including the last '*'.
+   * 
+   * @param pattern the pattern
+   * @param ignoreCase whether to ignore the case
+   * @return the term IDs in ascending order, or null
+   */
+  public int[] findWildcard(final String pattern, final boolean ignoreCase)
+  {
+    if ((pattern.length() == 0) || pattern.startsWith("*"))
+    {
+      return null;
+    }
+    
+    // Drop the part after the last '*'
+    final int star = pattern.lastIndexOf('*');
+    final String front = ((star < 0) ? pattern : pattern.substring(0, star + 1));
+    return findPattern(front, ignoreCase, true, false);
+  }
+  
+  
+  /**
+   * Returns the IDs of the terms that match a pattern.
+   * 
+   * @param text the pattern text
+   * @param ignoreCase whether to ignore the case
+   * @param wildcards whether '*' and '?' are wildcards
+   * @param prefix whether to match any ending (a trailing '*')
+   * @return the term IDs in ascending order, or null if too long
+   */
+  private int[] findPattern(final String text, final boolean ignoreCase,
+                            final boolean wildcards, final boolean prefix)
+  {
+    // Convert the pattern into characters and kinds
+    final int len = text.length() + (prefix ? 1 : 0);
+    if ((len > MAX_PATTERN) ||
+        (ignoreCase && (text.toUpperCase().length() != text.length())))
+    {
+      return null;
+    }
+    
+    char[] pat = new char[len];
+    byte[] kinds = new byte[len];
+    for (int i = 0; i < text.length(); ++i)
+    {
+      final char ch = text.charAt(i);
+      pat[i] = (ignoreCase ? fold(ch) : ch);
+      kinds[i] = ((wildcards && (ch == '*')) ? STAR
+                  : ((wildcards && (ch == '?')) ? ANY : LITERAL));
+    }
+    
+    if (prefix)
+    {
+      kinds[len - 1] = STAR;
+    }
+    
+    // Find the positions from which the rest is all '*' (none if
+    // the pattern doesn't end with one, so the walk stops at the
+    // words that match it exactly)
+    long tail = 0L;
+    for (int i = len - 1; (i >= 0) && (kinds[i] == STAR); --i)
+    {
+      tail |= (1L << i);
+    }
+    
+    IntList result = new IntList(100);
+    walk(0, closure(1L, kinds), 0, pat, kinds, tail, ignoreCase, result);
+    if (ignoreCase && (wildcards || prefix))
+    {
+      // Add the terms that folding one character at a time can miss
+      // (the filters for these compare the upper-case strings, but
+      // an exact match compares one character at a time, as here)
+      for (int i = 0; i < irregular.length; ++i)
+      {
+        result.add(irregular[i]);
+      }
+    }
+    
+    int[] ids = result.toArray();
+    Arrays.sort(ids);
+    IntList unique = new IntList(ids.length);
+    for (int i = 0; i < ids.length; ++i)
+    {
+      if ((i == 0) || (ids[i] != ids[i - 1]))
+      {
+        unique.add(ids[i]);
+      }
+    }
+    
+    return unique.toArray();
+  }
+  
+  
+  /**
+   * Walk the automaton from a node, with a set of active
+   * pattern positions, adding the matching term IDs.
+   * 
+   * @param node the current node
+   * @param states the active pattern positions, one bit each
+   * @param index the word index reached so far
+   * @param pat the pattern characters
+   * @param kinds the pattern kinds
+   * @param tail the positions from which the rest is all '*'
+   * @param ignoreCase whether to fold the edge characters
+   * @param result the list to add the term IDs to
+   */
+  private void walk(final int node, final long states, final int index,
+                    final char[] pat, final byte[] kinds, final long tail,
+                    final boolean ignoreCase, final IntList result)
+  {
+    // Everything below matches once the rest of the pattern is '*'
+    if ((states & tail) != 0L)
+    {
+      final int end = index + (nodeInfo[node] >>> 1);
+      for (int i = index; i < end; ++i)
+      {
+        result.add(termIds[i]);
+      }
+      
+      return;
+    }
+    
+    if (((nodeInfo[node] & 1) != 0) && ((states & (1L << pat.length)) != 0L))
+    {
+      result.add(termIds[index]);
+    }
+    
+    // Follow the edges that keep some position alive
+    for (int e = edgeStart[node]; e < edgeStart[node + 1]; ++e)
+    {
+      final char ch = (ignoreCase ? fold(edgeChar[e]) : edgeChar[e]);
+      final long next = step(states, ch, pat, kinds);
+      if (next != 0L)
+      {
+        walk(edgeTarget[e], next, index + edgeSkip[e], pat, kinds, tail,
+             ignoreCase, result);
+      }
+    }
+  }
+  
+  
+  /**
+   * Find the terms near a word by edit (Levenshtein) distance.
+   * The automaton is walked with one row of the distance matrix
+   * per node on the path, so the rows for a shared prefix are
+   * only computed once, and a subtree is skipped as soon as the
+   * smallest value in its row is over the limit, which is read
+   * again for every edge so it can drop as terms are found.  At
+   * each node the edge for the word's next character is taken
+   * first, so the closest terms tend to be found early.
+   * 
+   * @param word the word to compare against
+   * @param ignoreCase whether to fold the case of the characters
+   * @param found receives the terms within the limit
+   */
+  public void findNear(final String word, final boolean ignoreCase,
+                       final NearTerms found)
+  {
+    final int n = word.length();
+    char[] chars = new char[n];
+    int[] first = new int[n + 1];
+    for (int i = 0; i < n; ++i)
+    {
+      chars[i] = (ignoreCase ? fold(word.charAt(i)) : word.charAt(i));
+      first[i + 1] = i + 1;
+    }
+    
+    if (((nodeInfo[0] & 1) != 0) && (n <= found.getLimit()))
+    {
+      found.add(termIds[0], n);
+    }
+    
+    List<int[]> rows = new ArrayList<int[]>(32);
+    rows.add(first);
+    walkNear(0, 0, 1, chars, ignoreCase, rows, found);
+  }
+  
+  
+  /**
+   * Walk the edges from a node, computing the row of the distance
+   * matrix for each one, and adding the terms within the limit.
+   * 
+   * @param node the current node
+   * @param index the word index reached so far
+   * @param depth the number of characters read to reach the children
+   * @param chars the word's characters
+   * @param ignoreCase whether to fold the edge characters
+   * @param rows the rows of the distance matrix, by depth
+   * @param found receives the terms within the limit
+   */
+  private void walkNear(final int node, final int index, final int depth,
+                        final char[] chars, final boolean ignoreCase,
+                        final List<int[]> rows, final NearTerms found)
+  {
+    final int n = chars.length;
+    if (rows.size() <= depth)
+    {
+      rows.add(new int[n + 1]);
+    }
+    
+    // Take the edges for the word's next character first
+    final boolean more = (depth <= n);
+    final char want = (more ? chars[depth - 1] : 0);
+    for (int pass = (more ? 0 : 1); pass < 2; ++pass)
+    {
+      for (int e = edgeStart[node]; e < edgeStart[node + 1]; ++e)
+      {
+        final char ch = (ignoreCase ? fold(edgeChar[e]) : edgeChar[e]);
+        if (more && ((ch == want) != (pass == 0)))
+        {
+          continue;
+        }
+        
+        final int[] prev = rows.get(depth - 1);
+        final int[] curr = rows.get(depth);
+        curr[0] = depth;
+        int rowMin = depth;
+        for (int i = 1; i <= n; ++i)
+        {
+          final int cost = ((chars[i - 1] == ch) ? 0 : 1);
+          curr[i] = Math.min(Math.min(curr[i - 1] + 1, prev[i] + 1),
+                             prev[i - 1] + cost);
+          rowMin = Math.min(rowMin, curr[i]);
+        }
+        
+        // Every longer word below is at least the row's minimum
+        if (rowMin > found.getLimit())
+        {
+          continue;
+        }
+        
+        final int target = edgeTarget[e];
+        final int next = index + edgeSkip[e];
+        if (((nodeInfo[target] & 1) != 0) && (curr[n] <= found.getLimit()))
+        {
+          found.add(termIds[next], curr[n]);
+        }
+        
+        walkNear(target, next, depth + 1, chars, ignoreCase, rows, found);
+      }
+    }
+  }
+  
+  
+  /**
+   * Returns the pattern positions reached by reading a character.
+   * 
+   * @param states the active pattern positions
+   * @param ch the character read
+   * @param pat the pattern characters
+   * @param kinds the pattern kinds
+   * @return the new positions (0 if none)
+   */
+  private static long step(final long states, final char ch,
+                           final char[] pat, final byte[] kinds)
+  {
+    long next = 0L;
+    for (int p = 0; p < pat.length; ++p)
+    {
+      if ((states & (1L << p)) == 0L)
+      {
+        continue;
+      }
+      
+      if (kinds[p] == STAR)
+      {
+        next |= (1L << p);
+      }
+      else if ((kinds[p] == ANY) || (pat[p] == ch))
+      {
+        next |= (1L << (p + 1));
+      }
+    }
+    
+    return closure(next, kinds);
+  }
+  
+  
+  /**
+   * Add the positions after each '*' in the set, since a '*'
+   * can match nothing.
+   * 
+   * @param states the pattern positions
+   * @param kinds the pattern kinds
+   * @return the positions, with those after each '*' added
+   */
+  private static long closure(final long states, final byte[] kinds)
+  {
+    long result = states;
+    for (int p = 0; p < kinds.length; ++p)
+    {
+      if (((result & (1L << p)) != 0L) && (kinds[p] == STAR))
+      {
+        result |= (1L << (p + 1));
+      }
+    }
+    
+    return result;
+  }
+  
+  
+  /**
+   * Returns a character with its case folded, so two characters
+   * that are equal ignoring case fold to the same character.
+   * 
+   * @param ch the character
+   * @return the folded character
+   */
+  private static char fold(final char ch)
+  {
+    return Character.toLowerCase(Character.toUpperCase(ch));
+  }
+  
+  
+  /**
+   * Returns the edge from a node for a character, or -1.
+   * 
+   * @param node the node
+   * @param ch the character
+   * @return the edge, or -1
+   */
+  private int getEdge(final int node, final char ch)
+  {
+    int low = edgeStart[node];
+    int high = edgeStart[node + 1] - 1;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      if (edgeChar[mid] < ch)
+      {
+        low = mid + 1;
+      }
+      else if (edgeChar[mid] > ch)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    
+    return -1;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+import io.miti.wordfinder.DictionaryData;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Gives each term its position in alphabetical order, so
+ * results can be sorted by comparing ints instead of strings.
+ * Terms are ordered ignoring case first, with terms that only
+ * differ by case in String order.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class TermOrder
+{
+  /**
+   * The position of each term in alphabetical order.
+   */
+  private final int[] ranks;
+  
+  
+  /**
+   * Build the index over the terms in the dictionary.
+   * 
+   * @param dict the dictionary to index
+   */
+  public TermOrder(final DictionaryData dict)
+  {
+    super();
+    
+    // Sort the term IDs by their terms
+    final int num = dict.getTermCount();
+    final String[] terms = new String[num];
+    Integer[] ids = new Integer[num];
+    for (int i = 0; i < num; ++i)
+    {
+      terms[i] = dict.getTerm(i);
+      ids[i] = Integer.valueOf(i);
+    }
+    
+    Arrays.sort(ids, new Comparator<Integer>()
+    {
+      public int compare(final Integer a, final Integer b)
+      {
+        return compareTerms(terms[a.intValue()], terms[b.intValue()]);
+      }
+    });
+    
+    ranks = new int[num];
+    for (int i = 0; i < num; ++i)
+    {
+      ranks[ids[i].intValue()] = i;
+    }
+  }
+  
+  
+  /**
+   * Compare two terms in the order used by the index.
+   * 
+   * @param a the first term
+   * @param b the second term
+   * @return less than, equal to or greater than zero if the
+   *         first term comes before, with or after the second
+   */
+  public static int compareTerms(final String a, final String b)
+  {
+    final int cmp = String.CASE_INSENSITIVE_ORDER.compare(a, b);
+    return ((cmp != 0) ? cmp : a.compareTo(b));
+  }
+  
+  
+  /**
+   * Returns the position of a term in alphabetical order.
+   * 
+   * @param termId the term ID
+   * @return the position of the term
+   */
+  public int getRank(final int termId)
+  {
+    return ranks[termId];
+  }
+}
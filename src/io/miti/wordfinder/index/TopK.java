@@ -0,0 +1,244 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.index;
+
+/**
+ * Keeps the k highest-scoring IDs offered to it, using a
+ * bounded min-heap so only k results are ever held.  Ties
+ * are broken in favor of the lower ID.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class TopK
+{
+  /**
+   * The maximum number of IDs to keep.
+   */
+  private final int capacity;
+  
+  /**
+   * The IDs in the heap.
+   */
+  private final int[] ids;
+  
+  /**
+   * The scores in the heap (the lowest is at index 0).
+   */
+  private final double[] scores;
+  
+  /**
+   * The number of IDs in the heap.
+   */
+  private int size = 0;
+  
+  
+  /**
+   * Initializes the heap with the number of IDs to keep.
+   * 
+   * @param k the number of IDs to keep
+   */
+  public TopK(final int k)
+  {
+    super();
+    capacity = Math.max(0, k);
+    ids = new int[capacity];
+    scores = new double[capacity];
+  }
+  
+  
+  /**
+   * Returns whether the heap holds k IDs.
+   * 
+   * @return whether the heap is full
+   */
+  public boolean isFull()
+  {
+    return (size == capacity);
+  }
+  
+  
+  /**
+   * Returns the lowest score in the heap.  Once the heap is full,
+   * an ID needs a higher score than this to get in.
+   * 
+   * @return the lowest score kept so far
+   */
+  public double getMinScore()
+  {
+    return ((size == 0) ? Double.NEGATIVE_INFINITY : scores[0]);
+  }
+  
+  
+  /**
+   * Offer an ID to the heap.
+   * 
+   * @param id the ID
+   * @param score the score for the ID (higher is better)
+   * @return whether the ID was kept
+   */
+  public boolean offer(final int id, final double score)
+  {
+    if (size < capacity)
+    {
+      // There's room, so add it and sift it up
+      ids[size] = id;
+      scores[size] = score;
+      siftUp(size++);
+      return true;
+    }
+    
+    if ((capacity == 0) || (!better(id, score, ids[0], scores[0])))
+    {
+      return false;
+    }
+    
+    // Replace the lowest entry and sift it down
+    ids[0] = id;
+    scores[0] = score;
+    siftDown(0);
+    return true;
+  }
+  
+  
+  /**
+   * Returns the IDs in the heap, best first.  The heap is
+   * emptied.
+   * 
+   * @return the IDs, in order of descending score
+   */
+  public int[] toSortedArray()
+  {
+    int[] result = new int[size];
+    while (size > 0)
+    {
+      // Remove the lowest entry, filling the array from the back
+      result[size - 1] = ids[0];
+      --size;
+      ids[0] = ids[size];
+      scores[0] = scores[size];
+      siftDown(0);
+    }
+    
+    return result;
+  }
+  
+  
+  /**
+   * Returns whether the first entry ranks above the second.
+   * 
+   * @param id1 the first ID
+   * @param score1 the first score
+   * @param id2 the second ID
+   * @param score2 the second score
+   * @return whether the first entry is better
+   */
+  private static boolean better(final int id1, final double score1,
+                                final int id2, final double score2)
+  {
+    return ((score1 > score2) || ((score1 == score2) && (id1 < id2)));
+  }
+  
+  
+  /**
+   * Move an entry up the heap until its parent is lower.
+   * 
+   * @param index the index of the entry
+   */
+  private void siftUp(final int index)
+  {
+    int i = index;
+    while (i > 0)
+    {
+      final int parent = (i - 1) >> 1;
+      if (!better(ids[parent], scores[parent], ids[i], scores[i]))
+      {
+        break;
+      }
+      
+      swap(i, parent);
+      i = parent;
+    }
+  }
+  
+  
+  /**
+   * Move an entry down the heap until its children are higher.
+   * 
+   * @param index the index of the entry
+   */
+  private void siftDown(final int index)
+  {
+    int i = index;
+    while (true)
+    {
+      // Find the lowest of the entry and its children
+      int lowest = i;
+      final int left = (2 * i) + 1;
+      final int right = left + 1;
+      if ((left < size) &&
+          (better(ids[lowest], scores[lowest], ids[left], scores[left])))
+      {
+        lowest = left;
+      }
+      
+      if ((right < size) &&
+          (better(ids[lowest], scores[lowest], ids[right], scores[right])))
+      {
+        lowest = right;
+      }
+      
+      if (lowest == i)
+      {
+        break;
+      }
+      
+      swap(i, lowest);
+      i = lowest;
+    }
+  }
+  
+  
+  /**
+   * Swap two entries in the heap.
+   * 
+   * @param i the first index
+   * @param j the second index
+   */
+  private void swap(final int i, final int j)
+  {
+    final int id = ids[i];
+    ids[i] = ids[j];
+    ids[j] = id;
+    
+    final double score = scores[i];
+    scores[i] = scores[j];
+    scores[j] = score;
+  }
+}
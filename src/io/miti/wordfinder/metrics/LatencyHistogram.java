@@ -0,0 +1,229 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, in microseconds, with buckets that
+ * grow with the value (in the style of HdrHistogram): values
+ * below 32 have a bucket each, and each power of two above that
+ * is split into 32 buckets, so any recorded value is known to
+ * within about 3%.  Recording is lock-free and takes constant
+ * time, so it can be done on every query.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class LatencyHistogram
+{
+  /**
+   * The number of bits of a value kept in its bucket.
+   */
+  private static final int SUB_BITS = 5;
+  
+  /**
+   * The number of buckets for each power of two.
+   */
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  
+  /**
+   * The number of buckets (enough for any positive long).
+   */
+  private static final int BUCKETS = SUB_COUNT * (64 - SUB_BITS);
+  
+  /**
+   * The number of values in each bucket.
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  
+  /**
+   * The number of values recorded.
+   */
+  private final AtomicLong total = new AtomicLong(0L);
+  
+  /**
+   * The sum of the values recorded.
+   */
+  private final AtomicLong sum = new AtomicLong(0L);
+  
+  /**
+   * The largest value recorded.
+   */
+  private final AtomicLong max = new AtomicLong(0L);
+  
+  
+  /**
+   * Default constructor.
+   */
+  public LatencyHistogram()
+  {
+    super();
+  }
+  
+  
+  /**
+   * Record a value.
+   * 
+   * @param micros the value, in microseconds (negative values count as 0)
+   */
+  public void record(final long micros)
+  {
+    final long value = Math.max(0L, micros);
+    counts.incrementAndGet(getBucket(value));
+    total.incrementAndGet();
+    sum.addAndGet(value);
+    
+    long prev = max.get();
+    while ((value > prev) && (!max.compareAndSet(prev, value)))
+    {
+      prev = max.get();
+    }
+  }
+  
+  
+  /**
+   * Returns the bucket for a value.
+   * 
+   * @param value the value (not negative)
+   * @return the bucket index
+   */
+  private static int getBucket(final long value)
+  {
+    if (value < SUB_COUNT)
+    {
+      return (int) value;
+    }
+    
+    // Keep the top bits of the value, below its highest bit
+    final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BITS;
+    return (SUB_COUNT * (shift + 1)) + ((int) (value >>> shift) - SUB_COUNT);
+  }
+  
+  
+  /**
+   * Returns the highest value that falls in a bucket.
+   * 
+   * @param bucket the bucket index
+   * @return the highest value in the bucket
+   */
+  private static long getHighestValue(final int bucket)
+  {
+    if (bucket < SUB_COUNT)
+    {
+      return bucket;
+    }
+    
+    final int shift = (bucket / SUB_COUNT) - 1;
+    final long top = (bucket % SUB_COUNT) + SUB_COUNT;
+    return (((top + 1) << shift) - 1);
+  }
+  
+  
+  /**
+   * Returns the number of values recorded.
+   * 
+   * @return the number of values
+   */
+  public long getCount()
+  {
+    return total.get();
+  }
+  
+  
+  /**
+   * Returns the mean of the values recorded.
+   * 
+   * @return the mean, in microseconds, or 0 if there are no values
+   */
+  public double getMean()
+  {
+    final long num = total.get();
+    return ((num == 0L) ? 0.0 : (((double) sum.get()) / num));
+  }
+  
+  
+  /**
+   * Returns the largest value recorded.
+   * 
+   * @return the largest value, in microseconds
+   */
+  public long getMax()
+  {
+    return max.get();
+  }
+  
+  
+  /**
+   * Returns the value at a percentile: the highest value in
+   * the bucket that holds that share of the values.
+   * 
+   * @param percentile the percentile (0 to 100)
+   * @return the value, in microseconds, or 0 if there are no values
+   */
+  public long getPercentile(final double percentile)
+  {
+    final long num = total.get();
+    if (num == 0L)
+    {
+      return 0L;
+    }
+    
+    final double share = Math.min(100.0, Math.max(0.0, percentile)) / 100.0;
+    final long target = Math.max(1L, (long) Math.ceil(share * num));
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; ++i)
+    {
+      seen += counts.get(i);
+      if (seen >= target)
+      {
+        return Math.min(getHighestValue(i), max.get());
+      }
+    }
+    
+    return max.get();
+  }
+  
+  
+  /**
+   * Clear the values recorded.
+   */
+  public void reset()
+  {
+    for (int i = 0; i < BUCKETS; ++i)
+    {
+      counts.set(i, 0L);
+    }
+    
+    total.set(0L);
+    sum.set(0L);
+    max.set(0L);
+  }
+}
@@ -0,0 +1,522 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of the application's metrics: per-mode query
+ * counts and latencies, the candidates each mode examined to
+ * find its matches, cache hit rates, and the dictionary load
+ * time.  The figures are kept in memory, can be read through
+ * JMX, and can be written to a file.
+ * 
+ * A query is recorded between startQuery() and endQuery() on
+ * the same thread.  Searches that call other searches are only
+ * recorded once, under the outermost mode.  Each query is also
+ * sent to the flight recorder as a ScanEvent.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class Metrics implements MetricsMBean
+{
+  /**
+   * The JMX domain for the beans.
+   */
+  private static final String DOMAIN = "io.miti.wordfinder";
+  
+  /**
+   * The one instance of this class.
+   */
+  private static final Metrics instance = new Metrics();
+  
+  /**
+   * The statistics for each search mode.
+   */
+  private final ConcurrentMap<String, ModeStats> modes =
+    new ConcurrentHashMap<String, ModeStats>();
+  
+  /**
+   * The hits and lookups for each cache (in that order).
+   */
+  private final ConcurrentMap<String, AtomicLong[]> caches =
+    new ConcurrentHashMap<String, AtomicLong[]>();
+  
+  /**
+   * The query in progress on each thread.
+   */
+  private final ThreadLocal<Query> current = new ThreadLocal<Query>();
+  
+  /**
+   * The server the beans are registered with, if any.
+   */
+  private MBeanServer server = null;
+  
+  /**
+   * The time taken to load the dictionary, in milliseconds.
+   */
+  private volatile long loadTime = 0L;
+  
+  /**
+   * The number of entries in the loaded dictionary.
+   */
+  private volatile int loadedEntries = 0;
+  
+  
+  /**
+   * A query being timed.
+   */
+  private static final class Query
+  {
+    /**
+     * The search mode.
+     */
+    private final String mode;
+    
+    /**
+     * The time the query started, in nanoseconds.
+     */
+    private final long start;
+    
+    /**
+     * The flight recorder event for the query.
+     */
+    private final ScanEvent event;
+    
+    /**
+     * How deeply startQuery() calls are nested.
+     */
+    private int depth = 1;
+    
+    /**
+     * The number of candidates examined.
+     */
+    private long examined = 0L;
+    
+    
+    /**
+     * Start timing a query.
+     * 
+     * @param name the search mode
+     * @param termLength the length of the search term, or -1
+     */
+    public Query(final String name, final int termLength)
+    {
+      mode = name;
+      event = new ScanEvent(name, termLength);
+      start = System.nanoTime();
+    }
+  }
+  
+  
+  /**
+   * Default constructor.
+   */
+  private Metrics()
+  {
+    super();
+  }
+  
+  
+  /**
+   * Returns the one instance of this class.
+   * 
+   * @return the metrics registry
+   */
+  public static Metrics getInstance()
+  {
+    return instance;
+  }
+  
+  
+  /**
+   * Start timing a query on this thread.  If a query is already
+   * running, this one is counted as part of it.
+   * 
+   * @param mode the search mode
+   */
+  public void startQuery(final String mode)
+  {
+    startQuery(mode, -1);
+  }
+  
+  
+  /**
+   * Start timing a query for a search term on this thread.  If
+   * a query is already running, this one is counted as part of it.
+   * 
+   * @param mode the search mode
+   * @param termLength the length of the search term, or -1
+   */
+  public void startQuery(final String mode, final int termLength)
+  {
+    final Query query = current.get();
+    if (query != null)
+    {
+      ++query.depth;
+    }
+    else
+    {
+      current.set(new Query(mode, termLength));
+    }
+  }
+  
+  
+  /**
+   * Add to the number of candidates examined by the query
+   * running on this thread.
+   * 
+   * @param count the number of candidates examined
+   */
+  public void addExamined(final long count)
+  {
+    final Query query = current.get();
+    if (query != null)
+    {
+      query.examined += count;
+    }
+  }
+  
+  
+  /**
+   * Stop timing the query on this thread, and record it if it's
+   * the outermost one.
+   * 
+   * @param matches the number of matches, or -1 if the query failed
+   */
+  public void endQuery(final int matches)
+  {
+    final Query query = current.get();
+    if (query == null)
+    {
+      return;
+    }
+    else if (--query.depth > 0)
+    {
+      return;
+    }
+    
+    current.remove();
+    final long micros = (System.nanoTime() - query.start) / 1000L;
+    getModeStats(query.mode).record(micros, query.examined, matches);
+    
+    if (query.event.shouldCommit())
+    {
+      query.event.setResults(query.examined, matches);
+      query.event.commit();
+    }
+  }
+  
+  
+  /**
+   * Returns the statistics for a mode, adding them if needed.
+   * 
+   * @param mode the search mode
+   * @return the statistics for the mode
+   */
+  public ModeStats getModeStats(final String mode)
+  {
+    ModeStats stats = modes.get(mode);
+    if (stats == null)
+    {
+      final ModeStats added = new ModeStats(mode);
+      stats = modes.putIfAbsent(mode, added);
+      if (stats == null)
+      {
+        stats = added;
+        register(stats);
+      }
+    }
+    
+    return stats;
+  }
+  
+  
+  /**
+   * Record a cache lookup.
+   * 
+   * @param name the name of the cache
+   * @param hit whether the value was found in the cache
+   */
+  public void recordCache(final String name, final boolean hit)
+  {
+    AtomicLong[] counts = caches.get(name);
+    if (counts == null)
+    {
+      final AtomicLong[] added = {new AtomicLong(0L), new AtomicLong(0L)};
+      counts = caches.putIfAbsent(name, added);
+      if (counts == null)
+      {
+        counts = added;
+      }
+    }
+    
+    if (hit)
+    {
+      counts[0].incrementAndGet();
+    }
+    counts[1].incrementAndGet();
+  }
+  
+  
+  /**
+   * Record how long the dictionary took to load.
+   * 
+   * @param millis the load time, in milliseconds
+   * @param entries the number of entries loaded
+   */
+  public void setLoadTime(final long millis, final int entries)
+  {
+    loadTime = millis;
+    loadedEntries = entries;
+  }
+  
+  
+  /**
+   * Returns the time taken to load the dictionary.
+   * 
+   * @return the load time, in milliseconds
+   */
+  public long getLoadTimeMillis()
+  {
+    return loadTime;
+  }
+  
+  
+  /**
+   * Returns the number of entries in the loaded dictionary.
+   * 
+   * @return the number of entries
+   */
+  public int getLoadedEntries()
+  {
+    return loadedEntries;
+  }
+  
+  
+  /**
+   * Returns the names of the search modes that have run.
+   * 
+   * @return the names of the modes
+   */
+  public String[] getModes()
+  {
+    List<String> names = new ArrayList<String>(modes.keySet());
+    java.util.Collections.sort(names);
+    return names.toArray(new String[names.size()]);
+  }
+  
+  
+  /**
+   * Returns the hit rate of each cache, as "name: hits/lookups".
+   * 
+   * @return the cache hit rates
+   */
+  public String[] getCacheHitRates()
+  {
+    List<String> rates = new ArrayList<String>(caches.size());
+    for (Map.Entry<String, AtomicLong[]> entry : caches.entrySet())
+    {
+      final long hits = entry.getValue()[0].get();
+      final long lookups = entry.getValue()[1].get();
+      final double pct = ((lookups == 0L) ? 0.0 : ((100.0 * hits) / lookups));
+      rates.add(String.format("%s: %d/%d (%.1f%%)",
+                              entry.getKey(), hits, lookups, pct));
+    }
+    
+    java.util.Collections.sort(rates);
+    return rates.toArray(new String[rates.size()]);
+  }
+  
+  
+  /**
+   * Write the metrics as text.
+   * 
+   * @param out the writer to write to
+   */
+  public void dump(final Writer out)
+  {
+    PrintWriter pw = new PrintWriter(out);
+    pw.println(String.format("Dictionary load: %d ms, %d entries",
+                             loadTime, loadedEntries));
+    pw.println();
+    
+    pw.println(String.format("%-12s %8s %6s %10s %10s %10s %10s %12s %10s",
+                             "Mode", "Queries", "Failed", "Mean(us)",
+                             "P50(us)", "P99(us)", "Max(us)",
+                             "Examined", "Matches"));
+    final String[] names = getModes();
+    for (int i = 0; i < names.length; ++i)
+    {
+      final ModeStats stats = modes.get(names[i]);
+      pw.println(String.format("%-12s %8d %6d %10.1f %10d %10d %10d %12d %10d",
+                               names[i], stats.getQueryCount(),
+                               stats.getFailureCount(), stats.getMeanMicros(),
+                               stats.getMedianMicros(), stats.getP99Micros(),
+                               stats.getMaxMicros(),
+                               stats.getCandidatesExamined(),
+                               stats.getMatches()));
+    }
+    
+    pw.println();
+    pw.println("Cache hit rates:");
+    final String[] rates = getCacheHitRates();
+    for (int i = 0; i < rates.length; ++i)
+    {
+      pw.println("  " + rates[i]);
+    }
+    
+    pw.flush();
+  }
+  
+  
+  /**
+   * Write the metrics to a file.
+   * 
+   * @param fileName the name of the file
+   * @return whether the file was written
+   */
+  public boolean dump(final String fileName)
+  {
+    Writer out = null;
+    try
+    {
+      out = new BufferedWriter(new FileWriter(fileName));
+      dump(out);
+      return true;
+    }
+    catch (IOException ioe)
+    {
+      ioe.printStackTrace();
+      return false;
+    }
+    finally
+    {
+      if (out != null)
+      {
+        try
+        {
+          out.close();
+        }
+        catch (IOException ioe)
+        {
+          ioe.printStackTrace();
+        }
+      }
+    }
+  }
+  
+  
+  /**
+   * Clear the query and cache statistics.  The load time is kept.
+   */
+  public void reset()
+  {
+    for (ModeStats stats : modes.values())
+    {
+      stats.reset();
+    }
+    
+    caches.clear();
+  }
+  
+  
+  /**
+   * Register the beans with the platform MBean server.  The
+   * statistics for each mode are registered as the mode is
+   * first used.
+   */
+  public synchronized void registerMBeans()
+  {
+    if (server != null)
+    {
+      return;
+    }
+    
+    try
+    {
+      server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, new ObjectName(DOMAIN + ":type=Metrics"));
+    }
+    catch (JMException jme)
+    {
+      jme.printStackTrace();
+    }
+    
+    for (ModeStats stats : modes.values())
+    {
+      register(stats);
+    }
+  }
+  
+  
+  /**
+   * Register the statistics for a mode, if the beans have
+   * been registered.
+   * 
+   * @param stats the statistics for a mode
+   */
+  private synchronized void register(final ModeStats stats)
+  {
+    if (server == null)
+    {
+      return;
+    }
+    
+    try
+    {
+      ObjectName name = new ObjectName(DOMAIN + ":type=Query,mode=" +
+                                       stats.getMode());
+      if (!server.isRegistered(name))
+      {
+        server.registerMBean(stats, name);
+      }
+    }
+    catch (JMException jme)
+    {
+      jme.printStackTrace();
+    }
+  }
+}
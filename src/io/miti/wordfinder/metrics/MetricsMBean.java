@@ -0,0 +1,79 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+/**
+ * The management interface for the application's metrics.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public interface MetricsMBean
+{
+  /**
+   * Returns the time taken to load the dictionary.
+   * 
+   * @return the load time, in milliseconds
+   */
+  long getLoadTimeMillis();
+  
+  /**
+   * Returns the number of entries in the loaded dictionary.
+   * 
+   * @return the number of entries
+   */
+  int getLoadedEntries();
+  
+  /**
+   * Returns the names of the search modes that have run.
+   * 
+   * @return the names of the modes
+   */
+  String[] getModes();
+  
+  /**
+   * Returns the hit rate of each cache, as "name: hits/lookups".
+   * 
+   * @return the cache hit rates
+   */
+  String[] getCacheHitRates();
+  
+  /**
+   * Write the metrics to a file.
+   * 
+   * @param fileName the name of the file
+   * @return whether the file was written
+   */
+  boolean dump(String fileName);
+  
+  /**
+   * Clear the query and cache statistics.
+   */
+  void reset();
+}
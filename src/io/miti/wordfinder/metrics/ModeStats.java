@@ -0,0 +1,224 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statistics for one search mode: the number of queries,
+ * their latencies, and how many candidates they examined to
+ * find their matches.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class ModeStats implements ModeStatsMBean
+{
+  /**
+   * The name of the search mode.
+   */
+  private final String mode;
+  
+  /**
+   * The latencies of the queries.
+   */
+  private final LatencyHistogram latency = new LatencyHistogram();
+  
+  /**
+   * The number of failed queries.
+   */
+  private final AtomicLong failures = new AtomicLong(0L);
+  
+  /**
+   * The number of candidates examined.
+   */
+  private final AtomicLong examined = new AtomicLong(0L);
+  
+  /**
+   * The number of matches returned.
+   */
+  private final AtomicLong matches = new AtomicLong(0L);
+  
+  
+  /**
+   * Initializes the statistics for a mode.
+   * 
+   * @param name the name of the mode
+   */
+  public ModeStats(final String name)
+  {
+    super();
+    mode = name;
+  }
+  
+  
+  /**
+   * Record a query.
+   * 
+   * @param micros the time the query took, in microseconds
+   * @param candidates the number of candidates examined
+   * @param found the number of matches, or -1 if the query failed
+   */
+  public void record(final long micros, final long candidates,
+                     final int found)
+  {
+    latency.record(micros);
+    examined.addAndGet(candidates);
+    if (found < 0)
+    {
+      failures.incrementAndGet();
+    }
+    else
+    {
+      matches.addAndGet(found);
+    }
+  }
+  
+  
+  /**
+   * Returns the latencies of the queries.
+   * 
+   * @return the latency histogram
+   */
+  public LatencyHistogram getLatency()
+  {
+    return latency;
+  }
+  
+  
+  /**
+   * Returns the name of the search mode.
+   * 
+   * @return the name of the mode
+   */
+  public String getMode()
+  {
+    return mode;
+  }
+  
+  
+  /**
+   * Returns the number of queries run.
+   * 
+   * @return the number of queries
+   */
+  public long getQueryCount()
+  {
+    return latency.getCount();
+  }
+  
+  
+  /**
+   * Returns the number of queries that failed.
+   * 
+   * @return the number of failed queries
+   */
+  public long getFailureCount()
+  {
+    return failures.get();
+  }
+  
+  
+  /**
+   * Returns the mean latency.
+   * 
+   * @return the mean latency, in microseconds
+   */
+  public double getMeanMicros()
+  {
+    return latency.getMean();
+  }
+  
+  
+  /**
+   * Returns the median latency.
+   * 
+   * @return the median latency, in microseconds
+   */
+  public long getMedianMicros()
+  {
+    return latency.getPercentile(50.0);
+  }
+  
+  
+  /**
+   * Returns the 99th percentile latency.
+   * 
+   * @return the 99th percentile latency, in microseconds
+   */
+  public long getP99Micros()
+  {
+    return latency.getPercentile(99.0);
+  }
+  
+  
+  /**
+   * Returns the highest latency.
+   * 
+   * @return the highest latency, in microseconds
+   */
+  public long getMaxMicros()
+  {
+    return latency.getMax();
+  }
+  
+  
+  /**
+   * Returns the number of candidates examined.
+   * 
+   * @return the number of candidates examined
+   */
+  public long getCandidatesExamined()
+  {
+    return examined.get();
+  }
+  
+  
+  /**
+   * Returns the number of matches returned.
+   * 
+   * @return the number of matches
+   */
+  public long getMatches()
+  {
+    return matches.get();
+  }
+  
+  
+  /**
+   * Clear the statistics.
+   */
+  public void reset()
+  {
+    latency.reset();
+    failures.set(0L);
+    examined.set(0L);
+    matches.set(0L);
+  }
+}
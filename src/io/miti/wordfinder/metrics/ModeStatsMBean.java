@@ -0,0 +1,102 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+/**
+ * The management interface for the statistics of one search mode.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public interface ModeStatsMBean
+{
+  /**
+   * Returns the name of the search mode.
+   * 
+   * @return the name of the mode
+   */
+  String getMode();
+  
+  /**
+   * Returns the number of queries run.
+   * 
+   * @return the number of queries
+   */
+  long getQueryCount();
+  
+  /**
+   * Returns the number of queries that failed (such as a regular
+   * expression running out of time).
+   * 
+   * @return the number of failed queries
+   */
+  long getFailureCount();
+  
+  /**
+   * Returns the mean latency.
+   * 
+   * @return the mean latency, in microseconds
+   */
+  double getMeanMicros();
+  
+  /**
+   * Returns the median latency.
+   * 
+   * @return the median latency, in microseconds
+   */
+  long getMedianMicros();
+  
+  /**
+   * Returns the 99th percentile latency.
+   * 
+   * @return the 99th percentile latency, in microseconds
+   */
+  long getP99Micros();
+  
+  /**
+   * Returns the highest latency.
+   * 
+   * @return the highest latency, in microseconds
+   */
+  long getMaxMicros();
+  
+  /**
+   * Returns the number of candidates (terms or entries) examined.
+   * 
+   * @return the number of candidates examined
+   */
+  long getCandidatesExamined();
+  
+  /**
+   * Returns the number of matches returned.
+   * 
+   * @return the number of matches
+   */
+  long getMatches();
+}
@@ -0,0 +1,93 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event for showing the results of a
+ * search in the results table.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+@Name("io.miti.wordfinder.Publish")
+@Label("Result Publication")
+@Category({"WordFinder"})
+@Description("Showing the results of a search in the table")
+@StackTrace(false)
+public final class PublishEvent extends jdk.jfr.Event
+{
+  /**
+   * The search mode.
+   */
+  @Label("Mode")
+  private String mode;
+  
+  /**
+   * The length of the search term.
+   */
+  @Label("Term Length")
+  private int termLength;
+  
+  /**
+   * The number of rows shown.
+   */
+  @Label("Matches")
+  private int matches;
+  
+  
+  /**
+   * Default constructor.
+   */
+  public PublishEvent()
+  {
+    super();
+  }
+  
+  
+  /**
+   * Set the details of the search.
+   * 
+   * @param name the search mode
+   * @param length the length of the search term
+   * @param rows the number of rows shown
+   */
+  public void setResults(final String name, final int length,
+                         final int rows)
+  {
+    mode = name;
+    termLength = length;
+    matches = rows;
+  }
+}
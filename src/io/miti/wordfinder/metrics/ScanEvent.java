@@ -0,0 +1,104 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder event for running a search against
+ * the dictionary.  It's committed by Metrics.endQuery(), so
+ * it covers the same span as the query metrics.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+@Name("io.miti.wordfinder.Scan")
+@Label("Search Execution")
+@Category({"WordFinder"})
+@Description("Finding the matches for a search")
+@StackTrace(false)
+public final class ScanEvent extends jdk.jfr.Event
+{
+  /**
+   * The search mode.
+   */
+  @Label("Mode")
+  private final String mode;
+  
+  /**
+   * The length of the search term, or -1 if the search was
+   * given a filter rather than a term.
+   */
+  @Label("Term Length")
+  private final int termLength;
+  
+  /**
+   * The number of candidates examined.
+   */
+  @Label("Candidates")
+  private long candidates;
+  
+  /**
+   * The number of matches, or -1 if the search failed.
+   */
+  @Label("Matches")
+  private int matches;
+  
+  
+  /**
+   * Initializes the event and starts timing it.
+   * 
+   * @param name the search mode
+   * @param length the length of the search term, or -1
+   */
+  public ScanEvent(final String name, final int length)
+  {
+    super();
+    mode = name;
+    termLength = length;
+    begin();
+  }
+  
+  
+  /**
+   * Set the results of the search.
+   * 
+   * @param examined the number of candidates examined
+   * @param found the number of matches, or -1 if the search failed
+   */
+  public void setResults(final long examined, final int found)
+  {
+    candidates = examined;
+    matches = found;
+  }
+}
@@ -0,0 +1,739 @@
+/*
+ * Written by Mike Wallace (mfwallace at gmail.com).  Available
+ * on the web site http://mfwallace.googlepages.com/.
+ * 
+ * Copyright (c) 2006 Mike Wallace.
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.miti.wordfinder.tools;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Writes a synthetic dictionary in "SML" format
+ * (word@part-of-speech@definition, one entry per line), as read
+ * by DictionaryData.load(), for measuring how loading and each
+ * search mode scale with the size of the dictionary.
+ * 
+ * The terms are random strings of letters, drawn with English
+ * letter frequencies so the n-gram and pattern indexes see
+ * realistic data, with lengths drawn from a configurable
+ * distribution.  Some terms are two-word phrases, and some are
+ * capitalized.  Each term has one or more senses (the entries
+ * for a term are written together), and each definition is a
+ * run of words drawn from a vocabulary of a configurable size
+ * with a Zipf distribution, as the words of real definitions
+ * are.  Short terms can come up more than once, in which case
+ * the later entries just add senses to the term.  The output is
+ * written as it's generated, and the same seed always gives
+ * the same dictionary.
+ * 
+ * @author mwallace
+ * @version 1.0
+ */
+public final class DictionaryGenerator
+{
+  /**
+   * The letters, most frequent first.
+   */
+  private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+  
+  /**
+   * The frequency of each letter in LETTERS, in tenths of a percent.
+   */
+  private static final int[] LETTER_WEIGHTS =
+    {127, 91, 82, 75, 70, 67, 63, 61, 60, 43, 40, 28, 28, 24, 24, 22, 20,
+     20, 19, 15, 10, 8, 2, 2, 1, 1};
+  
+  /**
+   * The default term length distribution (length:weight), roughly
+   * that of the single words in WordNet.
+   */
+  public static final String DEFAULT_LENGTHS =
+    "2:1,3:4,4:8,5:11,6:13,7:14,8:13,9:11,10:9,11:6,12:4,13:3,14:2,15:1";
+  
+  /**
+   * The default part-of-speech distribution (code:weight).
+   */
+  public static final String DEFAULT_SPEECH = "n:60,v:15,a:20,r:5";
+  
+  /**
+   * The default number of entries.
+   */
+  public static final long DEFAULT_ENTRIES = 100000L;
+  
+  /**
+   * The default number of distinct words in the definitions.
+   */
+  public static final int DEFAULT_VOCABULARY = 20000;
+  
+  /**
+   * The default exponent of the Zipf distribution of the
+   * definition words.
+   */
+  public static final double DEFAULT_ZIPF = 1.0;
+  
+  /**
+   * The default fraction of terms that are two-word phrases.
+   */
+  public static final double DEFAULT_PHRASE_RATE = 0.2;
+  
+  /**
+   * The default chance that a term has another sense.
+   */
+  public static final double DEFAULT_SENSE_RATE = 0.3;
+  
+  /**
+   * The most senses for one term.
+   */
+  private static final int MAX_SENSES = 12;
+  
+  /**
+   * The fraction of terms that are capitalized.
+   */
+  private static final double CAPITAL_RATE = 0.05;
+  
+  /**
+   * The fewest words in a definition.
+   */
+  private static final int MIN_DEF_WORDS = 3;
+  
+  /**
+   * The most words in a definition.
+   */
+  private static final int MAX_DEF_WORDS = 16;
+  
+  /**
+   * The shortest vocabulary word.
+   */
+  private static final int MIN_VOCAB_LENGTH = 2;
+  
+  /**
+   * The longest vocabulary word.
+   */
+  private static final int MAX_VOCAB_LENGTH = 10;
+  
+  /**
+   * The size of the output buffer.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+  
+  /**
+   * The number of entries to write.
+   */
+  private long entries = DEFAULT_ENTRIES;
+  
+  /**
+   * The term lengths to draw from.
+   */
+  private int[] lengths = null;
+  
+  /**
+   * The cumulative weights of the term lengths.
+   */
+  private double[] lengthWeights = null;
+  
+  /**
+   * The part-of-speech codes to draw from.
+   */
+  private String[] speechCodes = null;
+  
+  /**
+   * The cumulative weights of the part-of-speech codes.
+   */
+  private double[] speechWeights = null;
+  
+  /**
+   * The number of distinct words in the definitions.
+   */
+  private int vocabularySize = DEFAULT_VOCABULARY;
+  
+  /**
+   * The exponent of the Zipf distribution of the definition words.
+   */
+  private double zipf = DEFAULT_ZIPF;
+  
+  /**
+   * The fraction of terms that are two-word phrases.
+   */
+  private double phraseRate = DEFAULT_PHRASE_RATE;
+  
+  /**
+   * The chance that a term has another sense.
+   */
+  private double senseRate = DEFAULT_SENSE_RATE;
+  
+  /**
+   * The seed for the random numbers.
+   */
+  private long seed = 1L;
+  
+  /**
+   * The random number generator for the current run.
+   */
+  private Random random = null;
+  
+  /**
+   * The cumulative weights of the letters.
+   */
+  private final double[] letterWeights;
+  
+  
+  /**
+   * Initializes the generator with the default settings.
+   */
+  public DictionaryGenerator()
+  {
+    super();
+    letterWeights = toCumulative(LETTER_WEIGHTS);
+    setLengths(DEFAULT_LENGTHS);
+    setPartsOfSpeech(DEFAULT_SPEECH);
+  }
+  
+  
+  /**
+   * Set the number of entries to write.
+   * 
+   * @param count the number of entries
+   */
+  public void setEntries(final long count)
+  {
+    if (count < 0L)
+    {
+      throw new IllegalArgumentException("The number of entries is negative");
+    }
+    
+    entries = count;
+  }
+  
+  
+  /**
+   * Set the distribution of the term lengths (of each word, for
+   * phrases), either as a range ("3-12", all equally likely) or
+   * as a list of lengths and weights ("3:1,4:5,5:10").
+   * 
+   * @param spec the length distribution
+   */
+  public void setLengths(final String spec)
+  {
+    final int dash = spec.indexOf('-');
+    if ((dash > 0) && (spec.indexOf(':') < 0))
+    {
+      // A range of equally likely lengths
+      final int min = parsePositive(spec.substring(0, dash).trim());
+      final int max = parsePositive(spec.substring(dash + 1).trim());
+      if (max < min)
+      {
+        throw new IllegalArgumentException("Invalid length range: " + spec);
+      }
+      
+      lengths = new int[max - min + 1];
+      int[] weights = new int[lengths.length];
+      for (int i = 0; i < lengths.length; ++i)
+      {
+        lengths[i] = min + i;
+        weights[i] = 1;
+      }
+      
+      lengthWeights = toCumulative(weights);
+      return;
+    }
+    
+    final String[] parts = parseWeights(spec);
+    lengths = new int[parts.length / 2];
+    int[] weights = new int[lengths.length];
+    for (int i = 0; i < lengths.length; ++i)
+    {
+      lengths[i] = parsePositive(parts[2 * i]);
+      weights[i] = parsePositive(parts[(2 * i) + 1]);
+    }
+    
+    lengthWeights = toCumulative(weights);
+  }
+  
+  
+  /**
+   * Set the distribution of the parts of speech, as a list of
+   * codes and weights ("n:60,v:15,a:20,r:5").
+   * 
+   * @param spec the part-of-speech distribution
+   */
+  public void setPartsOfSpeech(final String spec)
+  {
+    final String[] parts = parseWeights(spec);
+    speechCodes = new String[parts.length / 2];
+    int[] weights = new int[speechCodes.length];
+    for (int i = 0; i < speechCodes.length; ++i)
+    {
+      speechCodes[i] = parts[2 * i];
+      if ((speechCodes[i].length() < 1) || (speechCodes[i].indexOf('@') >= 0))
+      {
+        throw new IllegalArgumentException("Invalid part of speech: " +
+                                           speechCodes[i]);
+      }
+      
+      weights[i] = parsePositive(parts[(2 * i) + 1]);
+    }
+    
+    speechWeights = toCumulative(weights);
+  }
+  
+  
+  /**
+   * Set the number of distinct words in the definitions.
+   * 
+   * @param size the size of the vocabulary
+   */
+  public void setVocabulary(final int size)
+  {
+    if (size < 1)
+    {
+      throw new IllegalArgumentException("The vocabulary must have a word");
+    }
+    
+    vocabularySize = size;
+  }
+  
+  
+  /**
+   * Set the exponent of the Zipf distribution of the definition
+   * words (0 makes every word equally likely; higher values make
+   * the common words more common).
+   * 
+   * @param exponent the exponent
+   */
+  public void setZipfExponent(final double exponent)
+  {
+    if (exponent < 0.0)
+    {
+      throw new IllegalArgumentException("The Zipf exponent is negative");
+    }
+    
+    zipf = exponent;
+  }
+  
+  
+  /**
+   * Set the fraction of terms that are two-word phrases.
+   * 
+   * @param rate the fraction of phrases, from 0 to 1
+   */
+  public void setPhraseRate(final double rate)
+  {
+    phraseRate = checkRate(rate);
+  }
+  
+  
+  /**
+   * Set the chance that a term has another sense, so the number
+   * of senses follows a geometric distribution.
+   * 
+   * @param rate the chance of another sense, from 0 to 1
+   */
+  public void setSenseRate(final double rate)
+  {
+    senseRate = checkRate(rate);
+  }
+  
+  
+  /**
+   * Set the seed for the random numbers.
+   * 
+   * @param nSeed the seed
+   */
+  public void setSeed(final long nSeed)
+  {
+    seed = nSeed;
+  }
+  
+  
+  /**
+   * Write the dictionary.
+   * 
+   * @param out the writer to write the entries to
+   * @return the number of entries written
+   * @throws IOException if the entries can't be written
+   */
+  public long generate(final Writer out) throws IOException
+  {
+    random = new Random(seed);
+    final String[] vocabulary = buildVocabulary();
+    final double[] wordWeights = buildZipfWeights(vocabulary.length);
+    
+    StringBuilder term = new StringBuilder(40);
+    StringBuilder line = new StringBuilder(200);
+    long written = 0L;
+    while (written < entries)
+    {
+      // Build the term
+      term.setLength(0);
+      appendWord(term, lengths[pick(lengthWeights)]);
+      if (random.nextDouble() < phraseRate)
+      {
+        term.append(' ');
+        appendWord(term, lengths[pick(lengthWeights)]);
+      }
+      
+      if (random.nextDouble() < CAPITAL_RATE)
+      {
+        term.setCharAt(0, Character.toUpperCase(term.charAt(0)));
+      }
+      
+      // Write each of its senses
+      int senses = 1;
+      do
+      {
+        line.setLength(0);
+        line.append(term).append('@');
+        line.append(speechCodes[pick(speechWeights)]).append('@');
+        final int words = MIN_DEF_WORDS +
+          random.nextInt(MAX_DEF_WORDS - MIN_DEF_WORDS + 1);
+        for (int i = 0; i < words; ++i)
+        {
+          line.append((i == 0) ? "" : " ")
+              .append(vocabulary[pick(wordWeights)]);
+        }
+        
+        line.append('\n');
+        out.write(line.toString());
+        ++written;
+      } while ((written < entries) && (senses++ < MAX_SENSES) &&
+               (random.nextDouble() < senseRate));
+    }
+    
+    out.flush();
+    return written;
+  }
+  
+  
+  /**
+   * Build the vocabulary for the definitions.
+   * 
+   * @return the vocabulary words
+   */
+  private String[] buildVocabulary()
+  {
+    String[] words = new String[vocabularySize];
+    StringBuilder buf = new StringBuilder(MAX_VOCAB_LENGTH);
+    for (int i = 0; i < words.length; ++i)
+    {
+      buf.setLength(0);
+      appendWord(buf, MIN_VOCAB_LENGTH +
+                 random.nextInt(MAX_VOCAB_LENGTH - MIN_VOCAB_LENGTH + 1));
+      words[i] = buf.toString();
+    }
+    
+    return words;
+  }
+  
+  
+  /**
+   * Returns the cumulative weights of a Zipf distribution,
+   * where the word of rank r has a weight of 1 / r^s.
+   * 
+   * @param size the number of words
+   * @return the cumulative weights
+   */
+  private double[] buildZipfWeights(final int size)
+  {
+    double[] weights = new double[size];
+    double total = 0.0;
+    for (int i = 0; i < size; ++i)
+    {
+      total += 1.0 / Math.pow(i + 1, zipf);
+      weights[i] = total;
+    }
+    
+    return weights;
+  }
+  
+  
+  /**
+   * Add a random word of letters to a buffer.
+   * 
+   * @param buf the buffer
+   * @param length the number of letters
+   */
+  private void appendWord(final StringBuilder buf, final int length)
+  {
+    for (int i = 0; i < length; ++i)
+    {
+      buf.append(LETTERS.charAt(pick(letterWeights)));
+    }
+  }
+  
+  
+  /**
+   * Returns the index of a value drawn from a distribution.
+   * 
+   * @param cumulative the cumulative weights of the values
+   * @return the index of the value drawn
+   */
+  private int pick(final double[] cumulative)
+  {
+    final double target =
+      random.nextDouble() * cumulative[cumulative.length - 1];
+    int lo = 0;
+    int hi = cumulative.length - 1;
+    while (lo < hi)
+    {
+      final int mid = (lo + hi) >>> 1;
+      if (cumulative[mid] <= target)
+      {
+        lo = mid + 1;
+      }
+      else
+      {
+        hi = mid;
+      }
+    }
+    
+    return lo;
+  }
+  
+  
+  /**
+   * Returns the cumulative sums of a list of weights.
+   * 
+   * @param weights the weights
+   * @return the cumulative weights
+   */
+  private static double[] toCumulative(final int[] weights)
+  {
+    double[] sums = new double[weights.length];
+    double total = 0.0;
+    for (int i = 0; i < weights.length; ++i)
+    {
+      total += weights[i];
+      sums[i] = total;
+    }
+    
+    return sums;
+  }
+  
+  
+  /**
+   * Split a list of "value:weight" pairs, separated by commas.
+   * 
+   * @param spec the list
+   * @return the values and weights, in turn
+   */
+  private static String[] parseWeights(final String spec)
+  {
+    final String[] pairs = spec.split(",");
+    String[] parts = new String[pairs.length * 2];
+    for (int i = 0; i < pairs.length; ++i)
+    {
+      final int colon = pairs[i].indexOf(':');
+      if (colon < 0)
+      {
+        throw new IllegalArgumentException("Invalid weight: " + pairs[i]);
+      }
+      
+      parts[2 * i] = pairs[i].substring(0, colon).trim();
+      parts[(2 * i) + 1] = pairs[i].substring(colon + 1).trim();
+    }
+    
+    return parts;
+  }
+  
+  
+  /**
+   * Parse a positive number.
+   * 
+   * @param str the number
+   * @return the number
+   */
+  private static int parsePositive(final String str)
+  {
+    final int num;
+    try
+    {
+      num = Integer.parseInt(str);
+    }
+    catch (NumberFormatException nfe)
+    {
+      throw new IllegalArgumentException("Invalid number: " + str);
+    }
+    
+    if (num < 1)
+    {
+      throw new IllegalArgumentException("The number must be positive: " +
+                                         str);
+    }
+    
+    return num;
+  }
+  
+  
+  /**
+   * Check a rate is from 0 to 1.
+   * 
+   * @param rate the rate
+   * @return the rate
+   */
+  private static double checkRate(final double rate)
+  {
+    if ((rate < 0.0) || (rate > 1.0))
+    {
+      throw new IllegalArgumentException("The rate must be from 0 to 1");
+    }
+    
+    return rate;
+  }
+  
+  
+  /**
+   * Print how to run the generator.
+   */
+  private static void printUsage()
+  {
+    System.err.println("Usage: DictionaryGenerator [options]");
+    System.err.println("  -out <file>        the file to write (default: stdout)");
+    System.err.println("  -entries <n>       the number of entries (default: " +
+                       DEFAULT_ENTRIES + ")");
+    System.err.println("  -lengths <spec>    the term lengths, as min-max or " +
+                       "length:weight,...");
+    System.err.println("  -vocabulary <n>    the number of definition words " +
+                       "(default: " + DEFAULT_VOCABULARY + ")");
+    System.err.println("  -zipf <s>          the Zipf exponent of the " +
+                       "definition words (default: " + DEFAULT_ZIPF + ")");
+    System.err.println("  -speech <spec>     the parts of speech, as " +
+                       "code:weight,... (default: " + DEFAULT_SPEECH + ")");
+    System.err.println("  -phrases <rate>    the fraction of two-word terms " +
+                       "(default: " + DEFAULT_PHRASE_RATE + ")");
+    System.err.println("  -senses <rate>     the chance of another sense " +
+                       "(default: " + DEFAULT_SENSE_RATE + ")");
+    System.err.println("  -seed <n>          the random seed (default: 1)");
+  }
+  
+  
+  /**
+   * Write a synthetic dictionary, as set by the command-line
+   * arguments.
+   * 
+   * @param args command-line arguments
+   */
+  public static void main(final String[] args)
+  {
+    DictionaryGenerator gen = new DictionaryGenerator();
+    String outName = null;
+    try
+    {
+      for (int i = 0; i < args.length; i += 2)
+      {
+        if (i + 1 >= args.length)
+        {
+          throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        
+        final String value = args[i + 1];
+        if (args[i].equals("-out"))
+        {
+          outName = value;
+        }
+        else if (args[i].equals("-entries"))
+        {
+          gen.setEntries(Long.parseLong(value));
+        }
+        else if (args[i].equals("-lengths"))
+        {
+          gen.setLengths(value);
+        }
+        else if (args[i].equals("-vocabulary"))
+        {
+          gen.setVocabulary(Integer.parseInt(value));
+        }
+        else if (args[i].equals("-zipf"))
+        {
+          gen.setZipfExponent(Double.parseDouble(value));
+        }
+        else if (args[i].equals("-speech"))
+        {
+          gen.setPartsOfSpeech(value);
+        }
+        else if (args[i].equals("-phrases"))
+        {
+          gen.setPhraseRate(Double.parseDouble(value));
+        }
+        else if (args[i].equals("-senses"))
+        {
+          gen.setSenseRate(Double.parseDouble(value));
+        }
+        else if (args[i].equals("-seed"))
+        {
+          gen.setSeed(Long.parseLong(value));
+        }
+        else
+        {
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+        }
+      }
+    }
+    catch (IllegalArgumentException iae)
+    {
+      // This includes a NumberFormatException
+      System.err.println(iae.getMessage());
+      printUsage();
+      System.exit(1);
+    }
+    
+    Writer out = null;
+    try
+    {
+      out = new BufferedWriter(new OutputStreamWriter(
+          ((outName == null) ? System.out : new FileOutputStream(outName)),
+          "US-ASCII"), BUFFER_SIZE);
+      final long count = gen.generate(out);
+      if (outName != null)
+      {
+        System.err.println("Wrote " + count + " entries to " + outName);
+      }
+    }
+    catch (IOException ioe)
+    {
+      ioe.printStackTrace();
+      System.exit(1);
+    }
+    finally
+    {
+      if (out != null)
+      {
+        try
+        {
+          out.close();
+        }
+        catch (IOException ioe)
+        {
+          ioe.printStackTrace();
+        }
+      }
+    }
+  }
+}